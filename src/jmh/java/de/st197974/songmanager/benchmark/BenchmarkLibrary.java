@@ -0,0 +1,151 @@
+package de.st197974.songmanager.benchmark;
+
+import de.st197974.songmanager.event.LibraryEventBus;
+import de.st197974.songmanager.model.Song;
+import de.st197974.songmanager.repository.*;
+import de.st197974.songmanager.service.DiscographyService;
+import de.st197974.songmanager.service.FavoritesService;
+import de.st197974.songmanager.service.StatsService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A generated song library of {@link #librarySize} songs, every tenth of them a favorite, wired up with the
+ * same repositories and services the application uses. {@link #cachedSongRepository} is already loaded.
+ * <p>
+ * The database files are kept in {@code target/benchmark-data} and reused by later forks and runs as long as
+ * they hold the expected number of songs, so the 1M library is only generated once.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkLibrary {
+
+    private static final Logger logger = LogManager.getLogger(BenchmarkLibrary.class);
+
+    private static final Path DATA_DIRECTORY = Path.of(System.getProperty("songmanager.bench.dataDir", "target/benchmark-data"));
+    private static final int GENERATION_BATCH_SIZE = 10_000;
+    private static final int FAVORITE_EVERY = 10;
+    private static final int SAMPLE_SIZE = 1_024;
+
+    @Param({"1000", "100000", "1000000"})
+    public int librarySize;
+
+    public SQLiteConnectionPool connectionPool;
+    public SQLiteSongRepository songRepository;
+    public CachingSongRepository cachedSongRepository;
+    public DiscographyService discographyService;
+    public FavoritesService favoritesService;
+    public StatsService statsService;
+
+    private String[] sampleIds;
+    private String[] sampleArtists;
+    private int sampleCursor;
+
+    @Setup(Level.Trial)
+    public void open() throws IOException, SQLException {
+        Configurator.setRootLevel(org.apache.logging.log4j.Level.WARN);
+        Files.createDirectories(DATA_DIRECTORY);
+
+        connectionPool = new SQLiteConnectionPool(DATA_DIRECTORY.resolve("library-" + librarySize + ".db").toString(), SQLiteConnectionPool.DEFAULT_POOL_SIZE);
+        new SchemaMigrator(connectionPool).migrate();
+
+        if (countSongs() != librarySize) {
+            generate();
+        }
+
+        songRepository = new SQLiteSongRepository(connectionPool);
+        cachedSongRepository = new CachingSongRepository(songRepository);
+        cachedSongRepository.findAll();
+
+        FavoritesRepository favoritesRepository = new SQLiteFavoritesRepository(connectionPool);
+
+        discographyService = new DiscographyService(songRepository);
+        favoritesService = new FavoritesService(favoritesRepository, discographyService);
+        statsService = new StatsService(new SQLiteStatsRepository(connectionPool), discographyService, favoritesService, new LibraryEventBus());
+
+        sampleIds = new String[SAMPLE_SIZE];
+        sampleArtists = new String[SAMPLE_SIZE];
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            int index = (int) ((long) i * librarySize / SAMPLE_SIZE);
+            sampleIds[i] = LibraryGenerator.songId(index);
+            sampleArtists[i] = LibraryGenerator.artist(index, librarySize);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        connectionPool.close();
+    }
+
+    /**
+     * Cycles through ids spread evenly over the library.
+     */
+    public String nextSongId() {
+        return sampleIds[sampleCursor++ & (SAMPLE_SIZE - 1)];
+    }
+
+    public String nextArtist() {
+        return sampleArtists[sampleCursor++ & (SAMPLE_SIZE - 1)];
+    }
+
+    private int countSongs() throws SQLException {
+        try (PooledConnection pooled = connectionPool.acquire(); Statement stmt = pooled.connection().createStatement(); ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM songs")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private void generate() throws SQLException {
+        long start = System.nanoTime();
+
+        try (PooledConnection pooled = connectionPool.acquire(); Statement stmt = pooled.connection().createStatement()) {
+            stmt.executeUpdate("DELETE FROM playlist_song");
+            stmt.executeUpdate("DELETE FROM favorites");
+            stmt.executeUpdate("DELETE FROM songs");
+        }
+
+        SQLiteSongRepository repository = new SQLiteSongRepository(connectionPool);
+        List<Song> batch = new ArrayList<>(GENERATION_BATCH_SIZE);
+
+        for (int i = 0; i < librarySize; i++) {
+            batch.add(LibraryGenerator.song(i, librarySize));
+
+            if (batch.size() == GENERATION_BATCH_SIZE || i == librarySize - 1) {
+                if (repository.saveAll(batch) != batch.size()) {
+                    throw new IllegalStateException("Could not generate benchmark library of " + librarySize + " songs");
+                }
+                batch.clear();
+            }
+        }
+
+        try (PooledConnection pooled = connectionPool.acquire()) {
+            Connection conn = pooled.connection();
+            PreparedStatement pstmt = pooled.prepare("INSERT INTO favorites(song_id) VALUES(?)");
+
+            conn.setAutoCommit(false);
+            try {
+                for (int i = 0; i < librarySize; i += FAVORITE_EVERY) {
+                    pstmt.setString(1, LibraryGenerator.songId(i));
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                conn.commit();
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+
+        logger.warn("Generated benchmark library of {} songs in {} ms", librarySize, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,70 @@
+package de.st197974.songmanager.benchmark;
+
+import de.st197974.songmanager.repository.SQLiteConnectionPool;
+import de.st197974.songmanager.repository.SQLiteSongRepository;
+import de.st197974.songmanager.repository.SchemaMigrator;
+import de.st197974.songmanager.service.DiscographyService;
+import de.st197974.songmanager.service.ImportProgressListener;
+import de.st197974.songmanager.service.ImportResult;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full {@link DiscographyService#importSongsFromLines} runs, parsing plus batched writes, into a fresh database
+ * per iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ImportBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int librarySize;
+
+    private List<String> lines;
+    private Path databasePath;
+    private SQLiteConnectionPool connectionPool;
+    private DiscographyService discographyService;
+
+    @Setup(Level.Trial)
+    public void generateLines() throws IOException {
+        Configurator.setRootLevel(org.apache.logging.log4j.Level.WARN);
+        lines = LibraryGenerator.importLines(librarySize);
+        databasePath = Files.createTempFile("songmanager-import-bench", ".db");
+    }
+
+    @Setup(Level.Iteration)
+    public void openEmptyDatabase() throws IOException {
+        deleteDatabase();
+
+        connectionPool = new SQLiteConnectionPool(databasePath.toString(), SQLiteConnectionPool.DEFAULT_POOL_SIZE);
+        new SchemaMigrator(connectionPool).migrate();
+        discographyService = new DiscographyService(new SQLiteSongRepository(connectionPool));
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeDatabase() {
+        connectionPool.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteDatabase() throws IOException {
+        Files.deleteIfExists(databasePath);
+        Files.deleteIfExists(Path.of(databasePath + "-wal"));
+        Files.deleteIfExists(Path.of(databasePath + "-shm"));
+    }
+
+    @Benchmark
+    public ImportResult importSongsFromLines() {
+        return discographyService.importSongsFromLines(lines, DiscographyService.DEFAULT_IMPORT_BATCH_SIZE, ImportProgressListener.NONE);
+    }
+}
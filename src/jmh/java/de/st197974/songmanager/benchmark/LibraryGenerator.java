@@ -0,0 +1,60 @@
+package de.st197974.songmanager.benchmark;
+
+import de.st197974.songmanager.model.Song;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Deterministic song data for the benchmarks. Song {@code i} of a library always has the same id, title,
+ * artist, album and duration, so libraries of the same size are identical across runs and machines.
+ */
+public final class LibraryGenerator {
+
+    private static final int SONGS_PER_ARTIST = 25;
+    private static final int SONGS_PER_ALBUM = 10;
+
+    private LibraryGenerator() {
+    }
+
+    public static String songId(int index) {
+        return UUID.nameUUIDFromBytes(("song-" + index).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    public static String artist(int index, int librarySize) {
+        return "Artist " + index % artistCount(librarySize);
+    }
+
+    public static int artistCount(int librarySize) {
+        return Math.max(1, librarySize / SONGS_PER_ARTIST);
+    }
+
+    public static Song song(int index, int librarySize) {
+        int albums = Math.max(1, librarySize / SONGS_PER_ALBUM);
+        return new Song(songId(index), "Title " + index, "Album " + index % albums, artist(index, librarySize), 90 + index * 37 % 420);
+    }
+
+    /**
+     * Import lines in the mixed formats users paste, e.g. {@code "Title, Artist, Album, 3:45"} or
+     * {@code "Title - Artist 225"}.
+     */
+    public static List<String> importLines(int count) {
+        List<String> lines = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            Song song = song(i, count);
+            int seconds = song.durationInSeconds();
+
+            lines.add(switch (i % 4) {
+                case 0 -> song.title() + ", " + song.artist() + ", " + song.album() + ", " + song.formatTime(seconds);
+                case 1 -> song.title() + " - " + song.artist() + " - " + song.album() + " " + seconds;
+                case 2 -> song.title() + " . " + song.artist() + " . " + song.formatTime(seconds);
+                default -> song.title() + ", " + song.artist();
+            });
+        }
+
+        return lines;
+    }
+}
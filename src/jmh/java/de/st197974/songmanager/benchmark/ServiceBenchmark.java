@@ -0,0 +1,73 @@
+package de.st197974.songmanager.benchmark;
+
+import de.st197974.songmanager.model.LibraryStats;
+import de.st197974.songmanager.model.Song;
+import de.st197974.songmanager.service.ExportFormat;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read paths of the services behind the main window, the favorites tab and the stats tab.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    @Benchmark
+    public List<String> getAllArtists(BenchmarkLibrary library) {
+        return library.discographyService.getAllArtists();
+    }
+
+    @Benchmark
+    public String exportSongsToText(BenchmarkLibrary library) {
+        return library.discographyService.exportSongsToText();
+    }
+
+    @Benchmark
+    public int exportSongsAsJsonLines(BenchmarkLibrary library) throws IOException {
+        return library.discographyService.exportSongs(Writer.nullWriter(), ExportFormat.JSON_LINES);
+    }
+
+    @Benchmark
+    public List<Song> getAllFavorites(BenchmarkLibrary library) {
+        return library.favoritesService.getAllFavorites();
+    }
+
+    @Benchmark
+    public Map<String, Long> statsSongsPerArtist(BenchmarkLibrary library) {
+        return library.statsService.getSongsPerArtist();
+    }
+
+    @Benchmark
+    public LibraryStats statsSnapshot(BenchmarkLibrary library) {
+        return library.statsService.getSnapshot();
+    }
+
+    @Benchmark
+    public boolean statsCheckConsistency(BenchmarkLibrary library) {
+        return library.statsService.checkConsistency();
+    }
+
+    @Benchmark
+    public long statsTotalDuration(BenchmarkLibrary library) {
+        return library.statsService.getTotalDuration();
+    }
+
+    @Benchmark
+    public int statsAverageDuration(BenchmarkLibrary library) {
+        return library.statsService.getAverageDuration();
+    }
+
+    @Benchmark
+    public int statsTotalFavorites(BenchmarkLibrary library) {
+        return library.statsService.getTotalFavorites();
+    }
+}
@@ -0,0 +1,45 @@
+package de.st197974.songmanager.benchmark;
+
+import de.st197974.songmanager.model.Song;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SongRepositoryBenchmark {
+
+    @Benchmark
+    public List<Song> findAll(BenchmarkLibrary library) {
+        return library.songRepository.findAll();
+    }
+
+    @Benchmark
+    public Song findByID(BenchmarkLibrary library) {
+        return library.songRepository.findByID(library.nextSongId());
+    }
+
+    @Benchmark
+    public List<Song> findByArtist(BenchmarkLibrary library) {
+        return library.songRepository.findByArtist(library.nextArtist());
+    }
+
+    @Benchmark
+    public List<Song> findAllCached(BenchmarkLibrary library) {
+        return library.cachedSongRepository.findAll();
+    }
+
+    @Benchmark
+    public Song findByIDCached(BenchmarkLibrary library) {
+        return library.cachedSongRepository.findByID(library.nextSongId());
+    }
+
+    @Benchmark
+    public List<Song> findByArtistCached(BenchmarkLibrary library) {
+        return library.cachedSongRepository.findByArtist(library.nextArtist());
+    }
+}
@@ -0,0 +1,91 @@
+package de.st197974.songmanager.service;
+
+import de.st197974.songmanager.model.Song;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The regex-based import line parser that {@link SmartLineParser} replaced, kept unchanged as the baseline of
+ * {@link SmartLineParserBenchmark}. It compiles its pattern and splits with regular expressions on every line.
+ */
+final class RegexSmartLineParser {
+
+    private RegexSmartLineParser() {
+    }
+
+    static Song parse(String line) {
+        try {
+
+            String cleanLine = line.trim();
+
+            String durationRegex = "(?:\\s+|\\s*[,.-]\\s*)(\\d{1,2}:\\d{2}|\\d{2,4})\\s*$";
+            Pattern pattern = Pattern.compile(durationRegex);
+            Matcher matcher = pattern.matcher(cleanLine);
+
+            int duration = 0;
+            String textPart = cleanLine;
+
+            if (matcher.find()) {
+                String durationString = matcher.group(1);
+                duration = parseDurationInternal(durationString);
+
+                textPart = cleanLine.substring(0, matcher.start()).trim();
+            }
+
+            String separator = detectSeparator(textPart);
+
+            if (separator == null) return new Song(textPart, "", "Unknown Artist", duration);
+
+            String[] parts = textPart.split(separator);
+
+            for (int i = 0; i < parts.length; i++) {
+                parts[i] = parts[i].trim();
+            }
+
+            String title = parts.length > 0 ? parts[0] : "Unknown Title";
+            String artist = parts.length > 1 ? parts[1] : "Unknown Artist";
+            String album = parts.length > 2 ? parts[2] : "";
+
+            return new Song(title, album, artist, duration);
+
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static String detectSeparator(String text) {
+        int commas = countOccurrences(text, ',');
+        int dashes = countOccurrences(text, '-');
+        int vertLines = countOccurrences(text, '|');
+
+        int dots = text.split("\\s\\.\\s").length - 1;
+
+        if (commas >= 1) return "\\,";
+        if (dashes >= 1) return "-";
+        if (vertLines >= 1) return "|";
+        if (dots >= 1) return "\\s\\.\\s";
+        return null;
+    }
+
+    private static int countOccurrences(String text, char c) {
+        int count = 0;
+        for (char ch : text.toCharArray()) {
+            if (ch == c) count++;
+        }
+        return count;
+    }
+
+    private static int parseDurationInternal(String input) {
+        if (input.matches("\\d+")) {
+            return Integer.parseInt(input);
+        }
+        String[] parts = input.split(":");
+        if (parts.length == 2) {
+            int min = Integer.parseInt(parts[0]);
+            int sec = Integer.parseInt(parts[1]);
+            return min * 60 + sec;
+        }
+        return 0;
+    }
+}
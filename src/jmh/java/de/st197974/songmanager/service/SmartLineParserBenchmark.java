@@ -0,0 +1,45 @@
+package de.st197974.songmanager.service;
+
+import de.st197974.songmanager.benchmark.LibraryGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The import line parser on its own, without the database writes, next to the regex-based parser it replaced.
+ * Lives in the service package because {@link SmartLineParser} is package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SmartLineParserBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int librarySize;
+
+    private List<String> lines;
+
+    @Setup(Level.Trial)
+    public void generateLines() {
+        lines = LibraryGenerator.importLines(librarySize);
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(SmartLineParser.parse(line));
+        }
+    }
+
+    @Benchmark
+    public void parseWithRegex(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(RegexSmartLineParser.parse(line));
+        }
+    }
+}
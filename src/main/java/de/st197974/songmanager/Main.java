@@ -1,8 +1,10 @@
 package de.st197974.songmanager;
 
+import de.st197974.songmanager.event.LibraryEventBus;
 import de.st197974.songmanager.repository.*;
 import de.st197974.songmanager.service.*;
 import de.st197974.songmanager.ui.AppTheme;
+import de.st197974.songmanager.ui.BackgroundTasks;
 import de.st197974.songmanager.ui.SongManagerUI;
 import com.formdev.flatlaf.FlatLaf;
 
@@ -15,20 +17,55 @@ public class Main {
 
         AppTheme.applyLightTheme();
 
-        SongRepository songRepository = new SQLiteSongRepository();
-        PlaylistRepository playlistRepository = new SQLitePlaylistRepository();
-        FavoritesRepository favoritesRepository = new SQLiteFavoritesRepository();
+        String databasePath = System.getProperty("songmanager.db.path", SQLiteConnectionPool.DEFAULT_DATABASE_PATH);
+        int poolSize = Integer.getInteger("songmanager.db.poolSize", SQLiteConnectionPool.DEFAULT_POOL_SIZE);
+        int statementCacheSize = Integer.getInteger("songmanager.db.statementCacheSize", SQLiteConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE);
 
-        DiscographyService discographyService = new DiscographyService(songRepository);
+        boolean catalogCache = Boolean.parseBoolean(System.getProperty("songmanager.catalog.cache", "true"));
+        int importParallelism = Integer.getInteger("songmanager.import.parallelism", DiscographyService.DEFAULT_IMPORT_PARALLELISM);
+        int searchDebounceMillis = Integer.getInteger("songmanager.search.debounceMillis", SongManagerUI.DEFAULT_SEARCH_DEBOUNCE_MILLIS);
+
+        SQLiteProfile profile = SQLiteProfile.fromName(System.getProperty("songmanager.db.profile"));
+
+        SQLiteConnectionPool connectionPool = new SQLiteConnectionPool(databasePath, poolSize, statementCacheSize, profile);
+        Runtime.getRuntime().addShutdownHook(new Thread(connectionPool::close));
+
+        new SchemaMigrator(connectionPool).migrate();
+
+        SongRepository songRepository = new SQLiteSongRepository(connectionPool);
+        PlaylistRepository playlistRepository = new SQLitePlaylistRepository(connectionPool);
+        FavoritesRepository favoritesRepository = new SQLiteFavoritesRepository(connectionPool);
+        StatsRepository statsRepository = new SQLiteStatsRepository(connectionPool);
+        SnapshotRepository snapshotRepository = new SQLiteSnapshotRepository(connectionPool);
+        if (catalogCache) {
+            CachingSongRepository cachingSongRepository = new CachingSongRepository(songRepository);
+            CachingFavoritesRepository cachingFavoritesRepository = new CachingFavoritesRepository(favoritesRepository);
+            songRepository = cachingSongRepository;
+            favoritesRepository = cachingFavoritesRepository;
+            snapshotRepository = new CacheInvalidatingSnapshotRepository(snapshotRepository, cachingSongRepository, cachingFavoritesRepository);
+        }
+
+        LibraryEventBus eventBus = new LibraryEventBus();
+        songRepository = new EventPublishingSongRepository(songRepository, eventBus);
+        favoritesRepository = new EventPublishingFavoritesRepository(favoritesRepository, eventBus);
+        playlistRepository = new EventPublishingPlaylistRepository(playlistRepository, eventBus);
+        snapshotRepository = new EventPublishingSnapshotRepository(snapshotRepository, eventBus);
+
+        DiscographyService discographyService = new DiscographyService(songRepository, importParallelism, eventBus);
         PlaylistService playlistService = new PlaylistService(playlistRepository);
         FavoritesService favoritesService = new FavoritesService(favoritesRepository, discographyService);
-        StatsService statsService = new StatsService(discographyService, favoritesService);
+        StatsService statsService = new StatsService(statsRepository, discographyService, favoritesService, eventBus);
         ArtistService artistService = new ArtistService(songRepository);
+        SnapshotService snapshotService = new SnapshotService(snapshotRepository);
 
         discographyService.cleanupInvalidSongs();
+        Thread.ofVirtual().name("substring-index").start(discographyService::buildSubstringIndex);
+
+        BackgroundTasks backgroundTasks = new BackgroundTasks();
+        Runtime.getRuntime().addShutdownHook(new Thread(backgroundTasks::close));
 
         SwingUtilities.invokeLater(() -> {
-            new SongManagerUI(discographyService, playlistService, favoritesService, statsService, artistService);
+            new SongManagerUI(discographyService, playlistService, favoritesService, statsService, artistService, snapshotService, eventBus, backgroundTasks, searchDebounceMillis);
         });
     }
 }
\ No newline at end of file
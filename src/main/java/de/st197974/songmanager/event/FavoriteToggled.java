@@ -0,0 +1,4 @@
+package de.st197974.songmanager.event;
+
+public record FavoriteToggled(String songId, boolean favorite) implements LibraryEvent {
+}
@@ -0,0 +1,7 @@
+package de.st197974.songmanager.event;
+
+/**
+ * A change to the song library or its playlists, published on the {@link LibraryEventBus} after it was written to the database.
+ */
+public sealed interface LibraryEvent permits SongAdded, SongUpdated, SongDeleted, SongsBulkChanged, FavoriteToggled, PlaylistChanged {
+}
@@ -0,0 +1,91 @@
+package de.st197974.songmanager.event;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Delivers {@link LibraryEvent}s to subscribers synchronously on the publishing thread, in subscription order.
+ * A failing subscriber is logged and does not keep the others from receiving the event.
+ * <p>
+ * Subscribers that compute their state from the database and then keep it current with events need the two to
+ * line up: a write that committed before their query must not be applied again when its events arrive. Writers
+ * therefore run the write and its publication in {@link #publishing}, and such a subscriber runs its query and
+ * adopts the result in {@link #settled}, which waits until no write is between the database and its events.
+ */
+public class LibraryEventBus {
+
+    private static final Logger logger = LogManager.getLogger(LibraryEventBus.class);
+
+    private final List<Consumer<? super LibraryEvent>> subscribers = new CopyOnWriteArrayList<>();
+
+    // writers share the read lock, settled readers take the write lock
+    private final ReentrantReadWriteLock fence = new ReentrantReadWriteLock();
+
+    /**
+     * @return an action that removes the subscription again
+     */
+    public Runnable subscribe(Consumer<? super LibraryEvent> subscriber) {
+        subscribers.add(subscriber);
+        return () -> subscribers.remove(subscriber);
+    }
+
+    public void publish(LibraryEvent event) {
+        fence.readLock().lock();
+        try {
+            for (Consumer<? super LibraryEvent> subscriber : subscribers) {
+                try {
+                    subscriber.accept(event);
+                } catch (RuntimeException e) {
+                    logger.error("Subscriber failed to handle {}", event, e);
+                }
+            }
+        } finally {
+            fence.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs a write together with the publication of its events, so a {@link #settled} read sees either both or
+     * neither. Writes do not exclude each other.
+     */
+    public <T> T publishing(Supplier<T> write) {
+        fence.readLock().lock();
+        try {
+            return write.get();
+        } finally {
+            fence.readLock().unlock();
+        }
+    }
+
+    public void publishing(Runnable write) {
+        publishing(() -> {
+            write.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs a read while no {@link #publishing} write is in progress; writes wait until it returns. From within a
+     * subscriber, which already runs inside a publication, the read runs right away.
+     */
+    public <T> T settled(Supplier<T> read) {
+        if (fence.getReadHoldCount() > 0) return read.get();
+
+        fence.writeLock().lock();
+        try {
+            return read.get();
+        } finally {
+            fence.writeLock().unlock();
+        }
+    }
+
+    public boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+}
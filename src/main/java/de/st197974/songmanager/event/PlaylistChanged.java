@@ -0,0 +1,18 @@
+package de.st197974.songmanager.event;
+
+import de.st197974.songmanager.model.Playlist;
+
+/**
+ * A playlist was created, renamed or deleted, or a song was added to or removed from it.
+ * For a deletion {@code playlist} is the state before; {@code songId} is only set for song changes.
+ */
+public record PlaylistChanged(Playlist playlist, Change change, String songId) implements LibraryEvent {
+
+    public enum Change {
+        CREATED, RENAMED, DELETED, SONG_ADDED, SONG_REMOVED
+    }
+
+    public PlaylistChanged(Playlist playlist, Change change) {
+        this(playlist, change, null);
+    }
+}
@@ -0,0 +1,6 @@
+package de.st197974.songmanager.event;
+
+import de.st197974.songmanager.model.Song;
+
+public record SongAdded(Song song) implements LibraryEvent {
+}
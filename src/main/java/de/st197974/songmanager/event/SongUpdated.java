@@ -0,0 +1,9 @@
+package de.st197974.songmanager.event;
+
+import de.st197974.songmanager.model.Song;
+
+/**
+ * A song was saved over an existing one with the same id.
+ */
+public record SongUpdated(Song before, Song after) implements LibraryEvent {
+}
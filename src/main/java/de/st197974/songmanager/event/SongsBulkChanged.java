@@ -0,0 +1,8 @@
+package de.st197974.songmanager.event;
+
+/**
+ * The songs table changed in a way that is not described song by song, e.g. a cleanup statement or a restored
+ * snapshot. Listeners keeping derived state have to reload it.
+ */
+public record SongsBulkChanged() implements LibraryEvent {
+}
@@ -0,0 +1,16 @@
+package de.st197974.songmanager.model;
+
+import java.util.Map;
+
+/**
+ * Aggregated figures of the song library, taken at one point in time.
+ * {@code songsPerArtist} is ordered by song count, highest first.
+ */
+public record LibraryStats(int totalSongs, long totalDuration, int totalFavorites, Map<String, Long> songsPerArtist) {
+
+    public static final LibraryStats EMPTY = new LibraryStats(0, 0, 0, Map.of());
+
+    public int averageDuration() {
+        return totalSongs == 0 ? 0 : (int) (totalDuration / totalSongs);
+    }
+}
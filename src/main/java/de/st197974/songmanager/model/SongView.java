@@ -0,0 +1,101 @@
+package de.st197974.songmanager.model;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * How a song is shown and searched: its formatted duration, lowercased search key and HTML line.
+ * <p>
+ * Each is computed on first use and kept, so repainting or searching the same song formats it only once. Songs
+ * are immutable and an edit creates a new one, so a view belongs to exactly one version of a song.
+ * {@link #of(Song)} shares views through a bounded cache that is thread-safe and simply starts over once it is
+ * full; code going over the whole library once, like an export or an index build, uses the static methods instead
+ * of filling the cache.
+ */
+public final class SongView {
+
+    public static final int CACHE_SIZE = 16_384;
+
+    // durations of up to 100 minutes are formatted once per value, filled as racily as the fields below
+    private static final String[] DURATIONS = new String[6_000];
+
+    private static final Map<Song, SongView> cache = new ConcurrentHashMap<>();
+
+    private final Song song;
+
+    // racy but benign: every thread computes the same immutable string
+    private String duration;
+    private String searchKey;
+    private String html;
+
+    private SongView(Song song) {
+        this.song = song;
+    }
+
+    public static SongView of(Song song) {
+        SongView view = cache.get(song);
+        if (view != null) return view;
+
+        if (cache.size() >= CACHE_SIZE) cache.clear();
+        return cache.computeIfAbsent(song, SongView::new);
+    }
+
+    public Song song() {
+        return song;
+    }
+
+    public String duration() {
+        String d = duration;
+        if (d == null) duration = d = formatDuration(song.durationInSeconds());
+        return d;
+    }
+
+    public String searchKey() {
+        String k = searchKey;
+        if (k == null) searchKey = k = searchKey(song);
+        return k;
+    }
+
+    public String html() {
+        String h = html;
+        if (h == null) html = h = html(song);
+        return h;
+    }
+
+    /**
+     * Formats seconds as {@code m:ss}, e.g. {@code 3:07}.
+     */
+    public static String formatDuration(int seconds) {
+        if (seconds < 0) return String.format("%d:%02d", seconds / 60, seconds % 60);
+        if (seconds >= DURATIONS.length) return format(seconds);
+
+        String d = DURATIONS[seconds];
+        if (d == null) DURATIONS[seconds] = d = format(seconds);
+        return d;
+    }
+
+    /**
+     * The text a query is matched against: the lowercased fields, separated by a line break no query contains.
+     */
+    public static String searchKey(Song song) {
+        return (song.title() + '\n' + song.artist() + '\n' + Objects.toString(song.album(), "")).toLowerCase(Locale.ROOT);
+    }
+
+    private static String format(int seconds) {
+        int s = seconds % 60;
+        return (seconds / 60) + (s < 10 ? ":0" : ":") + s;
+    }
+
+    private static String html(Song song) {
+        if ("null".equals(song.id())) {
+            return "<html><div style='text-align: center; width: 380px; padding: 5px; color: #888888;'>" + "<i>" + song.title() + "</i>" + "</div></html>";
+        }
+
+        String album = song.album();
+        String albumInfo = (album == null || album.trim().isEmpty()) ? "" : " <font color='gray'> (" + album + ")</font>";
+
+        return "<html><table width='480'>" + "<tr>" + "<td align='left'>" + song.title() + " <b>– " + song.artist() + "</b>" + albumInfo + "</td>" + "<td align='right' width='60'><b>" + formatDuration(song.durationInSeconds()) + "</b></td>" + "</tr>" + "</table></html>";
+    }
+}
@@ -0,0 +1,37 @@
+package de.st197974.songmanager.repository;
+
+import java.io.IOException;
+
+/**
+ * Invalidates the song and favorite caches after a snapshot replaced the library behind their back.
+ * Like the caches it wraps the SQLite repository and is wrapped by {@link EventPublishingSnapshotRepository}, so
+ * listeners of the event already read the restored library.
+ */
+public class CacheInvalidatingSnapshotRepository implements SnapshotRepository {
+
+    private final SnapshotRepository delegate;
+    private final CachingSongRepository songs;
+    private final CachingFavoritesRepository favorites;
+
+    public CacheInvalidatingSnapshotRepository(SnapshotRepository delegate, CachingSongRepository songs, CachingFavoritesRepository favorites) {
+        this.delegate = delegate;
+        this.songs = songs;
+        this.favorites = favorites;
+    }
+
+    @Override
+    public boolean read(Sink sink) throws IOException {
+        return delegate.read(sink);
+    }
+
+    @Override
+    public boolean replace(Source source) throws IOException {
+        boolean replaced = delegate.replace(source);
+
+        if (replaced) {
+            songs.invalidate();
+            favorites.invalidate();
+        }
+        return replaced;
+    }
+}
@@ -0,0 +1,99 @@
+package de.st197974.songmanager.repository;
+
+import de.st197974.songmanager.model.Song;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Answers {@link #isFavorite(String)} from an in-memory set of favorite song ids instead of a query per call,
+ * which the list renderers do for every visible row on each repaint.
+ * <p>
+ * The set is loaded on the first membership check and updated by {@link #addFavorite} and {@link #removeFavorite}
+ * with the state the database reports after the write. Listing queries still go to the database, so their order
+ * stays the same.
+ */
+public class CachingFavoritesRepository implements FavoritesRepository {
+
+    private static final Logger logger = LogManager.getLogger(CachingFavoritesRepository.class);
+
+    private final FavoritesRepository delegate;
+
+    private final Set<String> favoriteIds = ConcurrentHashMap.newKeySet();
+    private volatile boolean loaded;
+
+    public CachingFavoritesRepository(FavoritesRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void addFavorite(String songId) {
+        delegate.addFavorite(songId);
+        refresh(songId);
+    }
+
+    @Override
+    public void removeFavorite(String songId) {
+        delegate.removeFavorite(songId);
+        refresh(songId);
+    }
+
+    @Override
+    public boolean isFavorite(String songId) {
+        if (!loaded) load();
+        return songId != null && favoriteIds.contains(songId);
+    }
+
+    @Override
+    public List<String> getAllFavoriteIds() {
+        return delegate.getAllFavoriteIds();
+    }
+
+    @Override
+    public boolean forEachFavoriteId(Consumer<? super String> action) {
+        return delegate.forEachFavoriteId(action);
+    }
+
+    @Override
+    public List<Song> findFavoriteSongs(SongOrder order) {
+        return delegate.findFavoriteSongs(order);
+    }
+
+    /**
+     * Drops the in-memory set; the next membership check loads it again.
+     */
+    public synchronized void invalidate() {
+        favoriteIds.clear();
+        loaded = false;
+    }
+
+    /**
+     * Loads the set unless another thread already did. A failed query leaves the set unloaded, so the next check
+     * asks again; having no favorites counts as loaded.
+     */
+    private synchronized void load() {
+        if (loaded) return;
+
+        loaded = delegate.forEachFavoriteId(favoriteIds::add);
+
+        if (loaded) {
+            logger.info("Loaded {} favorite ids into memory", favoriteIds.size());
+        } else {
+            favoriteIds.clear();
+        }
+    }
+
+    private synchronized void refresh(String songId) {
+        if (!loaded || songId == null) return;
+
+        if (delegate.isFavorite(songId)) {
+            favoriteIds.add(songId);
+        } else {
+            favoriteIds.remove(songId);
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package de.st197974.songmanager.repository;
+
+import de.st197974.songmanager.model.Song;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the whole song catalog in memory in front of another {@link SongRepository}.
+ * <p>
+ * The catalog is loaded on the first read and then kept coherent by every write that goes through this
+ * repository, so reads never touch the database again. Songs are indexed by id, artist and album; artist and
+ * album lookups fold ASCII case like SQLite's {@code NOCASE} collation. Results keep the order the database
+ * would return them in: all songs and album lookups in insertion order, with replaced songs moving to the end,
+ * and artist lookups in id order, since SQLite answers them from the {@code (artist, id)} index.
+ * <p>
+ * Writes made to the database behind the back of this repository are not seen until {@link #invalidate()}.
+ */
+public class CachingSongRepository implements SongRepository {
+
+    private static final Logger logger = LogManager.getLogger(CachingSongRepository.class);
+
+    private static final int SONG_BYTES = 32;
+    private static final int ENTRY_BYTES = 48;
+    private static final int INDEX_KEY_BYTES = 96;
+
+    private final SongRepository delegate;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Song> byId = new LinkedHashMap<>();
+    // songs of an artist sorted by id, those of an album in insertion order
+    private final Map<String, NavigableMap<String, Song>> byArtist = new HashMap<>();
+    private final Map<String, Map<String, Song>> byAlbum = new HashMap<>();
+    private boolean loaded;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CachingSongRepository(SongRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void save(Song song) {
+        delegate.save(song);
+        refresh(song.id());
+    }
+
+    @Override
+    public int saveAll(Collection<Song> songs) {
+        int saved = delegate.saveAll(songs);
+
+        if (saved == songs.size()) {
+            lock.writeLock().lock();
+            try {
+                if (loaded) songs.forEach(this::put);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        return saved;
+    }
+
+    @Override
+    public List<Song> findAll() {
+        return read(() -> new ArrayList<>(byId.values()));
+    }
+
+    @Override
+    public Song findByID(String id) {
+        return read(() -> byId.get(id));
+    }
+
+    @Override
+    public Map<String, Song> findByIDs(Collection<String> ids) {
+        return read(() -> {
+            Map<String, Song> songs = new HashMap<>();
+            for (String id : ids) {
+                Song song = byId.get(id);
+                if (song != null) songs.put(id, song);
+            }
+            return songs;
+        });
+    }
+
+    @Override
+    public List<Song> findByArtist(String artist) {
+        return read(() -> lookup(byArtist, artist));
+    }
+
+    @Override
+    public List<Song> findByAlbum(String album) {
+        return read(() -> lookup(byAlbum, album));
+    }
+
+    /**
+     * Served by the full-text index of the delegate; the catalog has no word index and every write reaches the
+     * database before it reaches the catalog.
+     */
+    @Override
+    public List<Song> search(String query, int limit) {
+        return delegate.search(query, limit);
+    }
+
+    @Override
+    public int count() {
+        return read(byId::size);
+    }
+
+    /**
+     * Served by the indexes of the delegate; sorting the catalog for every page would cost more than the seek.
+     */
+    @Override
+    public List<Song> findPage(SongOrder order, Song after, int offset, int limit) {
+        return delegate.findPage(order, after, offset, limit);
+    }
+
+    /**
+     * Streamed from the delegate, which sorts in the database instead of copying the catalog.
+     */
+    @Override
+    public boolean forEach(SongOrder order, Consumer<? super Song> action) {
+        return delegate.forEach(order, action);
+    }
+
+    /**
+     * Streamed from the delegate like {@link #forEach(SongOrder, Consumer)}, so a failed query is reported.
+     */
+    @Override
+    public boolean forEach(Consumer<? super Song> action) {
+        return delegate.forEach(action);
+    }
+
+    @Override
+    public void deleteByID(String id) {
+        delegate.deleteByID(id);
+        refresh(id);
+    }
+
+    @Override
+    public void deleteInvalidSongs() {
+        delegate.deleteInvalidSongs();
+        invalidate();
+    }
+
+    /**
+     * Drops the in-memory catalog; the next read loads it again.
+     */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            byId.clear();
+            byArtist.clear();
+            byAlbum.clear();
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public CatalogCacheStats getStats() {
+        lock.readLock().lock();
+        try {
+            return new CatalogCacheStats(hits.sum(), misses.sum(), byId.size(), byArtist.size(), byAlbum.size(), estimateBytes());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private <T> T read(Supplier<T> query) {
+        lock.readLock().lock();
+        try {
+            if (loaded) {
+                hits.increment();
+                return query.get();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            load();
+            misses.increment();
+            return query.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Loads the catalog unless another thread already did. Must be called with the write lock held.
+     * A failed query leaves the catalog unloaded, so the next read asks again; an empty library counts as loaded.
+     */
+    private void load() {
+        if (loaded) return;
+
+        long start = System.nanoTime();
+        loaded = delegate.forEach(this::put);
+
+        if (loaded) {
+            logger.info("Loaded song catalog in {} ms: {}", (System.nanoTime() - start) / 1_000_000, getStats());
+        } else {
+            byId.clear();
+            byArtist.clear();
+            byAlbum.clear();
+        }
+    }
+
+    private void refresh(String id) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) return;
+
+            Song stored = delegate.findByID(id);
+            if (stored != null) {
+                put(stored);
+            } else {
+                remove(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(Song song) {
+        remove(song.id());
+
+        byId.put(song.id(), song);
+        index(byArtist, song.artist(), song, () -> new TreeMap<>(CachingSongRepository::compareBinary));
+        index(byAlbum, song.album(), song, LinkedHashMap::new);
+    }
+
+    private void remove(String id) {
+        Song previous = byId.remove(id);
+        if (previous == null) return;
+
+        unindex(byArtist, previous.artist(), id);
+        unindex(byAlbum, previous.album(), id);
+    }
+
+    private static <M extends Map<String, Song>> void index(Map<String, M> index, String value, Song song, Supplier<M> newBucket) {
+        if (value == null) return;
+        index.computeIfAbsent(nocase(value), _ -> newBucket.get()).put(song.id(), song);
+    }
+
+    private static void unindex(Map<String, ? extends Map<String, Song>> index, String value, String id) {
+        if (value == null) return;
+
+        String key = nocase(value);
+        Map<String, Song> songs = index.get(key);
+        if (songs == null) return;
+
+        songs.remove(id);
+        if (songs.isEmpty()) index.remove(key);
+    }
+
+    private static List<Song> lookup(Map<String, ? extends Map<String, Song>> index, String value) {
+        if (value == null) return new ArrayList<>();
+
+        Map<String, Song> songs = index.get(nocase(value));
+        return songs == null ? new ArrayList<>() : new ArrayList<>(songs.values());
+    }
+
+    /**
+     * Compares like SQLite's {@code BINARY} collation, i.e. by the UTF-8 bytes, which order like code points;
+     * {@link String#compareTo} differs for characters outside the BMP.
+     */
+    private static int compareBinary(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int x = a.codePointAt(i);
+            int y = b.codePointAt(j);
+            if (x != y) return Integer.compare(x, y);
+
+            i += Character.charCount(x);
+            j += Character.charCount(y);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    /**
+     * Folds A-Z to lower case and leaves every other character alone, like SQLite's {@code NOCASE}.
+     */
+    private static String nocase(String value) {
+        int length = value.length();
+        int i = 0;
+        while (i < length && !isAsciiUpper(value.charAt(i))) i++;
+        if (i == length) return value;
+
+        char[] chars = value.toCharArray();
+        for (; i < length; i++) {
+            if (isAsciiUpper(chars[i])) chars[i] = (char) (chars[i] + ('a' - 'A'));
+        }
+        return new String(chars);
+    }
+
+    private static boolean isAsciiUpper(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    /**
+     * Rough heap footprint of the catalog: song records, their strings and one map entry per index.
+     */
+    private long estimateBytes() {
+        long bytes = (long) (byArtist.size() + byAlbum.size()) * INDEX_KEY_BYTES;
+
+        for (Song song : byId.values()) {
+            bytes += SONG_BYTES + 3L * ENTRY_BYTES;
+            bytes += stringBytes(song.id()) + stringBytes(song.title()) + stringBytes(song.artist()) + stringBytes(song.album());
+        }
+
+        return bytes;
+    }
+
+    private static long stringBytes(String value) {
+        if (value == null) return 0;
+
+        int bytesPerChar = 1;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+
+        long array = 16L + (long) value.length() * bytesPerChar;
+        return 24 + ((array + 7) & ~7L);
+    }
+}
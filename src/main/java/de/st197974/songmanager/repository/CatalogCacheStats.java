@@ -0,0 +1,18 @@
+package de.st197974.songmanager.repository;
+
+/**
+ * Counters and size of the in-memory catalog of a {@link CachingSongRepository}.
+ * A miss is a read that had to load the catalog from the database first.
+ */
+public record CatalogCacheStats(long hits, long misses, int songs, int artists, int albums, long estimatedBytes) {
+
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d hits, %d misses (%.1f%% hit rate), %d songs, %d artists, %d albums, ~%.1f MB", hits, misses, hitRate() * 100, songs, artists, albums, estimatedBytes / (1024.0 * 1024.0));
+    }
+}
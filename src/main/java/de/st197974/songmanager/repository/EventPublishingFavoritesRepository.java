@@ -0,0 +1,68 @@
+package de.st197974.songmanager.repository;
+
+import de.st197974.songmanager.event.FavoriteToggled;
+import de.st197974.songmanager.event.LibraryEventBus;
+import de.st197974.songmanager.model.Song;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Publishes a {@link FavoriteToggled} event whenever adding or removing a favorite changed the stored state.
+ * Like {@link EventPublishingSongRepository} it should wrap the caching repository, so the membership checks
+ * around each write stay in memory.
+ */
+public class EventPublishingFavoritesRepository implements FavoritesRepository {
+
+    private final FavoritesRepository delegate;
+    private final LibraryEventBus eventBus;
+
+    public EventPublishingFavoritesRepository(FavoritesRepository delegate, LibraryEventBus eventBus) {
+        this.delegate = delegate;
+        this.eventBus = eventBus;
+    }
+
+    @Override
+    public void addFavorite(String songId) {
+        eventBus.publishing(() -> {
+            boolean before = delegate.isFavorite(songId);
+            delegate.addFavorite(songId);
+
+            if (!before && delegate.isFavorite(songId)) {
+                eventBus.publish(new FavoriteToggled(songId, true));
+            }
+        });
+    }
+
+    @Override
+    public void removeFavorite(String songId) {
+        eventBus.publishing(() -> {
+            boolean before = delegate.isFavorite(songId);
+            delegate.removeFavorite(songId);
+
+            if (before && !delegate.isFavorite(songId)) {
+                eventBus.publish(new FavoriteToggled(songId, false));
+            }
+        });
+    }
+
+    @Override
+    public boolean isFavorite(String songId) {
+        return delegate.isFavorite(songId);
+    }
+
+    @Override
+    public List<String> getAllFavoriteIds() {
+        return delegate.getAllFavoriteIds();
+    }
+
+    @Override
+    public boolean forEachFavoriteId(Consumer<? super String> action) {
+        return delegate.forEachFavoriteId(action);
+    }
+
+    @Override
+    public List<Song> findFavoriteSongs(SongOrder order) {
+        return delegate.findFavoriteSongs(order);
+    }
+}
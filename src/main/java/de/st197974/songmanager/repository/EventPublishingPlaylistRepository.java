@@ -0,0 +1,93 @@
+package de.st197974.songmanager.repository;
+
+import de.st197974.songmanager.event.LibraryEventBus;
+import de.st197974.songmanager.event.PlaylistChanged;
+import de.st197974.songmanager.event.PlaylistChanged.Change;
+import de.st197974.songmanager.model.Playlist;
+import de.st197974.songmanager.model.Song;
+
+import java.util.List;
+
+/**
+ * Publishes a {@link PlaylistChanged} event for every playlist write that changed the stored state.
+ * <p>
+ * Like the other publishing decorators it compares the state before and after the write, because the SQLite
+ * repository logs failures instead of reporting them. Playlists themselves are looked up in the small playlist
+ * table; membership checks use the primary key of {@code playlist_song}.
+ */
+public class EventPublishingPlaylistRepository implements PlaylistRepository {
+
+    private final PlaylistRepository delegate;
+    private final LibraryEventBus eventBus;
+
+    public EventPublishingPlaylistRepository(PlaylistRepository delegate, LibraryEventBus eventBus) {
+        this.delegate = delegate;
+        this.eventBus = eventBus;
+    }
+
+    @Override
+    public void createPlaylist(Playlist playlist) {
+        delegate.createPlaylist(playlist);
+
+        Playlist created = find(playlist.id());
+        if (created != null) eventBus.publish(new PlaylistChanged(created, Change.CREATED));
+    }
+
+    @Override
+    public List<Playlist> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public void deletePlaylist(String id) {
+        Playlist before = find(id);
+        delegate.deletePlaylist(id);
+
+        if (before != null && find(id) == null) eventBus.publish(new PlaylistChanged(before, Change.DELETED));
+    }
+
+    @Override
+    public void addSongToPlaylist(String playlistId, String songId) {
+        boolean before = delegate.isSongInPlaylist(playlistId, songId);
+        delegate.addSongToPlaylist(playlistId, songId);
+
+        if (!before && delegate.isSongInPlaylist(playlistId, songId)) {
+            eventBus.publish(new PlaylistChanged(new Playlist(playlistId, null), Change.SONG_ADDED, songId));
+        }
+    }
+
+    @Override
+    public void removeSongFromPlaylist(String playlistId, String songId) {
+        boolean before = delegate.isSongInPlaylist(playlistId, songId);
+        delegate.removeSongFromPlaylist(playlistId, songId);
+
+        if (before && !delegate.isSongInPlaylist(playlistId, songId)) {
+            eventBus.publish(new PlaylistChanged(new Playlist(playlistId, null), Change.SONG_REMOVED, songId));
+        }
+    }
+
+    @Override
+    public List<Song> getSongsOfPlaylist(String playlistId) {
+        return delegate.getSongsOfPlaylist(playlistId);
+    }
+
+    @Override
+    public void updatePlaylist(Playlist playlist) {
+        Playlist before = find(playlist.id());
+        delegate.updatePlaylist(playlist);
+        Playlist after = find(playlist.id());
+
+        if (before != null && after != null && !before.equals(after)) {
+            eventBus.publish(new PlaylistChanged(after, Change.RENAMED));
+        }
+    }
+
+    @Override
+    public boolean isSongInPlaylist(String playlistId, String songId) {
+        return delegate.isSongInPlaylist(playlistId, songId);
+    }
+
+    private Playlist find(String id) {
+        return delegate.findAll().stream().filter(playlist -> playlist.id().equals(id)).findFirst().orElse(null);
+    }
+}
@@ -0,0 +1,33 @@
+package de.st197974.songmanager.repository;
+
+import de.st197974.songmanager.event.LibraryEventBus;
+import de.st197974.songmanager.event.SongsBulkChanged;
+
+import java.io.IOException;
+
+/**
+ * Publishes a {@link SongsBulkChanged} event after a snapshot replaced the library, so every view reloads.
+ */
+public class EventPublishingSnapshotRepository implements SnapshotRepository {
+
+    private final SnapshotRepository delegate;
+    private final LibraryEventBus eventBus;
+
+    public EventPublishingSnapshotRepository(SnapshotRepository delegate, LibraryEventBus eventBus) {
+        this.delegate = delegate;
+        this.eventBus = eventBus;
+    }
+
+    @Override
+    public boolean read(Sink sink) throws IOException {
+        return delegate.read(sink);
+    }
+
+    @Override
+    public boolean replace(Source source) throws IOException {
+        boolean replaced = delegate.replace(source);
+
+        if (replaced) eventBus.publish(new SongsBulkChanged());
+        return replaced;
+    }
+}
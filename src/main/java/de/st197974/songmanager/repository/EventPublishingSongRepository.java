@@ -0,0 +1,138 @@
+package de.st197974.songmanager.repository;
+
+import de.st197974.songmanager.event.*;
+import de.st197974.songmanager.model.Song;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Publishes a {@link LibraryEvent} for every song write that reached the database.
+ * <p>
+ * The state before and after a write is read through the wrapped repository, so this decorator belongs on the
+ * outside of a {@link CachingSongRepository}, where these lookups are served from memory. Each write runs in
+ * {@link LibraryEventBus#publishing} together with its events.
+ */
+public class EventPublishingSongRepository implements SongRepository {
+
+    private final SongRepository delegate;
+    private final LibraryEventBus eventBus;
+
+    public EventPublishingSongRepository(SongRepository delegate, LibraryEventBus eventBus) {
+        this.delegate = delegate;
+        this.eventBus = eventBus;
+    }
+
+    @Override
+    public void save(Song song) {
+        eventBus.publishing(() -> {
+            Song before = delegate.findByID(song.id());
+            delegate.save(song);
+            Song after = delegate.findByID(song.id());
+
+            publishChange(before, after);
+        });
+    }
+
+    @Override
+    public int saveAll(Collection<Song> songs) {
+        Map<String, Song> before = new HashMap<>(delegate.findByIDs(songs.stream().map(Song::id).toList()));
+        List<LibraryEvent> events = new ArrayList<>(songs.size());
+
+        for (Song song : songs) {
+            Song previous = before.put(song.id(), song);
+            events.add(previous == null ? new SongAdded(song) : new SongUpdated(previous, song));
+        }
+
+        return eventBus.publishing(() -> {
+            int saved = delegate.saveAll(songs);
+
+            if (saved == songs.size()) {
+                events.forEach(eventBus::publish);
+            }
+            return saved;
+        });
+    }
+
+    @Override
+    public List<Song> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Song findByID(String id) {
+        return delegate.findByID(id);
+    }
+
+    @Override
+    public Map<String, Song> findByIDs(Collection<String> ids) {
+        return delegate.findByIDs(ids);
+    }
+
+    @Override
+    public List<Song> findByArtist(String artist) {
+        return delegate.findByArtist(artist);
+    }
+
+    @Override
+    public List<Song> findByAlbum(String album) {
+        return delegate.findByAlbum(album);
+    }
+
+    @Override
+    public List<Song> search(String query, int limit) {
+        return delegate.search(query, limit);
+    }
+
+    @Override
+    public int count() {
+        return delegate.count();
+    }
+
+    @Override
+    public List<Song> findPage(SongOrder order, Song after, int offset, int limit) {
+        return delegate.findPage(order, after, offset, limit);
+    }
+
+    @Override
+    public boolean forEach(SongOrder order, Consumer<? super Song> action) {
+        return delegate.forEach(order, action);
+    }
+
+    @Override
+    public boolean forEach(Consumer<? super Song> action) {
+        return delegate.forEach(action);
+    }
+
+    @Override
+    public void deleteByID(String id) {
+        eventBus.publishing(() -> {
+            Song before = delegate.findByID(id);
+            if (before == null) {
+                delegate.deleteByID(id);
+                return;
+            }
+
+            delegate.deleteByID(id);
+            publishChange(before, delegate.findByID(id));
+        });
+    }
+
+    @Override
+    public void deleteInvalidSongs() {
+        delegate.deleteInvalidSongs();
+        eventBus.publish(new SongsBulkChanged());
+    }
+
+    private void publishChange(Song before, Song after) {
+        if (Objects.equals(before, after)) return;
+
+        if (before == null) {
+            eventBus.publish(new SongAdded(after));
+        } else if (after == null) {
+            eventBus.publish(new SongDeleted(before));
+        } else {
+            eventBus.publish(new SongUpdated(before, after));
+        }
+    }
+}
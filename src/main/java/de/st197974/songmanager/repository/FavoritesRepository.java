@@ -1,6 +1,9 @@
 package de.st197974.songmanager.repository;
 
+import de.st197974.songmanager.model.Song;
+
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface FavoritesRepository {
 
@@ -12,4 +15,17 @@ public interface FavoritesRepository {
 
     List<String> getAllFavoriteIds();
 
+    /**
+     * Passes the song id of every favorite to {@code action}. Unlike {@link #getAllFavoriteIds()} this tells a
+     * failed query apart from having no favorites.
+     *
+     * @return false if the query failed, possibly after some ids were passed
+     */
+    boolean forEachFavoriteId(Consumer<? super String> action);
+
+    /**
+     * Loads the songs of all favorites with a single query. Favorites whose song no longer exists are left out.
+     */
+    List<Song> findFavoriteSongs(SongOrder order);
+
 }
@@ -0,0 +1,17 @@
+package de.st197974.songmanager.repository;
+
+import java.util.List;
+
+/**
+ * A single versioned schema change. Migrations are applied in ascending version order,
+ * and the version of the last applied one is stored in {@code PRAGMA user_version}.
+ */
+public record Migration(int version, String description, List<String> statements) {
+
+    public Migration {
+        if (version < 1) {
+            throw new IllegalArgumentException("Migration version must be positive, was " + version);
+        }
+        statements = List.copyOf(statements);
+    }
+}
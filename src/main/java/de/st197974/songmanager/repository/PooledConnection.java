@@ -0,0 +1,122 @@
+package de.st197974.songmanager.repository;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A connection borrowed from a {@link SQLiteConnectionPool}.
+ * Closing it does not close the underlying SQLite connection but hands it back to the pool.
+ * <p>
+ * Each connection keeps its own cache of prepared statements keyed by SQL text, so hot statements are
+ * compiled once per connection. Statements returned by {@link #prepare(String)} are owned by the cache and
+ * must not be closed by the caller; their result sets still have to be closed.
+ * <p>
+ * Only the first {@link #close()} after borrowing hands the connection back; later calls do nothing, so a
+ * connection closed twice cannot end up in the pool twice and be shared by two borrowers.
+ */
+public final class PooledConnection implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger(PooledConnection.class);
+
+    private final SQLiteConnectionPool pool;
+    private final Connection connection;
+    private final int statementCacheSize;
+
+    private final Map<String, PreparedStatement> statementCache = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicBoolean borrowed = new AtomicBoolean();
+
+    PooledConnection(SQLiteConnectionPool pool, Connection connection, int statementCacheSize) {
+        this.pool = pool;
+        this.connection = connection;
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    PooledConnection borrow() {
+        borrowed.set(true);
+        return this;
+    }
+
+    public Connection connection() {
+        return connection;
+    }
+
+    /**
+     * Returns a prepared statement for the given SQL, compiling it only on the first use on this connection.
+     * Parameters of a reused statement are cleared before it is handed out.
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement cached = statementCache.get(sql);
+
+        if (cached != null && !cached.isClosed()) {
+            cached.clearParameters();
+            pool.recordStatementCacheHit();
+            return cached;
+        }
+
+        PreparedStatement statement = connection.prepareStatement(sql);
+        statementCache.put(sql, statement);
+        pool.recordStatementCacheMiss();
+
+        evictOverflow();
+        return statement;
+    }
+
+    int cachedStatementCount() {
+        return statementCache.size();
+    }
+
+    private void evictOverflow() {
+        Iterator<PreparedStatement> eldest = statementCache.values().iterator();
+
+        while (statementCache.size() > statementCacheSize && eldest.hasNext()) {
+            closeQuietly(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!borrowed.compareAndSet(true, false)) return;
+
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+                logger.warn("Connection returned to pool with an open transaction, rolled back.");
+            }
+        } catch (SQLException e) {
+            logger.error("Error while resetting pooled connection, discarding it", e);
+            pool.discard(this);
+            return;
+        }
+
+        pool.release(this);
+    }
+
+    void closePhysically() {
+        statementCache.values().forEach(PooledConnection::closeQuietly);
+        statementCache.clear();
+
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.error("Error while closing SQLite connection", e);
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            logger.error("Error while closing cached statement", e);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package de.st197974.songmanager.repository;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps a small, fixed number of long-lived SQLite connections open and shares them between all repositories.
+ * <p>
+ * Connections are opened lazily up to the configured pool size. A borrowed connection is handed out as a
+ * {@link PooledConnection} and goes back to the pool as soon as it is closed, so repositories can keep using
+ * try-with-resources exactly like they did with {@code DriverManager.getConnection}.
+ */
+public class SQLiteConnectionPool implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger(SQLiteConnectionPool.class);
+
+    public static final String DEFAULT_DATABASE_PATH = "songs.db";
+    public static final int DEFAULT_POOL_SIZE = 4;
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+
+    private static final long ACQUIRE_TIMEOUT_SECONDS = 30;
+
+    private final String url;
+    private final int poolSize;
+    private final int statementCacheSize;
+    private final SQLiteProfile profile;
+
+    private final BlockingQueue<PooledConnection> idle;
+    private final List<PooledConnection> opened = new ArrayList<>();
+
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+
+    private volatile boolean closed;
+
+    public SQLiteConnectionPool(String databasePath, int poolSize, int statementCacheSize, SQLiteProfile profile) {
+        if (databasePath == null || databasePath.isBlank()) {
+            throw new IllegalArgumentException("Database path must not be empty!");
+        }
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1, was " + poolSize);
+        }
+        if (statementCacheSize < 1) {
+            throw new IllegalArgumentException("Statement cache size must be at least 1, was " + statementCacheSize);
+        }
+
+        this.url = "jdbc:sqlite:" + databasePath;
+        this.poolSize = poolSize;
+        this.statementCacheSize = statementCacheSize;
+        this.profile = profile;
+        this.idle = new ArrayBlockingQueue<>(poolSize);
+
+        logger.info("SQLite connection pool created for {} ({} connections, {} profile)", url, poolSize, profile);
+    }
+
+    public SQLiteConnectionPool(String databasePath, int poolSize, int statementCacheSize) {
+        this(databasePath, poolSize, statementCacheSize, SQLiteProfile.DEFAULT);
+    }
+
+    public SQLiteConnectionPool(String databasePath, int poolSize) {
+        this(databasePath, poolSize, DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    public SQLiteConnectionPool() {
+        this(DEFAULT_DATABASE_PATH, DEFAULT_POOL_SIZE);
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public SQLiteProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Snapshot of the prepared-statement cache counters, summed over all connections of this pool.
+     */
+    public StatementCacheStats getStatementCacheStats() {
+        int cached;
+        synchronized (opened) {
+            cached = opened.stream().mapToInt(PooledConnection::cachedStatementCount).sum();
+        }
+        return new StatementCacheStats(statementCacheHits.sum(), statementCacheMisses.sum(), cached);
+    }
+
+    void recordStatementCacheHit() {
+        statementCacheHits.increment();
+    }
+
+    void recordStatementCacheMiss() {
+        statementCacheMisses.increment();
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new one if the pool has not reached its size yet.
+     * Blocks until a connection is returned otherwise.
+     */
+    public PooledConnection acquire() throws SQLException {
+        if (closed) throw new SQLException("Connection pool for " + url + " is closed");
+
+        PooledConnection pooled = idle.poll();
+        if (pooled != null) return pooled.borrow();
+
+        synchronized (opened) {
+            if (opened.size() < poolSize) {
+                pooled = new PooledConnection(this, openConnection(), statementCacheSize);
+                opened.add(pooled);
+                logger.debug("Opened SQLite connection {}/{}", opened.size(), poolSize);
+                return pooled.borrow();
+            }
+        }
+
+        try {
+            pooled = idle.poll(ACQUIRE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        if (pooled == null) {
+            throw new SQLException("Timed out after " + ACQUIRE_TIMEOUT_SECONDS + "s waiting for a database connection");
+        }
+        return pooled.borrow();
+    }
+
+    private Connection openConnection() throws SQLException {
+        Connection connection = DriverManager.getConnection(url);
+
+        try {
+            profile.applyTo(connection);
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+
+        return connection;
+    }
+
+    void release(PooledConnection pooled) {
+        if (closed || !idle.offer(pooled)) {
+            pooled.closePhysically();
+        }
+    }
+
+    void discard(PooledConnection pooled) {
+        synchronized (opened) {
+            opened.remove(pooled);
+        }
+        pooled.closePhysically();
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+
+        logger.info("Statement cache for {}: {}", url, getStatementCacheStats());
+
+        synchronized (opened) {
+            for (PooledConnection pooled : opened) {
+                pooled.closePhysically();
+            }
+            opened.clear();
+        }
+        idle.clear();
+
+        logger.info("SQLite connection pool for {} closed", url);
+    }
+}
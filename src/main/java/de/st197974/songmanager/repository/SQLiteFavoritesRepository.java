@@ -1,31 +1,29 @@
 package de.st197974.songmanager.repository;
 
+import de.st197974.songmanager.model.Song;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class SQLiteFavoritesRepository implements FavoritesRepository {
 
     private static final Logger logger = LogManager.getLogger(SQLiteFavoritesRepository.class);
-    private static final String URL = "jdbc:sqlite:songs.db";
 
-    public SQLiteFavoritesRepository() {
-
-        try (Connection conn = DriverManager.getConnection(URL)) {
-            logger.info("SQLiteFavoritesRepository connected to database!");
-        } catch (SQLException e) {
-            logger.error("Error connecting to SQLite DB", e);
-        }
+    private final SQLiteConnectionPool connectionPool;
 
+    public SQLiteFavoritesRepository(SQLiteConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
     }
 
     @Override
     public void addFavorite(String songId) {
         String sql = "INSERT OR IGNORE INTO favorites(song_id) VALUES(?)";
-        try (Connection conn = DriverManager.getConnection(URL); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (PooledConnection pooled = connectionPool.acquire()) {
+            PreparedStatement pstmt = pooled.prepare(sql);
             pstmt.setString(1, songId);
             pstmt.executeUpdate();
             logger.info("Added song {} to favorites", songId);
@@ -37,7 +35,8 @@ public class SQLiteFavoritesRepository implements FavoritesRepository {
     @Override
     public void removeFavorite(String songId) {
         String sql = "DELETE FROM favorites WHERE song_id = ?";
-        try (Connection conn = DriverManager.getConnection(URL); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (PooledConnection pooled = connectionPool.acquire()) {
+            PreparedStatement pstmt = pooled.prepare(sql);
             pstmt.setString(1, songId);
             pstmt.executeUpdate();
             logger.info("Removed song {} from favorites", songId);
@@ -49,10 +48,12 @@ public class SQLiteFavoritesRepository implements FavoritesRepository {
     @Override
     public boolean isFavorite(String songId) {
         String sql = "SELECT 1 FROM favorites WHERE song_id = ?";
-        try (Connection conn = DriverManager.getConnection(URL); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (PooledConnection pooled = connectionPool.acquire()) {
+            PreparedStatement pstmt = pooled.prepare(sql);
             pstmt.setString(1, songId);
-            ResultSet rs = pstmt.executeQuery();
-            return rs.next();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
+            }
         } catch (SQLException e) {
             logger.error("Error checking if song {} is favorite", songId, e);
             return false;
@@ -62,18 +63,49 @@ public class SQLiteFavoritesRepository implements FavoritesRepository {
     @Override
     public List<String> getAllFavoriteIds() {
         List<String> favorites = new ArrayList<>();
+        forEachFavoriteId(favorites::add);
+        return favorites;
+    }
+
+    @Override
+    public boolean forEachFavoriteId(Consumer<? super String> action) {
         String sql = "SELECT song_id FROM favorites";
 
-        try (Connection conn = DriverManager.getConnection(URL); Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+        try (PooledConnection pooled = connectionPool.acquire(); Statement stmt = pooled.connection().createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
 
             while (rs.next()) {
-                favorites.add(rs.getString("song_id"));
+                action.accept(rs.getString("song_id"));
             }
+            return true;
 
         } catch (SQLException e) {
             logger.error("Error fetching all favorite songs", e);
+            return false;
         }
+    }
 
-        return favorites;
+    @Override
+    public List<Song> findFavoriteSongs(SongOrder order) {
+        List<Song> songs = new ArrayList<>();
+        String sql = """
+                SELECT s.id, s.title, s.album, s.artist, s.duration
+                FROM favorites f
+                JOIN songs s ON s.id = f.song_id
+                """ + order.orderByClause("f.rowid");
+
+        try (PooledConnection pooled = connectionPool.acquire()) {
+            PreparedStatement pstmt = pooled.prepare(sql);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    songs.add(SQLiteSongRepository.toSong(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            logger.error("Error loading favorite songs", e);
+        }
+
+        return songs;
     }
 }
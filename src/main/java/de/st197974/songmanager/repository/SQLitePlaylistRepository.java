@@ -12,16 +12,11 @@ import java.util.List;
 public class SQLitePlaylistRepository implements PlaylistRepository {
 
     private static final Logger logger = LogManager.getLogger(SQLitePlaylistRepository.class);
-    private static final String URL = "jdbc:sqlite:songs.db";
 
-    public SQLitePlaylistRepository() {
-
-        try (Connection conn = DriverManager.getConnection(URL)) {
-            logger.info("SQLitePlaylistRepository connected to database!");
-        } catch (SQLException e) {
-            logger.error("Error connecting to SQLite DB", e);
-        }
+    private final SQLiteConnectionPool connectionPool;
 
+    public SQLitePlaylistRepository(SQLiteConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
     }
 
     @Override
@@ -29,7 +24,8 @@ public class SQLitePlaylistRepository implements PlaylistRepository {
 
         String sql = "INSERT INTO playlist(id, name) VALUES (?,?)";
 
-        try (Connection conn = DriverManager.getConnection(URL); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (PooledConnection pooled = connectionPool.acquire()) {
+            PreparedStatement pstmt = pooled.prepare(sql);
 
             pstmt.setString(1, playlist.id());
             pstmt.setString(2, playlist.name());
@@ -49,7 +45,7 @@ public class SQLitePlaylistRepository implements PlaylistRepository {
         List<Playlist> playlists = new ArrayList<>();
         String sql = "SELECT * FROM playlist";
 
-        try (Connection conn = DriverManager.getConnection(URL); Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+        try (PooledConnection pooled = connectionPool.acquire(); Statement stmt = pooled.connection().createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
 
             while (rs.next()) {
                 playlists.add(new Playlist(rs.getString("id"), rs.getString("name")));
@@ -68,17 +64,14 @@ public class SQLitePlaylistRepository implements PlaylistRepository {
         String sqlPlaylist = "DELETE FROM playlist WHERE id = ?";
         String sqlPlaylistSongs = "DELETE FROM playlist_song WHERE playlist_id = ?";
 
-        try (Connection conn = DriverManager.getConnection(URL)) {
+        try (PooledConnection pooled = connectionPool.acquire()) {
+            PreparedStatement deleteSongs = pooled.prepare(sqlPlaylistSongs);
+            deleteSongs.setString(1, id);
+            deleteSongs.executeUpdate();
 
-            try (PreparedStatement pstmt = conn.prepareStatement(sqlPlaylistSongs)) {
-                pstmt.setString(1, id);
-                pstmt.executeUpdate();
-            }
-
-            try (PreparedStatement pstmt = conn.prepareStatement(sqlPlaylist)) {
-                pstmt.setString(1, id);
-                pstmt.executeUpdate();
-            }
+            PreparedStatement deletePlaylist = pooled.prepare(sqlPlaylist);
+            deletePlaylist.setString(1, id);
+            deletePlaylist.executeUpdate();
 
             logger.info("Deleted playlist {}", id);
 
@@ -91,7 +84,8 @@ public class SQLitePlaylistRepository implements PlaylistRepository {
     public void addSongToPlaylist(String playlistId, String songId) {
         String sql = "INSERT OR IGNORE INTO playlist_song(playlist_id, song_id) VALUES(?, ?)";
 
-        try (Connection conn = DriverManager.getConnection(URL); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (PooledConnection pooled = connectionPool.acquire()) {
+            PreparedStatement pstmt = pooled.prepare(sql);
 
             pstmt.setString(1, playlistId);
             pstmt.setString(2, songId);
@@ -108,7 +102,8 @@ public class SQLitePlaylistRepository implements PlaylistRepository {
     public void removeSongFromPlaylist(String playlistId, String songId) {
         String sql = "DELETE FROM playlist_song WHERE playlist_id = ? AND song_id = ?";
 
-        try (Connection conn = DriverManager.getConnection(URL); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (PooledConnection pooled = connectionPool.acquire()) {
+            PreparedStatement pstmt = pooled.prepare(sql);
 
             pstmt.setString(1, playlistId);
             pstmt.setString(2, songId);
@@ -131,13 +126,14 @@ public class SQLitePlaylistRepository implements PlaylistRepository {
                 WHERE ps.playlist_id = ?
                 """;
 
-        try (Connection conn = DriverManager.getConnection(URL); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (PooledConnection pooled = connectionPool.acquire()) {
+            PreparedStatement pstmt = pooled.prepare(sql);
 
             pstmt.setString(1, playlistId);
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                songs.add(new Song(rs.getString("id"), rs.getString("title"), rs.getString("album"), rs.getString("artist"), rs.getInt("duration")));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    songs.add(new Song(rs.getString("id"), rs.getString("title"), rs.getString("album"), rs.getString("artist"), rs.getInt("duration")));
+                }
             }
 
         } catch (SQLException e) {
@@ -151,7 +147,8 @@ public class SQLitePlaylistRepository implements PlaylistRepository {
     public void updatePlaylist(Playlist playlist) {
         String sql = "UPDATE playlist SET name = ? WHERE id = ?";
 
-        try (Connection conn = DriverManager.getConnection(URL); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (PooledConnection pooled = connectionPool.acquire()) {
+            PreparedStatement pstmt = pooled.prepare(sql);
 
             pstmt.setString(1, playlist.name());
             pstmt.setString(2, playlist.id());
@@ -171,14 +168,15 @@ public class SQLitePlaylistRepository implements PlaylistRepository {
 
     public boolean isSongInPlaylist(String playlistId, String songId) {
         String sql = "SELECT COUNT (*) FROM playlist_song WHERE playlist_id = ? AND song_id = ?";
-        try (Connection conn = DriverManager.getConnection(URL); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (PooledConnection pooled = connectionPool.acquire()) {
+            PreparedStatement pstmt = pooled.prepare(sql);
 
             pstmt.setString(1, playlistId);
             pstmt.setString(2, songId);
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                return rs.getInt(1) > 0;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1) > 0;
+                }
             }
         } catch (SQLException e) {
             logger.error("Error while checking if Song {} is in Playlist {}", songId, playlistId, e);
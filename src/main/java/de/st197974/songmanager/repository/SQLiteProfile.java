@@ -0,0 +1,75 @@
+package de.st197974.songmanager.repository;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Startup profiles for SQLite connections. The pragmas of the selected profile are applied to every
+ * connection the {@link SQLiteConnectionPool} opens.
+ * <p>
+ * Both profiles run the database in WAL mode, so readers keep working while a long import writes.
+ * - DURABILITY: fsyncs on every commit ({@code synchronous=FULL}) and keeps caches small.
+ * - THROUGHPUT: only fsyncs at checkpoints ({@code synchronous=NORMAL}), larger page cache,
+ * memory-mapped I/O and in-memory temp storage. A crash can lose the last commits but never corrupts the file.
+ */
+public enum SQLiteProfile {
+
+    DURABILITY("FULL", -16_000, 0L, "DEFAULT"),
+    THROUGHPUT("NORMAL", -64_000, 256L * 1024 * 1024, "MEMORY");
+
+    private static final Logger logger = LogManager.getLogger(SQLiteProfile.class);
+
+    public static final SQLiteProfile DEFAULT = THROUGHPUT;
+
+    private static final int BUSY_TIMEOUT_MILLIS = 5_000;
+
+    private final String synchronous;
+    private final int cacheSize;
+    private final long mmapSize;
+    private final String tempStore;
+
+    SQLiteProfile(String synchronous, int cacheSize, long mmapSize, String tempStore) {
+        this.synchronous = synchronous;
+        this.cacheSize = cacheSize;
+        this.mmapSize = mmapSize;
+        this.tempStore = tempStore;
+    }
+
+    /**
+     * Resolves a profile by name (case-insensitive), falling back to {@link #DEFAULT} for unknown values.
+     */
+    public static SQLiteProfile fromName(String name) {
+        if (name == null || name.isBlank()) return DEFAULT;
+
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unknown SQLite profile '{}', using {}", name, DEFAULT);
+            return DEFAULT;
+        }
+    }
+
+    public List<String> pragmas() {
+        return List.of(
+                "PRAGMA journal_mode=WAL",
+                "PRAGMA synchronous=" + synchronous,
+                "PRAGMA cache_size=" + cacheSize,
+                "PRAGMA mmap_size=" + mmapSize,
+                "PRAGMA temp_store=" + tempStore,
+                "PRAGMA busy_timeout=" + BUSY_TIMEOUT_MILLIS);
+    }
+
+    void applyTo(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            for (String pragma : pragmas()) {
+                stmt.execute(pragma);
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package de.st197974.songmanager.repository;
+
+import de.st197974.songmanager.model.Playlist;
+import de.st197974.songmanager.model.Song;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and replaces the library with plain statements on one connection.
+ * <p>
+ * Inserting a million songs one by one while SQLite keeps the secondary indexes and the FTS index up to date
+ * takes minutes. {@link #replace} therefore drops the indexes and triggers of the songs table inside its
+ * transaction, loads the rows, creates them again from the SQL SQLite stored for them and rebuilds the FTS index
+ * in one pass, which takes seconds. The migrations stay the only place that defines them.
+ */
+public class SQLiteSnapshotRepository implements SnapshotRepository {
+
+    private static final Logger logger = LogManager.getLogger(SQLiteSnapshotRepository.class);
+
+    private static final List<String> TABLES = List.of("playlist_song", "favorites", "playlist", "songs");
+
+    private final SQLiteConnectionPool connectionPool;
+
+    private record SchemaObject(String type, String name, String sql) {
+    }
+
+    /**
+     * Carries a failed insert out of a {@link Sink} method, which may only throw {@link IOException}s.
+     */
+    private static final class WriteFailedException extends RuntimeException {
+
+        WriteFailedException(SQLException cause) {
+            super(cause);
+        }
+    }
+
+    public SQLiteSnapshotRepository(SQLiteConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    @Override
+    public boolean read(Sink sink) throws IOException {
+        try (PooledConnection pooled = connectionPool.acquire()) {
+            Connection conn = pooled.connection();
+
+            conn.setAutoCommit(false);
+            try {
+                try (ResultSet rs = pooled.prepare("SELECT id, title, artist, album, duration FROM songs ORDER BY id").executeQuery()) {
+                    while (rs.next()) {
+                        sink.song(new Song(rs.getString(1), rs.getString(2), rs.getString(4), rs.getString(3), rs.getInt(5)));
+                    }
+                }
+                try (ResultSet rs = pooled.prepare("SELECT id, name FROM playlist ORDER BY id").executeQuery()) {
+                    while (rs.next()) {
+                        sink.playlist(new Playlist(rs.getString(1), rs.getString(2)));
+                    }
+                }
+                try (ResultSet rs = pooled.prepare("SELECT playlist_id, song_id FROM playlist_song ORDER BY playlist_id, song_id").executeQuery()) {
+                    while (rs.next()) {
+                        sink.playlistSong(rs.getString(1), rs.getString(2));
+                    }
+                }
+                try (ResultSet rs = pooled.prepare("SELECT song_id FROM favorites ORDER BY song_id").executeQuery()) {
+                    while (rs.next()) {
+                        sink.favorite(rs.getString(1));
+                    }
+                }
+            } finally {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            logger.error("Error while reading the library for a snapshot", e);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean replace(Source source) throws IOException {
+        try (PooledConnection pooled = connectionPool.acquire()) {
+            Connection conn = pooled.connection();
+
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                List<SchemaObject> dropped = findSongIndexesAndTriggers(conn);
+                for (SchemaObject object : dropped) {
+                    stmt.execute("DROP " + object.type() + " \"" + object.name().replace("\"", "\"\"") + "\"");
+                }
+                for (String table : TABLES) {
+                    stmt.executeUpdate("DELETE FROM " + table);
+                }
+
+                source.writeTo(new InsertingSink(pooled));
+
+                for (SchemaObject object : dropped) {
+                    stmt.execute(object.sql());
+                }
+                stmt.execute("INSERT INTO songs_fts(songs_fts) VALUES ('rebuild')");
+
+                conn.commit();
+            } catch (WriteFailedException e) {
+                conn.rollback();
+                throw (SQLException) e.getCause();
+            } catch (SQLException | IOException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+            logger.info("Replaced the library from a snapshot");
+            return true;
+        } catch (SQLException e) {
+            logger.error("Error while replacing the library from a snapshot", e);
+            return false;
+        }
+    }
+
+    private static List<SchemaObject> findSongIndexesAndTriggers(Connection conn) throws SQLException {
+        List<SchemaObject> objects = new ArrayList<>();
+        // Automatic indexes of constraints have no SQL and cannot be dropped
+        String sql = "SELECT type, name, sql FROM sqlite_master WHERE tbl_name = 'songs' AND type IN ('index', 'trigger') AND sql IS NOT NULL";
+
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                objects.add(new SchemaObject(rs.getString("type"), rs.getString("name"), rs.getString("sql")));
+            }
+        }
+        return objects;
+    }
+
+    private record InsertingSink(PooledConnection pooled) implements Sink {
+
+        @Override
+        public void song(Song song) {
+            insert("INSERT OR REPLACE INTO songs(id, title, artist, album, duration) VALUES (?,?,?,?,?)",
+                    song.id(), song.title(), song.artist(), song.album(), song.durationInSeconds());
+        }
+
+        @Override
+        public void playlist(Playlist playlist) {
+            insert("INSERT OR REPLACE INTO playlist(id, name) VALUES (?,?)", playlist.id(), playlist.name());
+        }
+
+        @Override
+        public void playlistSong(String playlistId, String songId) {
+            insert("INSERT OR IGNORE INTO playlist_song(playlist_id, song_id) VALUES (?,?)", playlistId, songId);
+        }
+
+        @Override
+        public void favorite(String songId) {
+            insert("INSERT OR IGNORE INTO favorites(song_id) VALUES (?)", songId);
+        }
+
+        private void insert(String sql, Object... values) {
+            try {
+                PreparedStatement pstmt = pooled.prepare(sql);
+                for (int i = 0; i < values.length; i++) {
+                    pstmt.setObject(i + 1, values[i]);
+                }
+                pstmt.executeUpdate();
+            } catch (SQLException e) {
+                throw new WriteFailedException(e);
+            }
+        }
+    }
+}
@@ -5,72 +5,35 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.sql.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.function.Consumer;
 
 public class SQLiteSongRepository implements SongRepository {
 
     private static final Logger logger = LogManager.getLogger(SQLiteSongRepository.class);
 
-    private static final String URL = "jdbc:sqlite:songs.db";
+    private static final int RANKED_MATCH_LIMIT = 20_000;
 
-    public SQLiteSongRepository() {
+    // comparing with COLLATE NOCASE rather than LOWER() lets SQLite search the NOCASE indexes
+    static final String FIND_BY_ARTIST_SQL = "SELECT * FROM songs WHERE artist = ? COLLATE NOCASE";
+    static final String FIND_BY_ALBUM_SQL = "SELECT * FROM songs WHERE album = ? COLLATE NOCASE";
 
+    // ids per lookup in findByIDs; unused slots are bound to NULL so every chunk reuses one cached statement
+    private static final int FIND_BY_IDS_CHUNK = 256;
+    private static final String FIND_BY_IDS_SQL = "SELECT * FROM songs WHERE id IN (" + String.join(",", Collections.nCopies(FIND_BY_IDS_CHUNK, "?")) + ")";
 
-        String sqlSongs = """
-                CREATE TABLE IF NOT EXISTS songs (
-                    id TEXT PRIMARY KEY,
-                    title TEXT NOT NULL,
-                    artist TEXT NOT NULL,
-                    album TEXT,
-                    duration INTEGER
-                );
-                """;
-
-        String sqlPlaylists = """
-                CREATE TABLE IF NOT EXISTS playlist (
-                    id TEXT PRIMARY KEY,
-                    name TEXT NOT NULL
-                );
-                """;
-
-        String sqlPlaylistSongs = """
-                CREATE TABLE IF NOT EXISTS playlist_song (
-                    playlist_id TEXT NOT NULL,
-                    song_id TEXT NOT NULL,
-                    PRIMARY KEY (playlist_id, song_id),
-                    FOREIGN KEY (playlist_id) REFERENCES playlist(id),
-                    FOREIGN KEY (song_id) REFERENCES songs(id)
-                );
-                """;
-
-        String sqlFavorites = """
-                CREATE TABLE IF NOT EXISTS favorites (
-                    song_id TEXT PRIMARY KEY,
-                    FOREIGN KEY (song_id) REFERENCES songs(id)
-                );
-                """;
-
-        try (Connection conn = DriverManager.getConnection(URL); Statement statement = conn.createStatement()) {
-
-            statement.execute(sqlSongs);
-            statement.execute(sqlPlaylistSongs);
-            statement.execute(sqlPlaylists);
-            statement.execute(sqlFavorites);
-
-            logger.info("SQLite tables initialized");
-
-        } catch (SQLException e) {
-            logger.error("Error while starting SQLite Database", e);
-        }
+    private final SQLiteConnectionPool connectionPool;
 
+    public SQLiteSongRepository(SQLiteConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
     }
 
     @Override
     public void save(Song song) {
         String sql = "INSERT OR REPLACE INTO songs(id, title, artist, album, duration) VALUES (?,?,?,?,?)";
 
-        try (Connection conn = DriverManager.getConnection(URL); PreparedStatement preparedStatement = conn.prepareStatement(sql)) {
+        try (PooledConnection pooled = connectionPool.acquire()) {
+            PreparedStatement preparedStatement = pooled.prepare(sql);
 
             preparedStatement.setString(1, song.id());
             preparedStatement.setString(2, song.title());
@@ -87,34 +50,81 @@ public class SQLiteSongRepository implements SongRepository {
 
     }
 
+    @Override
+    public int saveAll(Collection<Song> songs) {
+        if (songs.isEmpty()) return 0;
+
+        String sql = "INSERT OR REPLACE INTO songs(id, title, artist, album, duration) VALUES (?,?,?,?,?)";
+
+        try (PooledConnection pooled = connectionPool.acquire()) {
+            Connection conn = pooled.connection();
+            PreparedStatement preparedStatement = pooled.prepare(sql);
+
+            conn.setAutoCommit(false);
+            try {
+                for (Song song : songs) {
+                    preparedStatement.setString(1, song.id());
+                    preparedStatement.setString(2, song.title());
+                    preparedStatement.setString(3, song.artist());
+                    preparedStatement.setString(4, song.album());
+                    preparedStatement.setInt(5, song.durationInSeconds());
+                    preparedStatement.addBatch();
+                }
+
+                preparedStatement.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                preparedStatement.clearBatch();
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+            logger.info("Saved batch of {} songs into Database", songs.size());
+            return songs.size();
+
+        } catch (SQLException e) {
+            logger.error("Error while saving batch of {} songs into SQLite", songs.size(), e);
+            return 0;
+        }
+    }
+
     @Override
     public List<Song> findAll() {
         List<Song> songs = new ArrayList<>();
+        forEach(songs::add);
+        return songs;
+    }
+
+    @Override
+    public boolean forEach(Consumer<? super Song> action) {
         String sql = "SELECT * FROM songs";
 
-        try (Connection conn = DriverManager.getConnection(URL); Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+        try (PooledConnection pooled = connectionPool.acquire(); Statement stmt = pooled.connection().createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
 
             while (rs.next()) {
-                Song song = new Song(rs.getString("id"), rs.getString("title"), rs.getString("album"), rs.getString("artist"), rs.getInt("duration"));
-                songs.add(song);
+                action.accept(toSong(rs));
             }
+            return true;
         } catch (SQLException e) {
             logger.error("Error while Loading from Database", e);
+            return false;
         }
-        return songs;
     }
 
     @Override
     public Song findByID(String id) {
         String sql = "SELECT * FROM songs WHERE id = ?";
 
-        try (Connection conn = DriverManager.getConnection(URL); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (PooledConnection pooled = connectionPool.acquire()) {
+            PreparedStatement pstmt = pooled.prepare(sql);
 
             pstmt.setString(1, id);
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                return new Song(rs.getString("id"), rs.getString("title"), rs.getString("album"), rs.getString("artist"), rs.getInt("duration"));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return toSong(rs);
+                }
             }
         } catch (SQLException e) {
             logger.error("Error while searching for song with ID: {}", id, e);
@@ -123,19 +133,48 @@ public class SQLiteSongRepository implements SongRepository {
         return null;
     }
 
+    @Override
+    public Map<String, Song> findByIDs(Collection<String> ids) {
+        Map<String, Song> songs = new HashMap<>();
+        if (ids.isEmpty()) return songs;
+
+        List<String> distinct = List.copyOf(new LinkedHashSet<>(ids));
+
+        try (PooledConnection pooled = connectionPool.acquire()) {
+            PreparedStatement pstmt = pooled.prepare(FIND_BY_IDS_SQL);
+
+            for (int from = 0; from < distinct.size(); from += FIND_BY_IDS_CHUNK) {
+                List<String> chunk = distinct.subList(from, Math.min(from + FIND_BY_IDS_CHUNK, distinct.size()));
+                for (int i = 0; i < FIND_BY_IDS_CHUNK; i++) {
+                    pstmt.setString(i + 1, i < chunk.size() ? chunk.get(i) : null);
+                }
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        Song song = toSong(rs);
+                        songs.put(song.id(), song);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error while searching for {} songs by ID", distinct.size(), e);
+        }
+
+        return songs;
+    }
+
     @Override
     public List<Song> findByArtist(String artist) {
         List<Song> songs = new ArrayList<>();
-        String sql = "SELECT * FROM songs WHERE LOWER(artist) = LOWER(?)";
-
-        try (Connection conn = DriverManager.getConnection(URL); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (PooledConnection pooled = connectionPool.acquire()) {
+            PreparedStatement pstmt = pooled.prepare(FIND_BY_ARTIST_SQL);
 
             pstmt.setString(1, artist);
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                Song song = new Song(rs.getString("id"), rs.getString("title"), rs.getString("album"), rs.getString("artist"), rs.getInt("duration"));
-                songs.add(song);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Song song = toSong(rs);
+                    songs.add(song);
+                }
             }
 
         } catch (SQLException e) {
@@ -145,11 +184,138 @@ public class SQLiteSongRepository implements SongRepository {
         return songs;
     }
 
+    @Override
+    public List<Song> findByAlbum(String album) {
+        List<Song> songs = new ArrayList<>();
+        try (PooledConnection pooled = connectionPool.acquire()) {
+            PreparedStatement pstmt = pooled.prepare(FIND_BY_ALBUM_SQL);
+
+            pstmt.setString(1, album);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    songs.add(toSong(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            logger.error("Error while searching songs by album: {}", album, e);
+        }
+
+        return songs;
+    }
+
+    /**
+     * Ranks matches with bm25, title words weighing most. Scoring costs a few microseconds per match, so a query
+     * matching more than {@value #RANKED_MATCH_LIMIT} songs, typically one or two letters, skips the ranking and
+     * returns the first matches in index order; the next keystroke narrows it down anyway.
+     */
+    @Override
+    public List<Song> search(String query, int limit) {
+        List<Song> songs = new ArrayList<>();
+        String match = toMatchExpression(query);
+        if (match.isEmpty() || limit <= 0) return songs;
+
+        String countSql = "SELECT count(*) FROM (SELECT 1 FROM songs_fts WHERE songs_fts MATCH ? LIMIT ?)";
+        String rankedSql = """
+                SELECT s.* FROM songs_fts
+                JOIN songs s ON s.rowid = songs_fts.rowid
+                WHERE songs_fts MATCH ?
+                ORDER BY bm25(songs_fts, 4.0, 2.0, 1.0), s.title COLLATE NOCASE, s.id
+                LIMIT ?
+                """;
+        String unrankedSql = """
+                SELECT s.* FROM songs_fts
+                JOIN songs s ON s.rowid = songs_fts.rowid
+                WHERE songs_fts MATCH ?
+                LIMIT ?
+                """;
+
+        try (PooledConnection pooled = connectionPool.acquire()) {
+            PreparedStatement count = pooled.prepare(countSql);
+            count.setString(1, match);
+            count.setInt(2, RANKED_MATCH_LIMIT + 1);
+
+            boolean ranked;
+            try (ResultSet rs = count.executeQuery()) {
+                ranked = rs.next() && rs.getInt(1) <= RANKED_MATCH_LIMIT;
+            }
+
+            PreparedStatement pstmt = pooled.prepare(ranked ? rankedSql : unrankedSql);
+            pstmt.setString(1, match);
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    songs.add(toSong(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            logger.error("Error while searching songs for: {}", query, e);
+        }
+
+        return songs;
+    }
+
+    @Override
+    public int count() {
+        try (PooledConnection pooled = connectionPool.acquire(); ResultSet rs = pooled.prepare("SELECT count(*) FROM songs").executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            logger.error("Error while counting songs", e);
+            return 0;
+        }
+    }
+
+    @Override
+    public List<Song> findPage(SongOrder order, Song after, int offset, int limit) {
+        List<Song> songs = new ArrayList<>();
+        String sql = "SELECT s.* FROM songs s " + (after != null ? "WHERE " + order.afterClause("s.id") + " " : "") + order.orderByClause("s.id") + " LIMIT ? OFFSET ?";
+
+        try (PooledConnection pooled = connectionPool.acquire()) {
+            PreparedStatement pstmt = pooled.prepare(sql);
+
+            int parameter = 1;
+            if (after != null) {
+                for (Object key : order.keyOf(after)) pstmt.setObject(parameter++, key);
+                pstmt.setString(parameter++, after.id());
+            }
+            pstmt.setInt(parameter++, limit);
+            pstmt.setInt(parameter, after != null ? 0 : offset);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    songs.add(toSong(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            logger.error("Error while loading a page of {} songs after {}", limit, after != null ? after.id() : "offset " + offset, e);
+        }
+
+        return songs;
+    }
+
+    @Override
+    public boolean forEach(SongOrder order, Consumer<? super Song> action) {
+        String sql = "SELECT s.* FROM songs s " + order.orderByClause("s.id");
+
+        try (PooledConnection pooled = connectionPool.acquire(); ResultSet rs = pooled.prepare(sql).executeQuery()) {
+            while (rs.next()) {
+                action.accept(toSong(rs));
+            }
+            return true;
+        } catch (SQLException e) {
+            logger.error("Error while reading all songs in {} order", order, e);
+            return false;
+        }
+    }
+
     @Override
     public void deleteByID(String id) {
         String sql = "DELETE FROM songs WHERE id = ?";
 
-        try (Connection conn = DriverManager.getConnection(URL); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (PooledConnection pooled = connectionPool.acquire()) {
+            PreparedStatement pstmt = pooled.prepare(sql);
 
             pstmt.setString(1, id);
             int deletedRows = pstmt.executeUpdate();
@@ -169,7 +335,7 @@ public class SQLiteSongRepository implements SongRepository {
                     OR artist IS NULL OR trim(artist) = ''
                 \s""";
 
-        try (Connection conn = DriverManager.getConnection(URL); Statement stmt = conn.createStatement()) {
+        try (PooledConnection pooled = connectionPool.acquire(); Statement stmt = pooled.connection().createStatement()) {
 
             int affectedRows = stmt.executeUpdate(sql);
             if (affectedRows > 0) {
@@ -180,4 +346,23 @@ public class SQLiteSongRepository implements SongRepository {
         }
     }
 
+    /**
+     * Turns free text into an FTS5 query matching every word as a prefix, e.g. {@code rock 'n'} becomes
+     * {@code "rock"* "n"*}. Words are split like the {@code unicode61} tokenizer splits them, so no FTS5 syntax
+     * of the user's input survives.
+     */
+    static String toMatchExpression(String query) {
+        StringBuilder match = new StringBuilder();
+        for (String word : query.split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) continue;
+            if (!match.isEmpty()) match.append(' ');
+            match.append('"').append(word).append("\"*");
+        }
+        return match.toString();
+    }
+
+    static Song toSong(ResultSet rs) throws SQLException {
+        return new Song(rs.getString("id"), rs.getString("title"), rs.getString("album"), rs.getString("artist"), rs.getInt("duration"));
+    }
+
 }
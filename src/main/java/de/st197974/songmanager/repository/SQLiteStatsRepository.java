@@ -0,0 +1,68 @@
+package de.st197974.songmanager.repository;
+
+import de.st197974.songmanager.model.LibraryStats;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.*;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class SQLiteStatsRepository implements StatsRepository {
+
+    private static final Logger logger = LogManager.getLogger(SQLiteStatsRepository.class);
+
+    private final SQLiteConnectionPool connectionPool;
+
+    public SQLiteStatsRepository(SQLiteConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    @Override
+    public LibraryStats loadStats() {
+        String totalsSql = "SELECT COUNT(*), COALESCE(SUM(duration), 0) FROM songs";
+        String favoritesSql = "SELECT COUNT(*) FROM favorites f JOIN songs s ON s.id = f.song_id";
+        String perArtistSql = "SELECT artist, COUNT(*) AS songs FROM songs GROUP BY artist ORDER BY songs DESC, artist";
+
+        try (PooledConnection pooled = connectionPool.acquire()) {
+            Connection conn = pooled.connection();
+
+            conn.setAutoCommit(false);
+            try {
+                int totalSongs;
+                long totalDuration;
+                try (ResultSet rs = pooled.prepare(totalsSql).executeQuery()) {
+                    rs.next();
+                    totalSongs = rs.getInt(1);
+                    totalDuration = rs.getLong(2);
+                }
+
+                int totalFavorites;
+                try (ResultSet rs = pooled.prepare(favoritesSql).executeQuery()) {
+                    rs.next();
+                    totalFavorites = rs.getInt(1);
+                }
+
+                Map<String, Long> songsPerArtist = new LinkedHashMap<>();
+                try (ResultSet rs = pooled.prepare(perArtistSql).executeQuery()) {
+                    while (rs.next()) {
+                        songsPerArtist.put(rs.getString(1), rs.getLong(2));
+                    }
+                }
+
+                conn.commit();
+                return new LibraryStats(totalSongs, totalDuration, totalFavorites, Collections.unmodifiableMap(songsPerArtist));
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+        } catch (SQLException e) {
+            logger.error("Error while computing library statistics", e);
+            return LibraryStats.EMPTY;
+        }
+    }
+}
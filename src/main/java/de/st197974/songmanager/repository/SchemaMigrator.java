@@ -0,0 +1,190 @@
+package de.st197974.songmanager.repository;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Brings the SQLite schema up to date at startup.
+ * <p>
+ * The current schema version is read from {@code PRAGMA user_version}. All pending migrations run in one
+ * transaction together with the version bump, so a failed step leaves the database untouched. When the schema
+ * is already current no DDL is issued at all.
+ */
+public class SchemaMigrator {
+
+    private static final Logger logger = LogManager.getLogger(SchemaMigrator.class);
+
+    static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Create songs, playlist, playlist_song and favorites tables", List.of(
+                    """
+                    CREATE TABLE IF NOT EXISTS songs (
+                        id TEXT PRIMARY KEY,
+                        title TEXT NOT NULL,
+                        artist TEXT NOT NULL,
+                        album TEXT,
+                        duration INTEGER
+                    )
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS playlist (
+                        id TEXT PRIMARY KEY,
+                        name TEXT NOT NULL
+                    )
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS playlist_song (
+                        playlist_id TEXT NOT NULL,
+                        song_id TEXT NOT NULL,
+                        PRIMARY KEY (playlist_id, song_id),
+                        FOREIGN KEY (playlist_id) REFERENCES playlist(id),
+                        FOREIGN KEY (song_id) REFERENCES songs(id)
+                    )
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS favorites (
+                        song_id TEXT PRIMARY KEY,
+                        FOREIGN KEY (song_id) REFERENCES songs(id)
+                    )
+                    """)),
+            new Migration(2, "Add NOCASE lookup indexes on songs and playlist_song(song_id)", List.of(
+                    "CREATE INDEX IF NOT EXISTS idx_songs_artist ON songs(artist COLLATE NOCASE)",
+                    "CREATE INDEX IF NOT EXISTS idx_songs_album ON songs(album COLLATE NOCASE)",
+                    "CREATE INDEX IF NOT EXISTS idx_songs_title ON songs(title COLLATE NOCASE)",
+                    "CREATE INDEX IF NOT EXISTS idx_playlist_song_song ON playlist_song(song_id)")),
+            // External content index over songs. Songs are written with INSERT OR REPLACE, which does not fire
+            // delete triggers for the replaced row, so the old entry is removed before the insert instead.
+            new Migration(3, "Add FTS5 index songs_fts on title, artist and album", List.of(
+                    """
+                    CREATE VIRTUAL TABLE IF NOT EXISTS songs_fts USING fts5(
+                        title, artist, album,
+                        content='songs', content_rowid='rowid',
+                        tokenize='unicode61 remove_diacritics 2',
+                        prefix='2 3'
+                    )
+                    """,
+                    """
+                    CREATE TRIGGER IF NOT EXISTS songs_fts_before_insert BEFORE INSERT ON songs BEGIN
+                        INSERT INTO songs_fts(songs_fts, rowid, title, artist, album)
+                        SELECT 'delete', rowid, title, artist, album FROM songs WHERE id = new.id;
+                    END
+                    """,
+                    """
+                    CREATE TRIGGER IF NOT EXISTS songs_fts_after_insert AFTER INSERT ON songs BEGIN
+                        INSERT INTO songs_fts(rowid, title, artist, album) VALUES (new.rowid, new.title, new.artist, new.album);
+                    END
+                    """,
+                    """
+                    CREATE TRIGGER IF NOT EXISTS songs_fts_after_delete AFTER DELETE ON songs BEGIN
+                        INSERT INTO songs_fts(songs_fts, rowid, title, artist, album) VALUES ('delete', old.rowid, old.title, old.artist, old.album);
+                    END
+                    """,
+                    """
+                    CREATE TRIGGER IF NOT EXISTS songs_fts_after_update AFTER UPDATE OF title, artist, album ON songs BEGIN
+                        INSERT INTO songs_fts(songs_fts, rowid, title, artist, album) VALUES ('delete', old.rowid, old.title, old.artist, old.album);
+                        INSERT INTO songs_fts(rowid, title, artist, album) VALUES (new.rowid, new.title, new.artist, new.album);
+                    END
+                    """,
+                    "INSERT INTO songs_fts(songs_fts) VALUES ('rebuild')")),
+            // Keyset pages seek (key, id) in sort order; the wider indexes still serve the lookups by title and artist.
+            new Migration(4, "Extend title and artist indexes by id and add (duration, id) for paging", List.of(
+                    "DROP INDEX IF EXISTS idx_songs_title",
+                    "DROP INDEX IF EXISTS idx_songs_artist",
+                    "CREATE INDEX IF NOT EXISTS idx_songs_title_id ON songs(title COLLATE NOCASE, id)",
+                    "CREATE INDEX IF NOT EXISTS idx_songs_artist_id ON songs(artist COLLATE NOCASE, id)",
+                    "CREATE INDEX IF NOT EXISTS idx_songs_duration_id ON songs(duration, id)"))
+    );
+
+    /**
+     * How long a single migration step took when it was applied.
+     */
+    public record AppliedMigration(int version, String description, long durationMillis) {
+    }
+
+    private final SQLiteConnectionPool connectionPool;
+    private final List<Migration> migrations;
+
+    public SchemaMigrator(SQLiteConnectionPool connectionPool) {
+        this(connectionPool, MIGRATIONS);
+    }
+
+    SchemaMigrator(SQLiteConnectionPool connectionPool, List<Migration> migrations) {
+        this.connectionPool = connectionPool;
+        this.migrations = migrations.stream().sorted(Comparator.comparingInt(Migration::version)).toList();
+    }
+
+    public int latestVersion() {
+        return migrations.isEmpty() ? 0 : migrations.getLast().version();
+    }
+
+    /**
+     * Applies all migrations newer than the database's {@code user_version}.
+     *
+     * @return the applied steps with their timings, empty if the schema was already current
+     * @throws IllegalStateException if a migration fails; the transaction is rolled back in that case
+     */
+    public List<AppliedMigration> migrate() {
+        List<AppliedMigration> applied = new ArrayList<>();
+
+        try (PooledConnection pooled = connectionPool.acquire()) {
+            Connection conn = pooled.connection();
+
+            int current = readUserVersion(conn);
+            int latest = latestVersion();
+
+            if (current >= latest) {
+                logger.info("Database schema is up to date (version {})", current);
+                return applied;
+            }
+
+            logger.info("Migrating database schema from version {} to {}", current, latest);
+            long start = System.nanoTime();
+
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+
+                for (Migration migration : migrations) {
+                    if (migration.version() <= current) continue;
+
+                    long stepStart = System.nanoTime();
+                    for (String sql : migration.statements()) {
+                        stmt.execute(sql);
+                    }
+                    long stepMillis = (System.nanoTime() - stepStart) / 1_000_000;
+
+                    applied.add(new AppliedMigration(migration.version(), migration.description(), stepMillis));
+                    logger.info("Applied migration {} '{}' in {} ms", migration.version(), migration.description(), stepMillis);
+                }
+
+                stmt.execute("PRAGMA user_version = " + latest);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+            logger.info("Database schema migrated to version {} in {} ms", latest, (System.nanoTime() - start) / 1_000_000);
+
+        } catch (SQLException e) {
+            logger.error("Error while migrating the SQLite schema", e);
+            throw new IllegalStateException("Database schema migration failed", e);
+        }
+
+        return applied;
+    }
+
+    private static int readUserVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package de.st197974.songmanager.repository;
+
+import de.st197974.songmanager.model.Playlist;
+import de.st197974.songmanager.model.Song;
+
+import java.io.IOException;
+
+/**
+ * Reads and replaces the whole library at once: the songs, the playlists with their songs, and the favorites.
+ * Used for backups, where the library has to be copied consistently and with its ids.
+ */
+public interface SnapshotRepository {
+
+    /**
+     * Receives the rows of a library one at a time.
+     */
+    interface Sink {
+
+        void song(Song song) throws IOException;
+
+        void playlist(Playlist playlist) throws IOException;
+
+        void playlistSong(String playlistId, String songId) throws IOException;
+
+        void favorite(String songId) throws IOException;
+    }
+
+    /**
+     * Produces the rows of a library, e.g. by reading them from a file.
+     */
+    @FunctionalInterface
+    interface Source {
+
+        void writeTo(Sink sink) throws IOException;
+    }
+
+    /**
+     * Passes the whole library to the sink from a single read transaction, so it sees one consistent state even
+     * while the library is being edited. Songs come first, sorted by id, then the playlists, their songs and the
+     * favorites.
+     *
+     * @return false if reading failed, possibly after some rows were passed
+     * @throws IOException if the sink failed; reading stops
+     */
+    boolean read(Sink sink) throws IOException;
+
+    /**
+     * Replaces the whole library with the rows the source passes to its sink, in a single transaction: if the
+     * source or a write fails, the library stays as it was.
+     *
+     * @return false if writing failed
+     * @throws IOException if the source failed
+     */
+    boolean replace(Source source) throws IOException;
+}
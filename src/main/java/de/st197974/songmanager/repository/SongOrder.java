@@ -0,0 +1,66 @@
+package de.st197974.songmanager.repository;
+
+import de.st197974.songmanager.model.Song;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Sort orders that repositories push down to SQLite as {@code ORDER BY} on the {@code songs} table,
+ * aliased as {@code s}. Text columns compare case-insensitively.
+ */
+public enum SongOrder {
+
+    UNSORTED(),
+    TITLE(new Key("s.title", Key.NOCASE)),
+    ARTIST(new Key("s.artist", Key.NOCASE)),
+    DURATION(new Key("s.duration", "")),
+    /**
+     * The order of the text export, grouping the songs of an artist by album.
+     */
+    ARTIST_ALBUM_TITLE(new Key("s.artist", Key.NOCASE), new Key("s.album", Key.NOCASE), new Key("s.title", Key.NOCASE));
+
+    private record Key(String column, String collation) {
+
+        static final String NOCASE = " COLLATE NOCASE";
+    }
+
+    private final Key[] keys;
+
+    SongOrder(Key... keys) {
+        this.keys = keys;
+    }
+
+    /**
+     * The {@code ORDER BY} clause, ending with {@code tieBreaker} so rows with equal keys come in a stable order.
+     */
+    String orderByClause(String tieBreaker) {
+        return "ORDER BY " + Arrays.stream(keys).map(key -> key.column() + key.collation() + ", ").collect(Collectors.joining()) + tieBreaker;
+    }
+
+    /**
+     * The condition selecting the rows after a given one in this order, for keyset pagination. Its parameters are
+     * {@link #keyOf(Song)} of that row followed by its tie breaker value. The collation sits on the parameter
+     * rather than the column, so SQLite seeks a {@code (column, id)} index instead of scanning it.
+     */
+    String afterClause(String tieBreaker) {
+        if (keys.length == 0) return tieBreaker + " > ?";
+
+        String columns = Arrays.stream(keys).map(key -> key.column() + ", ").collect(Collectors.joining());
+        String parameters = Arrays.stream(keys).map(key -> "?" + key.collation() + ", ").collect(Collectors.joining());
+        return "(" + columns + tieBreaker + ") > (" + parameters + "?)";
+    }
+
+    /**
+     * The values a song is sorted by, none for {@link #UNSORTED}.
+     */
+    Object[] keyOf(Song song) {
+        return switch (this) {
+            case UNSORTED -> new Object[0];
+            case TITLE -> new Object[]{song.title()};
+            case ARTIST -> new Object[]{song.artist()};
+            case DURATION -> new Object[]{song.durationInSeconds()};
+            case ARTIST_ALBUM_TITLE -> new Object[]{song.artist(), song.album(), song.title()};
+        };
+    }
+}
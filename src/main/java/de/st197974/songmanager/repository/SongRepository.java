@@ -2,18 +2,73 @@ package de.st197974.songmanager.repository;
 
 import de.st197974.songmanager.model.Song;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface SongRepository {
 
     void save(Song song);
 
+    /**
+     * Saves all songs in one transaction.
+     *
+     * @return the number of songs written, 0 if the transaction was rolled back
+     */
+    int saveAll(Collection<Song> songs);
+
     List<Song> findAll();
 
     Song findByID(String id);
 
+    /**
+     * Looks up many songs at once, for callers that would otherwise ask {@link #findByID} in a loop.
+     *
+     * @return the stored songs by id; ids without a song are missing from the map
+     */
+    Map<String, Song> findByIDs(Collection<String> ids);
+
     List<Song> findByArtist(String artist);
 
+    List<Song> findByAlbum(String album);
+
+    /**
+     * Full-text search over title, artist and album. Every word of the query has to start a word of the song,
+     * ignoring case and diacritics, so "beat abb" finds "Abbey Road" by "The Beatles".
+     *
+     * @return at most {@code limit} songs, best match first; empty if the query contains no words
+     */
+    List<Song> search(String query, int limit);
+
+    int count();
+
+    /**
+     * One page of songs in the given order, ties broken by id, for showing the library without loading all of it.
+     * Following pages continue after the last song of the previous one, which costs an index seek however deep
+     * into the library the page is; only jumping to a page without its predecessor walks the index up to it.
+     *
+     * @param after  the last song of the previous page, or null to start at {@code offset}
+     * @param offset the number of songs to skip if {@code after} is null
+     */
+    List<Song> findPage(SongOrder order, Song after, int offset, int limit);
+
+    /**
+     * Passes every song to {@code action} in the given order while reading them from a single query, so only the
+     * current song is held in memory. Exceptions thrown by {@code action} end the query and are rethrown.
+     *
+     * @return false if the query failed, possibly after some songs were passed
+     */
+    boolean forEach(SongOrder order, Consumer<? super Song> action);
+
+    /**
+     * Passes every song to {@code action} in the order of {@link #findAll()}. Unlike that method this tells a
+     * failed query apart from an empty library.
+     *
+     * @return false if the query failed, possibly after some songs were passed
+     */
+    boolean forEach(Consumer<? super Song> action);
+
     void deleteByID(String id);
 
     void deleteInvalidSongs();
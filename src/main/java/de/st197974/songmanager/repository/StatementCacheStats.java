@@ -0,0 +1,17 @@
+package de.st197974.songmanager.repository;
+
+/**
+ * Counters of the per-connection prepared-statement caches of a {@link SQLiteConnectionPool}.
+ */
+public record StatementCacheStats(long hits, long misses, int cachedStatements) {
+
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d hits, %d misses (%.1f%% hit rate), %d statements cached", hits, misses, hitRate() * 100, cachedStatements);
+    }
+}
@@ -0,0 +1,13 @@
+package de.st197974.songmanager.repository;
+
+import de.st197974.songmanager.model.LibraryStats;
+
+public interface StatsRepository {
+
+    /**
+     * Computes all library figures with aggregate queries inside one read transaction,
+     * so they describe the same state of the database.
+     */
+    LibraryStats loadStats();
+
+}
@@ -1,15 +1,30 @@
 package de.st197974.songmanager.service;
 
+import de.st197974.songmanager.event.LibraryEventBus;
 import de.st197974.songmanager.model.Song;
+import de.st197974.songmanager.model.SongView;
+import de.st197974.songmanager.repository.SongOrder;
 import de.st197974.songmanager.repository.SongRepository;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.io.IOException;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.time.Duration;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
 
 import static de.st197974.songmanager.service.ExportStatus.*;
 
@@ -23,20 +38,97 @@ import static de.st197974.songmanager.service.ExportStatus.*;
  * - Sorting songs by different attributes (e.g., title, album, duration).
  * - Managing operations specific to albums and artists.
  */
-public record DiscographyService(SongRepository repository) {
+public record DiscographyService(SongRepository repository, int importParallelism, SubstringSearchIndex substringIndex) {
 
     private static final Logger logger = LogManager.getLogger(DiscographyService.class);
 
+    public static final int DEFAULT_IMPORT_BATCH_SIZE = 1_000;
+    public static final int DEFAULT_IMPORT_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    private static final int IMPORT_READ_BUFFER_SIZE = 64 * 1024;
+    private static final int EXPORT_WRITE_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * @param importParallelism number of threads parsing import lines; 1 parses on the importing thread.
+     *                          Songs are always written by a single thread, in input order.
+     * @param substringIndex    answers {@link #searchSubstring(String, int)}; null to scan the library instead
+     */
+    public DiscographyService {
+        if (importParallelism < 1) {
+            throw new IllegalArgumentException("Import parallelism must be at least 1, was " + importParallelism);
+        }
+    }
+
+    /**
+     * Creates the service with a substring index that follows the changes published on {@code eventBus}.
+     */
+    public DiscographyService(SongRepository repository, int importParallelism, LibraryEventBus eventBus) {
+        this(repository, importParallelism, new SubstringSearchIndex(repository::findAll));
+        eventBus.subscribe(substringIndex::onEvent);
+    }
+
+    public DiscographyService(SongRepository repository, int importParallelism) {
+        this(repository, importParallelism, (SubstringSearchIndex) null);
+    }
+
+    public DiscographyService(SongRepository repository) {
+        this(repository, DEFAULT_IMPORT_PARALLELISM);
+    }
+
     public List<Song> getSongsByAlbum(String albumName) {
-        return repository.findAll().stream().filter(song -> song.album().equalsIgnoreCase(albumName)).toList();
+        return repository.findByAlbum(albumName);
     }
 
     public List<Song> getAll() {
         return repository.findAll();
     }
 
+    public int countSongs() {
+        return repository.count();
+    }
+
+    /**
+     * One page of the library, see {@link SongRepository#findPage(SongOrder, Song, int, int)}.
+     */
+    public List<Song> getSongPage(SongOrder order, Song after, int offset, int limit) {
+        return repository.findPage(order, after, offset, limit);
+    }
+
+    /**
+     * Full-text search over title, artist and album, see {@link SongRepository#search(String, int)}.
+     */
+    public List<Song> search(String query, int limit) {
+        return repository.search(query, limit);
+    }
+
+    /**
+     * Songs whose title, artist or album contains {@code query}, ignoring case, in no particular order.
+     * Answered by the substring index if the service has one, otherwise by a scan of the library.
+     */
+    public List<Song> searchSubstring(String query, int limit) {
+        if (substringIndex != null) return substringIndex.search(query, limit);
+
+        String needle = query.toLowerCase(Locale.ROOT);
+        if (needle.isEmpty()) return List.of();
+        return repository.findAll().stream().filter(song -> SongView.of(song).searchKey().contains(needle)).limit(limit).toList();
+    }
+
+    /**
+     * All songs whose title, artist or album contains {@code query}, ignoring case, in no particular order.
+     */
+    public List<Song> searchSubstring(String query) {
+        return searchSubstring(query, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Builds the substring index now instead of on the first search.
+     */
+    public void buildSubstringIndex() {
+        if (substringIndex != null) substringIndex.rebuild();
+    }
+
     public int getTotalDurationOfAlbum(String albumName) {
-        return repository.findAll().stream().filter(song -> song.album().equalsIgnoreCase(albumName)).mapToInt(Song::durationInSeconds).sum();
+        return repository.findByAlbum(albumName).stream().mapToInt(Song::durationInSeconds).sum();
     }
 
     public void addSongSafely(Song song) {
@@ -51,15 +143,16 @@ public record DiscographyService(SongRepository repository) {
     }
 
     public String getSongTitleById(String id) {
-        return repository.findAll().stream().filter(s -> s.id().equals(id)).map(Song::title).findFirst().orElse("Unknown Song");
+        Song song = repository.findByID(id);
+        return song != null ? song.title() : "Unknown Song";
     }
 
     public void deleteSong(String id) {
 
-        boolean exists = repository.findAll().stream().anyMatch(song -> song.id().equals(id));
+        Song song = repository.findByID(id);
 
-        if (!exists) return;
-        logger.info("Song {} was deleted!", getSongTitleById(id));
+        if (song == null) return;
+        logger.info("Song {} was deleted!", song.title());
         repository.deleteByID(id);
 
     }
@@ -118,139 +211,187 @@ public record DiscographyService(SongRepository repository) {
         logger.info("Restarted Song Repository and cleaned up invalid songs.");
     }
 
-    public int importSongsFromLines(List<String> lines) {
-        int importedCount = 0;
-        for (String line : lines) {
-            if (line == null || line.trim().isEmpty()) continue;
-
-            Song song = parseSmartLine(line);
-            if (song != null) {
-                addSongSafely(song);
-                importedCount++;
-            }
-        }
-        return importedCount;
+    public ImportResult importSongsFromLines(List<String> lines) {
+        return importSongsFromLines(lines, DEFAULT_IMPORT_BATCH_SIZE, ImportProgressListener.NONE);
     }
 
-    private Song parseSmartLine(String line) {
-        try {
-
-            String cleanLine = line.trim();
-
-            String durationRegex = "(?:\\s+|\\s*[,.-]\\s*)(\\d{1,2}:\\d{2}|\\d{2,4})\\s*$";
-            java.util.regex.Pattern pattern = java.util.regex.Pattern.compile(durationRegex);
-            java.util.regex.Matcher matcher = pattern.matcher(cleanLine);
-
-            int duration = 0;
-            String textPart = cleanLine;
-
-            if (matcher.find()) {
-                String durationString = matcher.group(1);
-                duration = parseDurationInternal(durationString);
+    /**
+     * Parses the given lines and writes the songs in batches, one transaction per batch.
+     * Blank lines are ignored; lines without a title count as skipped, unparsable lines and
+     * lines of a batch that could not be written count as failed.
+     */
+    public ImportResult importSongsFromLines(List<String> lines, int batchSize, ImportProgressListener listener) {
+        ListIterator<String> iterator = lines.listIterator();
+        return newImportPipeline(batchSize).run(iterator, iterator::nextIndex, lines.size(), listener, () -> false);
+    }
 
-                textPart = cleanLine.substring(0, matcher.start()).trim();
-            }
+    /**
+     * Streams a text file line by line into the repository without loading it into memory.
+     * Progress is reported in bytes of the file. Stops early when {@code cancelled} returns true;
+     * songs of batches that were already written stay imported.
+     */
+    public ImportResult importSongsFromFile(Path path, int batchSize, ImportProgressListener listener, BooleanSupplier cancelled) throws IOException {
+        long size = Files.size(path);
 
-            String separator = detectSeparator(textPart);
+        try (CountingInputStream in = new CountingInputStream(Files.newInputStream(path));
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8.newDecoder()), IMPORT_READ_BUFFER_SIZE)) {
 
-            if (separator == null) return new Song(textPart, "", "Unknown Artist", duration);
+            return runStreamingImport(reader, in::count, size, batchSize, listener, cancelled);
+        }
+    }
 
-            String[] parts = textPart.split(separator);
+    /**
+     * Streams songs from any reader. The total size is unknown, so progress only carries the running counts.
+     * The reader is not closed.
+     */
+    public ImportResult importSongs(Reader source, int batchSize, ImportProgressListener listener, BooleanSupplier cancelled) throws IOException {
+        BufferedReader reader = source instanceof BufferedReader buffered ? buffered : new BufferedReader(source, IMPORT_READ_BUFFER_SIZE);
+        return runStreamingImport(reader, () -> -1, -1, batchSize, listener, cancelled);
+    }
 
-            for (int i = 0; i < parts.length; i++) {
-                parts[i] = parts[i].trim();
-            }
+    private ImportResult runStreamingImport(BufferedReader reader, LongSupplier position, long total, int batchSize, ImportProgressListener listener, BooleanSupplier cancelled) throws IOException {
+        Iterator<String> lines = reader.lines().iterator();
 
-            String title = parts.length > 0 ? parts[0] : "Unknown Title";
-            String artist = parts.length > 1 ? parts[1] : "Unknown Artist";
-            String album = parts.length > 2 ? parts[2] : "";
+        try {
+            return newImportPipeline(batchSize).run(lines, position, total, listener, cancelled);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
 
-            return new Song(title, album, artist, duration);
+    private SongImportPipeline newImportPipeline(int batchSize) {
+        return new SongImportPipeline(repository, DiscographyService::parseSmartLine, batchSize, importParallelism);
+    }
 
-        } catch (Exception e) {
+    private static Song parseSmartLine(String line) {
+        try {
+            return SmartLineParser.parse(line);
+        } catch (RuntimeException e) {
             logger.error("Error parsing line: {}", line);
             return null;
         }
     }
 
-    private String detectSeparator(String text) {
-        int commas = countOccurrences(text, ',');
-        int dashes = countOccurrences(text, '-');
-        int vertLines = countOccurrences(text, '|');
-
-        int dots = text.split("\\s\\.\\s").length - 1;
+    /**
+     * The library as text lines, see {@link ExportFormat#TEXT}; empty if it has no songs or could not be read.
+     */
+    public String exportSongsToText() {
+        StringWriter out = new StringWriter();
+        try {
+            exportSongs(out, ExportFormat.TEXT);
+        } catch (IOException e) {
+            logger.error("Error exporting songs", e);
+            return "";
+        }
+        return out.toString();
+    }
 
-        if (commas >= 1) return "\\,";
-        if (dashes >= 1) return "-";
-        if (vertLines >= 1) return "|";
-        if (dots >= 1) return "\\s\\.\\s";
-        return null;
+    /**
+     * Streams all songs, sorted by artist, album and title, into the writer without flushing or closing it.
+     *
+     * @return the number of songs written
+     * @throws IOException if writing failed or the songs could not be read completely
+     */
+    public int exportSongs(Writer out, ExportFormat format) throws IOException {
+        return new SongExporter(out, format).export(repository);
     }
 
-    private int countOccurrences(String text, char c) {
-        int count = 0;
-        for (char ch : text.toCharArray()) {
-            if (ch == c) count++;
-        }
-        return count;
+    public ExportResult saveExportToFile(String filePath) {
+        return saveExportToFile(Paths.get(filePath), ExportFormat.TEXT);
     }
 
-    private int parseDurationInternal(String input) {
-        if (input.matches("\\d+")) {
-            return Integer.parseInt(input);
-        }
-        String[] parts = input.split(":");
-        if (parts.length == 2) {
-            int min = Integer.parseInt(parts[0]);
-            int sec = Integer.parseInt(parts[1]);
-            return min * 60 + sec;
+    /**
+     * Exports the library to a file, streaming it through a temporary file next to the target that replaces the
+     * target only once the export is complete. Nothing is written if the library is empty.
+     */
+    public ExportResult saveExportToFile(Path path, ExportFormat format) {
+        long start = System.nanoTime();
+        Path target = path.toAbsolutePath();
+        Path temp = null;
+
+        try {
+            temp = createPartFile(target);
+
+            int rows;
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(temp), StandardCharsets.UTF_8), EXPORT_WRITE_BUFFER_SIZE)) {
+                rows = exportSongs(out, format);
+            }
+
+            if (rows == 0) {
+                Files.delete(temp);
+                return new ExportResult(EMPTY_LIST, 0, Duration.ofNanos(System.nanoTime() - start));
+            }
+
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+            logger.info("Exported {} songs as {} to {} in {} ms", rows, format, target, elapsed.toMillis());
+            return new ExportResult(SUCCESS, rows, elapsed);
+        } catch (IOException e) {
+            logger.error("Error saving export to file: {}", target, e);
+            deleteQuietly(temp);
+            return new ExportResult(IO_ERROR, 0, Duration.ofNanos(System.nanoTime() - start));
         }
-        return 0;
     }
 
-    public String exportSongsToText() {
-        List<Song> songs = repository.findAll().stream().sorted(Comparator.comparing(Song::artist, String.CASE_INSENSITIVE_ORDER).thenComparing(Song::album, String.CASE_INSENSITIVE_ORDER).thenComparing(Song::title, String.CASE_INSENSITIVE_ORDER)).toList();
+    /**
+     * A new empty file next to {@code target}. Unlike {@link Files#createTempFile}, which makes the file readable by
+     * its owner only, it gets the permissions of the target if that exists and the default ones otherwise.
+     */
+    private static Path createPartFile(Path target) throws IOException {
+        Path temp = Files.createFile(target.resolveSibling(target.getFileName() + "." + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36) + ".part"));
 
-        if (songs.isEmpty()) {
-            return "";
+        if (Files.exists(target) && Files.getFileStore(temp).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(target));
         }
-
-        StringBuilder sb = getStringBuilder(songs);
-        return sb.toString();
+        return temp;
     }
 
-    private static StringBuilder getStringBuilder(List<Song> songs) {
-        StringBuilder sb = new StringBuilder();
-        String lastArtist = null;
+    private static void deleteQuietly(Path path) {
+        if (path == null) return;
 
-        for (Song song : songs) {
-            if (lastArtist != null && !song.artist().equalsIgnoreCase(lastArtist)) {
-                sb.append(System.lineSeparator());
-            }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not delete {}", path, e);
+        }
+    }
 
-            int totalSeconds = song.durationInSeconds();
-            String duration = song.formatTime(totalSeconds);
+    private static final class CountingInputStream extends FilterInputStream {
 
-            sb.append(String.format("%s, %s, %s, %s%n", song.title(), song.artist(), song.album(), duration));
+        private long count;
 
-            lastArtist = song.artist();
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
 
+        long count() {
+            return count;
         }
-        return sb;
-    }
 
-    public ExportStatus saveExportToFile(String filePath) {
-        try {
-            String content = this.exportSongsToText();
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) count++;
+            return b;
+        }
 
-            if (content.isEmpty()) return EMPTY_LIST;
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
 
-            Files.writeString(Paths.get(filePath), content);
-            logger.info("Export saved to file: {}", filePath);
-            return SUCCESS;
-        } catch (IOException e) {
-            logger.error("Error saving export to file: {}", filePath, e);
-            return IO_ERROR;
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
         }
     }
 
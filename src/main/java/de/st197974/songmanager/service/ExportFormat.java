@@ -0,0 +1,49 @@
+package de.st197974.songmanager.service;
+
+import java.util.Locale;
+
+/**
+ * File formats the library can be exported to.
+ */
+public enum ExportFormat {
+
+    /**
+     * One {@code title, artist, album, m:ss} line per song, with a blank line between artists.
+     */
+    TEXT("Text", "txt"),
+    /**
+     * RFC 4180 CSV with a header row, the duration in seconds.
+     */
+    CSV("CSV", "csv"),
+    /**
+     * One JSON object per line, the duration in seconds.
+     */
+    JSON_LINES("JSON Lines", "jsonl");
+
+    private final String description;
+    private final String extension;
+
+    ExportFormat(String description, String extension) {
+        this.description = description;
+        this.extension = extension;
+    }
+
+    public String description() {
+        return description;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * The format whose extension the file name ends with, or null if none does.
+     */
+    public static ExportFormat forFileName(String fileName) {
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        for (ExportFormat format : values()) {
+            if (lower.endsWith("." + format.extension)) return format;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,12 @@
+package de.st197974.songmanager.service;
+
+import java.time.Duration;
+
+/**
+ * Outcome of an export to a file.
+ *
+ * @param rows    songs written; 0 unless the export succeeded
+ * @param elapsed time from the first query until the file was in place, or until the export failed
+ */
+public record ExportResult(ExportStatus status, int rows, Duration elapsed) {
+}
@@ -2,13 +2,11 @@ package de.st197974.songmanager.service;
 
 import de.st197974.songmanager.model.Song;
 import de.st197974.songmanager.repository.FavoritesRepository;
+import de.st197974.songmanager.repository.SongOrder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.Comparator;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
 
 /**
  * Service for managing users' favorite songs. This includes adding, removing,
@@ -78,7 +76,7 @@ public record FavoritesService(FavoritesRepository repository, DiscographyServic
     }
 
     public List<Song> getAllFavorites() {
-        return repository.getAllFavoriteIds().stream().map(service::getSongById).filter(Objects::nonNull).collect(Collectors.toList());
+        return repository.findFavoriteSongs(SongOrder.UNSORTED);
     }
 
     public void toggleFavorite(String songId) {
@@ -90,15 +88,15 @@ public record FavoritesService(FavoritesRepository repository, DiscographyServic
     }
 
     public List<Song> getFavoritesSortedAlphabetically() {
-        return getAllFavorites().stream().sorted(Comparator.comparing(Song::title, String.CASE_INSENSITIVE_ORDER)).collect(Collectors.toList());
+        return repository.findFavoriteSongs(SongOrder.TITLE);
     }
 
     public List<Song> getFavoritesSortedByArtist() {
-        return getAllFavorites().stream().sorted(Comparator.comparing(Song::artist, String.CASE_INSENSITIVE_ORDER)).collect(Collectors.toList());
+        return repository.findFavoriteSongs(SongOrder.ARTIST);
     }
 
     public List<Song> getFavoritesSortedByDuration() {
-        return getAllFavorites().stream().sorted(Comparator.comparingInt(Song::durationInSeconds)).collect(Collectors.toList());
+        return repository.findFavoriteSongs(SongOrder.DURATION);
     }
 
 }
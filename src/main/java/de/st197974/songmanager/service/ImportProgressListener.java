@@ -0,0 +1,16 @@
+package de.st197974.songmanager.service;
+
+/**
+ * Receives the running counts of an import after every batch.
+ * <p>
+ * {@code position} and {@code total} describe how far the input has been consumed, in lines for in-memory
+ * imports and in bytes for file imports. {@code total} is -1 when the size of the input is unknown.
+ */
+@FunctionalInterface
+public interface ImportProgressListener {
+
+    ImportProgressListener NONE = (_, _, _) -> {
+    };
+
+    void onProgress(ImportResult progress, long position, long total);
+}
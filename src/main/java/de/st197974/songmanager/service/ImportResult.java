@@ -0,0 +1,17 @@
+package de.st197974.songmanager.service;
+
+/**
+ * Outcome of a song import. Also used as an intermediate snapshot while an import is still running.
+ *
+ * @param imported songs written to the repository
+ * @param skipped  lines that were parsed but did not yield a valid song (e.g. no title)
+ * @param failed   lines that could not be parsed or whose batch could not be written
+ */
+public record ImportResult(int imported, int skipped, int failed) {
+
+    public static final ImportResult EMPTY = new ImportResult(0, 0, 0);
+
+    public int total() {
+        return imported + skipped + failed;
+    }
+}
@@ -0,0 +1,163 @@
+package de.st197974.songmanager.service;
+
+import de.st197974.songmanager.event.*;
+import de.st197974.songmanager.model.LibraryStats;
+import de.st197974.songmanager.model.Song;
+import de.st197974.songmanager.repository.StatsRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Running totals behind {@link StatsService}: song count, duration sum, songs per artist and favorites count.
+ * <p>
+ * The totals are computed once from the database on first use and from then on adjusted by the
+ * {@link LibraryEvent}s of each write, so a refresh costs the number of changes instead of a scan of the library.
+ * A {@link SongsBulkChanged} event marks them stale and the next read recomputes them.
+ * Favorites only count while their song exists, like the SQL join does; for that the favorite ids are kept as well.
+ * <p>
+ * Recomputing runs in {@link LibraryEventBus#settled}, so the totals and the favorite ids come from the same state
+ * of the library and no write can commit in between whose events would then be counted a second time. The
+ * monitor of this object is only taken inside that fence, in the same order as the publishing writers.
+ */
+public final class IncrementalLibraryStats {
+
+    private static final Logger logger = LogManager.getLogger(IncrementalLibraryStats.class);
+
+    private final StatsRepository repository;
+    private final LibraryEventBus eventBus;
+    private final Supplier<Collection<String>> favoriteIds;
+    private final Predicate<String> songExists;
+
+    private boolean loaded;
+    private int totalSongs;
+    private long totalDuration;
+    private int totalFavorites;
+    private final Map<String, Long> songsPerArtist = new HashMap<>();
+    private final Set<String> favorites = new HashSet<>();
+
+    private LibraryStats snapshot;
+
+    IncrementalLibraryStats(StatsRepository repository, LibraryEventBus eventBus, Supplier<Collection<String>> favoriteIds, Predicate<String> songExists) {
+        this.repository = repository;
+        this.eventBus = eventBus;
+        this.favoriteIds = favoriteIds;
+        this.songExists = songExists;
+    }
+
+    public LibraryStats snapshot() {
+        synchronized (this) {
+            if (loaded) return current();
+        }
+
+        return eventBus.settled(() -> {
+            LibraryStats recomputed = repository.loadStats();
+            Collection<String> favorites = favoriteIds.get();
+
+            synchronized (this) {
+                reload(recomputed, favorites);
+                return current();
+            }
+        });
+    }
+
+    /**
+     * Compares the running totals with a full recompute by the database and adopts the recomputed values
+     * if they differ.
+     *
+     * @return true if the running totals were correct
+     */
+    public boolean verify() {
+        return eventBus.settled(() -> {
+            LibraryStats recomputed = repository.loadStats();
+            Collection<String> favorites = favoriteIds.get();
+
+            synchronized (this) {
+                if (!loaded) {
+                    reload(recomputed, favorites);
+                    return true;
+                }
+
+                LibraryStats current = current();
+                boolean consistent = current.equals(recomputed);
+
+                if (!consistent) {
+                    logger.warn("Incremental statistics drifted: songs {} vs {}, duration {} vs {}, favorites {} vs {}, artists {} vs {}; reloading",
+                            current.totalSongs(), recomputed.totalSongs(), current.totalDuration(), recomputed.totalDuration(),
+                            current.totalFavorites(), recomputed.totalFavorites(), current.songsPerArtist().size(), recomputed.songsPerArtist().size());
+                    reload(recomputed, favorites);
+                }
+                return consistent;
+            }
+        });
+    }
+
+    synchronized void onEvent(LibraryEvent event) {
+        if (!loaded) return;
+
+        switch (event) {
+            case SongAdded(Song song) -> add(song);
+            case SongDeleted(Song song) -> remove(song);
+            case SongUpdated(Song before, Song after) -> {
+                remove(before);
+                add(after);
+            }
+            case FavoriteToggled(String songId, boolean favorite) -> toggleFavorite(songId, favorite);
+            case SongsBulkChanged() -> loaded = false;
+            case PlaylistChanged _ -> {
+                return;
+            }
+        }
+        snapshot = null;
+    }
+
+    private LibraryStats current() {
+        if (snapshot == null) {
+            Map<String, Long> perArtist = new LinkedHashMap<>();
+            songsPerArtist.entrySet().stream().sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey())).forEach(entry -> perArtist.put(entry.getKey(), entry.getValue()));
+
+            snapshot = new LibraryStats(totalSongs, totalDuration, totalFavorites, Collections.unmodifiableMap(perArtist));
+        }
+        return snapshot;
+    }
+
+    private void reload(LibraryStats stats, Collection<String> favoriteIds) {
+        totalSongs = stats.totalSongs();
+        totalDuration = stats.totalDuration();
+        totalFavorites = stats.totalFavorites();
+
+        songsPerArtist.clear();
+        songsPerArtist.putAll(stats.songsPerArtist());
+
+        favorites.clear();
+        favorites.addAll(favoriteIds);
+
+        loaded = true;
+        snapshot = null;
+    }
+
+    private void add(Song song) {
+        totalSongs++;
+        totalDuration += song.durationInSeconds();
+        songsPerArtist.merge(song.artist(), 1L, Long::sum);
+        if (favorites.contains(song.id())) totalFavorites++;
+    }
+
+    private void remove(Song song) {
+        totalSongs--;
+        totalDuration -= song.durationInSeconds();
+        songsPerArtist.computeIfPresent(song.artist(), (_, count) -> count > 1 ? count - 1 : null);
+        if (favorites.contains(song.id())) totalFavorites--;
+    }
+
+    private void toggleFavorite(String songId, boolean favorite) {
+        boolean changed = favorite ? favorites.add(songId) : favorites.remove(songId);
+
+        if (changed && songExists.test(songId)) {
+            totalFavorites += favorite ? 1 : -1;
+        }
+    }
+}
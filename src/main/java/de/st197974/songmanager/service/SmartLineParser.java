@@ -0,0 +1,235 @@
+package de.st197974.songmanager.service;
+
+import de.st197974.songmanager.model.Song;
+
+/**
+ * Single-pass parser for the free-form import lines, e.g. {@code "Title, Artist, Album, 3:45"}.
+ * <p>
+ * It works directly on the characters of the line without regular expressions or temporary arrays
+ * and reproduces the results of the former regex-based parser exactly:
+ * - A trailing duration ({@code m:ss}, {@code mm:ss} or 2-4 digits of seconds) is recognised when it is
+ * preceded by whitespace or by one of {@code , . -} with optional whitespace around it.
+ * - The remaining text is split by the first separator kind present, in the order comma, dash, pipe, " . ".
+ * Fields are trimmed, and trailing empty fields are dropped like {@link String#split(String)} does.
+ * - The pipe separator keeps the historic behaviour of {@code split("|")}, which splits between every character.
+ */
+final class SmartLineParser {
+
+    private static final char NO_SEPARATOR = 0;
+    private static final char SPACED_DOT = '.';
+
+    private SmartLineParser() {
+    }
+
+    static Song parse(String line) {
+        String cleanLine = line.trim();
+
+        int duration = 0;
+        String textPart = cleanLine;
+
+        int durationEnd = durationEnd(cleanLine);
+        int durationStart = durationStart(cleanLine, durationEnd);
+
+        if (durationStart > 0) {
+            int matchStart = prefixStart(cleanLine, durationStart);
+
+            if (matchStart >= 0) {
+                duration = parseDuration(cleanLine, durationStart, durationEnd);
+                textPart = cleanLine.substring(0, matchStart).trim();
+            }
+        }
+
+        char separator = detectSeparator(textPart);
+
+        if (separator == NO_SEPARATOR) return new Song(textPart, "", "Unknown Artist", duration);
+        if (separator == '|') return splitEveryCharacter(textPart, duration);
+
+        return splitFields(textPart, separator, duration);
+    }
+
+    /**
+     * End of the duration candidate. The old pattern ended in {@code \s*$}, and {@code $} also matches in front
+     * of a final line terminator that {@link String#trim()} keeps (NEL, LS, PS).
+     */
+    private static int durationEnd(String text) {
+        int end = text.length();
+
+        if (end > 0 && isTrailingLineTerminator(text.charAt(end - 1))) {
+            end--;
+            while (end > 0 && isWhitespace(text.charAt(end - 1))) end--;
+        }
+
+        return end;
+    }
+
+    /**
+     * Start of a {@code m:ss}/{@code mm:ss} or 2-4 digit duration ending at {@code end}, or -1.
+     * A duration only counts if it is not glued to further digits.
+     */
+    private static int durationStart(String text, int end) {
+        if (end >= 3 && text.charAt(end - 3) == ':' && isDigit(text.charAt(end - 2)) && isDigit(text.charAt(end - 1))) {
+            int colon = end - 3;
+            int start = colon;
+
+            while (start > 0 && colon - start < 2 && isDigit(text.charAt(start - 1))) start--;
+
+            if (start == colon || (start > 0 && isDigit(text.charAt(start - 1)))) return -1;
+            return start;
+        }
+
+        int start = end;
+        while (start > 0 && isDigit(text.charAt(start - 1))) start--;
+
+        int digits = end - start;
+        return digits >= 2 && digits <= 4 ? start : -1;
+    }
+
+    /**
+     * Leftmost start of the text between title part and duration: either whitespace only, or one of
+     * {@code , . -} with optional whitespace on both sides. Returns -1 if there is no such separator.
+     */
+    private static int prefixStart(String text, int durationStart) {
+        int start = durationStart;
+        while (start > 0 && isWhitespace(text.charAt(start - 1))) start--;
+
+        if (start > 0 && isDurationSeparator(text.charAt(start - 1))) {
+            start--;
+            while (start > 0 && isWhitespace(text.charAt(start - 1))) start--;
+            return start;
+        }
+
+        return start < durationStart ? start : -1;
+    }
+
+    private static int parseDuration(String text, int start, int end) {
+        if (text.charAt(end - 3) == ':') {
+            return parseDigits(text, start, end - 3) * 60 + parseDigits(text, end - 2, end);
+        }
+        return parseDigits(text, start, end);
+    }
+
+    private static int parseDigits(String text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    private static char detectSeparator(String text) {
+        boolean comma = false;
+        boolean dash = false;
+        boolean pipe = false;
+        boolean spacedDot = false;
+
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+
+            if (c == ',') comma = true;
+            else if (c == '-') dash = true;
+            else if (c == '|') pipe = true;
+            else if (c == '.' && i > 0 && i + 1 < length && isWhitespace(text.charAt(i - 1)) && isWhitespace(text.charAt(i + 1))) spacedDot = true;
+        }
+
+        if (comma) return ',';
+        if (dash) return '-';
+        if (pipe) return '|';
+        if (spacedDot) return SPACED_DOT;
+        return NO_SEPARATOR;
+    }
+
+    /**
+     * Splits on {@code ,} or {@code -}, or on whitespace-dot-whitespace for {@link #SPACED_DOT},
+     * with the field semantics of {@link String#split(String)}.
+     */
+    private static Song splitFields(String text, char separator, int duration) {
+        int separatorWidth = separator == SPACED_DOT ? 3 : 1;
+        int length = text.length();
+
+        int titleStart = -1, titleEnd = -1;
+        int artistStart = -1, artistEnd = -1;
+        int albumStart = -1, albumEnd = -1;
+        int lastNonEmptyField = -1;
+
+        int field = 0;
+        int fieldStart = 0;
+        int i = 0;
+
+        while (i <= length) {
+            boolean atSeparator = i < length && isSeparatorAt(text, i, separator);
+
+            if (i == length || atSeparator) {
+                if (i > fieldStart) lastNonEmptyField = field;
+
+                if (field == 0) {
+                    titleStart = fieldStart;
+                    titleEnd = i;
+                } else if (field == 1) {
+                    artistStart = fieldStart;
+                    artistEnd = i;
+                } else if (field == 2) {
+                    albumStart = fieldStart;
+                    albumEnd = i;
+                }
+
+                if (i == length) break;
+
+                field++;
+                i += separatorWidth;
+                fieldStart = i;
+            } else {
+                i++;
+            }
+        }
+
+        int fieldCount = lastNonEmptyField + 1;
+
+        String title = fieldCount > 0 ? trimmed(text, titleStart, titleEnd) : "Unknown Title";
+        String artist = fieldCount > 1 ? trimmed(text, artistStart, artistEnd) : "Unknown Artist";
+        String album = fieldCount > 2 ? trimmed(text, albumStart, albumEnd) : "";
+
+        return new Song(title, album, artist, duration);
+    }
+
+    private static Song splitEveryCharacter(String text, int duration) {
+        int length = text.length();
+
+        String title = trimmed(text, 0, 1);
+        String artist = length > 1 ? trimmed(text, 1, 2) : "Unknown Artist";
+        String album = length > 2 ? trimmed(text, 2, 3) : "";
+
+        return new Song(title, album, artist, duration);
+    }
+
+    private static boolean isSeparatorAt(String text, int index, char separator) {
+        if (separator != SPACED_DOT) return text.charAt(index) == separator;
+
+        return index + 2 < text.length() && isWhitespace(text.charAt(index)) && text.charAt(index + 1) == '.' && isWhitespace(text.charAt(index + 2));
+    }
+
+    private static String trimmed(String text, int start, int end) {
+        while (start < end && text.charAt(start) <= ' ') start++;
+        while (end > start && text.charAt(end - 1) <= ' ') end--;
+        return text.substring(start, end);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isDurationSeparator(char c) {
+        return c == ',' || c == '.' || c == '-';
+    }
+
+    /**
+     * The {@code \s} class of {@link java.util.regex.Pattern}, which is narrower than {@link String#trim()}.
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isTrailingLineTerminator(char c) {
+        return c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
@@ -0,0 +1,39 @@
+package de.st197974.songmanager.service;
+
+/**
+ * Layout of a library snapshot file, version 1.
+ * <p>
+ * A snapshot starts with the {@link #MAGIC} bytes and the format version as a varint, followed by records, each a
+ * tag byte and its fields, up to an {@link #END} tag and the CRC-32C of all bytes before it, big-endian.
+ * <ul>
+ *     <li>{@link #SONG}: id, title, artist reference, album reference, duration as zigzag varint</li>
+ *     <li>{@link #PLAYLIST}: playlist id reference, name</li>
+ *     <li>{@link #PLAYLIST_SONG}: playlist id reference, song id</li>
+ *     <li>{@link #FAVORITE}: song id</li>
+ * </ul>
+ * Varints are unsigned LEB128. A string is its UTF-8 length plus one as varint followed by the bytes, 0 standing
+ * for null; no string is longer than {@link #MAX_STRING_LENGTH} bytes. Artists, albums and playlist ids repeat a
+ * lot, so they are references into one dictionary each instead: 0 is null, {@code i} in {@code 1..size} the entry
+ * {@code i - 1}, and {@code size + 1} a new string that follows as UTF-8 length and bytes and is appended as long
+ * as the dictionary holds fewer than {@link #MAX_DICTIONARY_SIZE} entries. Writer and reader grow their
+ * dictionaries the same way, so none is stored.
+ */
+final class SnapshotFormat {
+
+    static final byte[] MAGIC = {'S', 'M', 'S', 'N'};
+    static final int VERSION = 1;
+
+    static final byte END = 0;
+    static final byte SONG = 1;
+    static final byte PLAYLIST = 2;
+    static final byte PLAYLIST_SONG = 3;
+    static final byte FAVORITE = 4;
+
+    static final int MAX_DICTIONARY_SIZE = 1 << 16;
+    // bounds what a damaged length can make the reader allocate
+    static final int MAX_STRING_LENGTH = 1 << 24;
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private SnapshotFormat() {
+    }
+}
@@ -0,0 +1,13 @@
+package de.st197974.songmanager.service;
+
+import java.io.IOException;
+
+/**
+ * A file is not a snapshot this version can read, or it is damaged.
+ */
+final class SnapshotFormatException extends IOException {
+
+    SnapshotFormatException(String message) {
+        super(message);
+    }
+}
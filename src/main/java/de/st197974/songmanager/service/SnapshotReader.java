@@ -0,0 +1,195 @@
+package de.st197974.songmanager.service;
+
+import de.st197974.songmanager.model.Playlist;
+import de.st197974.songmanager.model.Song;
+import de.st197974.songmanager.repository.SnapshotRepository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import static de.st197974.songmanager.service.SnapshotFormat.*;
+
+/**
+ * Reads a {@link SnapshotFormat snapshot} from a channel and passes its rows to a sink as they are decoded, so
+ * only the buffer and the dictionaries are held in memory. The checksum can only be verified at the end, after
+ * all rows were passed; a sink that must not keep the rows of a damaged file has to be transactional.
+ */
+final class SnapshotReader implements SnapshotRepository.Source {
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+    private final CRC32C crc = new CRC32C();
+    // start of the bytes in the buffer that are not part of the checksum yet
+    private int unchecked;
+
+    private final List<String> artists = new ArrayList<>();
+    private final List<String> albums = new ArrayList<>();
+    private final List<String> playlistIds = new ArrayList<>();
+
+    private int songs;
+    private int playlists;
+    private int playlistSongs;
+    private int favorites;
+
+    SnapshotReader(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * @throws SnapshotFormatException if the channel does not contain a complete snapshot of a known version
+     */
+    @Override
+    public void writeTo(SnapshotRepository.Sink sink) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        require(magic.length);
+        buffer.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) throw new SnapshotFormatException("Not a library snapshot");
+
+        int version = getVarint();
+        if (version != VERSION) throw new SnapshotFormatException("Unsupported snapshot version " + version);
+
+        while (true) {
+            byte tag = getTag();
+            switch (tag) {
+                case SONG -> {
+                    String id = required(getString(), "song id");
+                    String title = required(getString(), "song title");
+                    String artist = required(getReference(artists), "song artist");
+                    String album = getReference(albums);
+                    int duration = getVarint();
+                    sink.song(new Song(id, title, album, artist, (duration >>> 1) ^ -(duration & 1)));
+                    songs++;
+                }
+                case PLAYLIST -> {
+                    String id = required(getReference(playlistIds), "playlist id");
+                    sink.playlist(new Playlist(id, required(getString(), "playlist name")));
+                    playlists++;
+                }
+                case PLAYLIST_SONG -> {
+                    String playlistId = required(getReference(playlistIds), "playlist id");
+                    sink.playlistSong(playlistId, required(getString(), "song id"));
+                    playlistSongs++;
+                }
+                case FAVORITE -> {
+                    sink.favorite(required(getString(), "song id"));
+                    favorites++;
+                }
+                case END -> {
+                    verifyChecksum();
+                    return;
+                }
+                default -> throw new SnapshotFormatException("Unknown record type " + tag);
+            }
+        }
+    }
+
+    SnapshotResult result(Duration elapsed) {
+        return new SnapshotResult(SnapshotResult.Status.SUCCESS, songs, playlists, playlistSongs, favorites, elapsed);
+    }
+
+    private void verifyChecksum() throws IOException {
+        crc.update(buffer.array(), unchecked, buffer.position() - unchecked);
+        unchecked = buffer.position();
+
+        require(Integer.BYTES);
+        if (buffer.getInt() != (int) crc.getValue()) throw new SnapshotFormatException("Snapshot is damaged, its checksum does not match");
+        if (buffer.hasRemaining() || fill() >= 0) throw new SnapshotFormatException("Unexpected data after the end of the snapshot");
+    }
+
+    /**
+     * Rejects a missing value the library requires, which only a damaged file contains, before it reaches the sink
+     * and fails there as a database error.
+     */
+    private static String required(String value, String field) throws SnapshotFormatException {
+        if (value == null) throw new SnapshotFormatException("Snapshot record without " + field);
+        return value;
+    }
+
+    private byte getTag() throws IOException {
+        require(1);
+        return buffer.get();
+    }
+
+    private String getString() throws IOException {
+        int length = getVarint();
+        return length == 0 ? null : getUtf8(length - 1);
+    }
+
+    private String getReference(List<String> dictionary) throws IOException {
+        int reference = getVarint();
+        if (reference == 0) return null;
+        if (reference < 0) throw new SnapshotFormatException("Invalid dictionary reference " + Integer.toUnsignedString(reference));
+        if (reference <= dictionary.size()) return dictionary.get(reference - 1);
+        if (reference != dictionary.size() + 1) throw new SnapshotFormatException("Invalid dictionary reference " + reference);
+
+        String value = getUtf8(getVarint());
+        if (dictionary.size() < MAX_DICTIONARY_SIZE) dictionary.add(value);
+        return value;
+    }
+
+    private String getUtf8(int length) throws IOException {
+        if (length < 0 || length > MAX_STRING_LENGTH) throw new SnapshotFormatException("Invalid string length " + length);
+        if (length <= buffer.capacity()) {
+            require(length);
+            String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+
+        byte[] bytes = new byte[length];
+        int read = 0;
+        while (read < length) {
+            require(1);
+            int n = Math.min(buffer.remaining(), length - read);
+            buffer.get(bytes, read, n);
+            read += n;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads an unsigned varint of up to 32 bits; values above {@link Integer#MAX_VALUE} come back negative.
+     */
+    private int getVarint() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            require(1);
+            byte b = buffer.get();
+            if (shift == 28 && (b & 0xF0) != 0) throw new SnapshotFormatException("Varint out of range");
+
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new SnapshotFormatException("Varint out of range");
+    }
+
+    /**
+     * Makes sure the buffer holds at least {@code bytes} unread bytes, reading more from the channel if needed.
+     */
+    private void require(int bytes) throws IOException {
+        while (buffer.remaining() < bytes) {
+            if (fill() < 0) throw new SnapshotFormatException("Snapshot ends unexpectedly");
+        }
+    }
+
+    /**
+     * Adds the bytes read so far to the checksum, moves the unread ones to the front and reads more after them.
+     *
+     * @return the number of bytes read, -1 at the end of the channel
+     */
+    private int fill() throws IOException {
+        crc.update(buffer.array(), unchecked, buffer.position() - unchecked);
+        buffer.compact();
+        int read = channel.read(buffer);
+        buffer.flip();
+        unchecked = 0;
+        return read;
+    }
+}
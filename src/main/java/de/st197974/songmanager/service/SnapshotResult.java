@@ -0,0 +1,31 @@
+package de.st197974.songmanager.service;
+
+import java.time.Duration;
+
+/**
+ * Outcome of writing or restoring a library snapshot. The counts are 0 unless it succeeded.
+ *
+ * @param elapsed time from opening the file until the snapshot was complete, or until it failed
+ */
+public record SnapshotResult(Status status, int songs, int playlists, int playlistSongs, int favorites, Duration elapsed) {
+
+    public enum Status {
+        SUCCESS,
+        /**
+         * The file could not be read or written.
+         */
+        IO_ERROR,
+        /**
+         * The file is not a snapshot, was written by a newer version, or is damaged.
+         */
+        INVALID_FILE,
+        /**
+         * The library could not be read or replaced; a failed restore leaves it unchanged.
+         */
+        DATABASE_ERROR
+    }
+
+    static SnapshotResult failed(Status status, Duration elapsed) {
+        return new SnapshotResult(status, 0, 0, 0, 0, elapsed);
+    }
+}
@@ -0,0 +1,104 @@
+package de.st197974.songmanager.service;
+
+import de.st197974.songmanager.repository.SnapshotRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+import static de.st197974.songmanager.service.SnapshotResult.Status.*;
+
+/**
+ * Backs the whole library up into a compact binary {@link SnapshotFormat snapshot} and restores it, keeping the
+ * ids of songs and playlists, the playlist memberships and the favorites, which the text export loses. Both
+ * directions stream between a file channel and the database, so their memory use does not grow with the library.
+ */
+public record SnapshotService(SnapshotRepository repository) {
+
+    private static final Logger logger = LogManager.getLogger(SnapshotService.class);
+
+    public static final String FILE_EXTENSION = "smsnap";
+
+    /**
+     * Writes a snapshot of the library to a temporary file next to the target, which replaces the target only
+     * once the snapshot is complete.
+     */
+    public SnapshotResult backup(Path path) {
+        long start = System.nanoTime();
+        Path target = path.toAbsolutePath();
+        Path temp = null;
+
+        try {
+            temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".part");
+
+            SnapshotWriter writer;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                writer = new SnapshotWriter(channel);
+                if (!repository.read(writer)) {
+                    deleteQuietly(temp);
+                    return SnapshotResult.failed(DATABASE_ERROR, since(start));
+                }
+                writer.finish();
+                channel.force(false);
+            }
+
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            SnapshotResult result = writer.result(since(start));
+            logger.info("Wrote snapshot of {} songs, {} playlists and {} favorites to {} in {} ms", result.songs(), result.playlists(), result.favorites(), target, result.elapsed().toMillis());
+            return result;
+        } catch (IOException e) {
+            logger.error("Error writing snapshot to {}", target, e);
+            deleteQuietly(temp);
+            return SnapshotResult.failed(IO_ERROR, since(start));
+        }
+    }
+
+    /**
+     * Replaces the whole library with the snapshot in the file. The library stays unchanged if the file cannot be
+     * read completely or is not a valid snapshot.
+     */
+    public SnapshotResult restore(Path path) {
+        long start = System.nanoTime();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            SnapshotReader reader = new SnapshotReader(channel);
+            if (!repository.replace(reader)) return SnapshotResult.failed(DATABASE_ERROR, since(start));
+
+            SnapshotResult result = reader.result(since(start));
+            logger.info("Restored snapshot of {} songs, {} playlists and {} favorites from {} in {} ms", result.songs(), result.playlists(), result.favorites(), path, result.elapsed().toMillis());
+            return result;
+        } catch (SnapshotFormatException e) {
+            logger.error("Invalid snapshot {}: {}", path, e.getMessage());
+            return SnapshotResult.failed(INVALID_FILE, since(start));
+        } catch (IOException e) {
+            logger.error("Error reading snapshot {}", path, e);
+            return SnapshotResult.failed(IO_ERROR, since(start));
+        }
+    }
+
+    private static Duration since(long start) {
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) return;
+
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not delete {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package de.st197974.songmanager.service;
+
+import de.st197974.songmanager.model.Playlist;
+import de.st197974.songmanager.model.Song;
+import de.st197974.songmanager.repository.SnapshotRepository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+import static de.st197974.songmanager.service.SnapshotFormat.*;
+
+/**
+ * Writes the rows it receives as a {@link SnapshotFormat snapshot} into a channel, through a buffer that is
+ * written out whenever it is full. Only the buffer and the dictionaries are held in memory.
+ */
+final class SnapshotWriter implements SnapshotRepository.Sink {
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CRC32C crc = new CRC32C();
+
+    private final Map<String, Integer> artists = new HashMap<>();
+    private final Map<String, Integer> albums = new HashMap<>();
+    private final Map<String, Integer> playlistIds = new HashMap<>();
+
+    private int songs;
+    private int playlists;
+    private int playlistSongs;
+    private int favorites;
+
+    SnapshotWriter(WritableByteChannel channel) {
+        this.channel = channel;
+
+        // the version is below 128, so its varint is a single byte
+        buffer.put(MAGIC).put((byte) VERSION);
+    }
+
+    @Override
+    public void song(Song song) throws IOException {
+        putTag(SONG);
+        putString(song.id());
+        putString(song.title());
+        putReference(artists, song.artist());
+        putReference(albums, song.album());
+        putVarint((song.durationInSeconds() << 1) ^ (song.durationInSeconds() >> 31));
+        songs++;
+    }
+
+    @Override
+    public void playlist(Playlist playlist) throws IOException {
+        putTag(PLAYLIST);
+        putReference(playlistIds, playlist.id());
+        putString(playlist.name());
+        playlists++;
+    }
+
+    @Override
+    public void playlistSong(String playlistId, String songId) throws IOException {
+        putTag(PLAYLIST_SONG);
+        putReference(playlistIds, playlistId);
+        putString(songId);
+        playlistSongs++;
+    }
+
+    @Override
+    public void favorite(String songId) throws IOException {
+        putTag(FAVORITE);
+        putString(songId);
+        favorites++;
+    }
+
+    /**
+     * Ends the snapshot with its checksum and writes out the rest of the buffer; the channel is not closed.
+     */
+    void finish() throws IOException {
+        putTag(END);
+        flush();
+
+        buffer.putInt((int) crc.getValue());
+        drain();
+    }
+
+    SnapshotResult result(Duration elapsed) {
+        return new SnapshotResult(SnapshotResult.Status.SUCCESS, songs, playlists, playlistSongs, favorites, elapsed);
+    }
+
+    private void putTag(byte tag) throws IOException {
+        ensure(1);
+        buffer.put(tag);
+    }
+
+    private void putString(String value) throws IOException {
+        if (value == null) {
+            putVarint(0);
+            return;
+        }
+        putBytes(value.getBytes(StandardCharsets.UTF_8), 1);
+    }
+
+    private void putReference(Map<String, Integer> dictionary, String value) throws IOException {
+        if (value == null) {
+            putVarint(0);
+            return;
+        }
+
+        Integer index = dictionary.get(value);
+        if (index != null) {
+            putVarint(index + 1);
+            return;
+        }
+
+        putVarint(dictionary.size() + 1);
+        putBytes(value.getBytes(StandardCharsets.UTF_8), 0);
+        if (dictionary.size() < MAX_DICTIONARY_SIZE) dictionary.put(value, dictionary.size());
+    }
+
+    /**
+     * Writes the length plus {@code lengthOffset} as varint, then the bytes, in pieces if they exceed the buffer.
+     */
+    private void putBytes(byte[] bytes, int lengthOffset) throws IOException {
+        if (bytes.length > MAX_STRING_LENGTH) throw new SnapshotFormatException("A string of " + bytes.length + " bytes is too long for a snapshot");
+        putVarint(bytes.length + lengthOffset);
+
+        int written = 0;
+        while (written < bytes.length) {
+            if (!buffer.hasRemaining()) flush();
+
+            int length = Math.min(buffer.remaining(), bytes.length - written);
+            buffer.put(bytes, written, length);
+            written += length;
+        }
+    }
+
+    private void putVarint(int value) throws IOException {
+        ensure(5);
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) flush();
+    }
+
+    private void flush() throws IOException {
+        crc.update(buffer.array(), 0, buffer.position());
+        drain();
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,167 @@
+package de.st197974.songmanager.service;
+
+import de.st197974.songmanager.model.Song;
+import de.st197974.songmanager.model.SongView;
+import de.st197974.songmanager.repository.SongOrder;
+import de.st197974.songmanager.repository.SongRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Streams the library into a {@link Writer} in one of the {@link ExportFormat}s.
+ * <p>
+ * Songs are read with a single query sorted by artist, album and title, so SQLite does the sorting and only the
+ * song being written is held in memory, however large the library is. Fields are written character by character
+ * where they need escaping instead of through intermediate strings; buffering is up to the given writer.
+ */
+final class SongExporter {
+
+    private static final String CSV_HEADER = "id,title,artist,album,durationInSeconds";
+    private static final String CSV_LINE_END = "\r\n";
+
+    private final Writer out;
+    private final ExportFormat format;
+    private final String lineSeparator = System.lineSeparator();
+
+    private String lastArtist;
+    private int rows;
+
+    SongExporter(Writer out, ExportFormat format) {
+        this.out = out;
+        this.format = format;
+    }
+
+    /**
+     * Writes all songs of the repository; the writer is neither flushed nor closed.
+     *
+     * @return the number of songs written
+     * @throws IOException if writing failed or the songs could not be read completely
+     */
+    int export(SongRepository repository) throws IOException {
+        if (format == ExportFormat.CSV) {
+            out.write(CSV_HEADER);
+            out.write(CSV_LINE_END);
+        }
+
+        boolean complete;
+        try {
+            complete = repository.forEach(SongOrder.ARTIST_ALBUM_TITLE, song -> {
+                try {
+                    write(song);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        if (!complete) throw new IOException("Reading the songs failed after " + rows + " songs");
+        return rows;
+    }
+
+    private void write(Song song) throws IOException {
+        switch (format) {
+            case TEXT -> writeText(song);
+            case CSV -> writeCsv(song);
+            case JSON_LINES -> writeJson(song);
+        }
+        rows++;
+    }
+
+    private void writeText(Song song) throws IOException {
+        if (lastArtist != null && !song.artist().equalsIgnoreCase(lastArtist)) {
+            out.write(lineSeparator);
+        }
+        lastArtist = song.artist();
+
+        out.write(String.valueOf(song.title()));
+        out.write(", ");
+        out.write(String.valueOf(song.artist()));
+        out.write(", ");
+        out.write(String.valueOf(song.album()));
+        out.write(", ");
+        out.write(SongView.formatDuration(song.durationInSeconds()));
+        out.write(lineSeparator);
+    }
+
+    private void writeCsv(Song song) throws IOException {
+        writeCsvField(song.id());
+        out.write(',');
+        writeCsvField(song.title());
+        out.write(',');
+        writeCsvField(song.artist());
+        out.write(',');
+        writeCsvField(song.album());
+        out.write(',');
+        out.write(Integer.toString(song.durationInSeconds()));
+        out.write(CSV_LINE_END);
+    }
+
+    private void writeCsvField(String value) throws IOException {
+        if (value == null) return;
+
+        boolean quoted = false;
+        for (int i = 0; i < value.length() && !quoted; i++) {
+            char c = value.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quoted) {
+            out.write(value);
+            return;
+        }
+
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') out.write('"');
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    private void writeJson(Song song) throws IOException {
+        out.write("{\"id\":");
+        writeJsonString(song.id());
+        out.write(",\"title\":");
+        writeJsonString(song.title());
+        out.write(",\"artist\":");
+        writeJsonString(song.artist());
+        out.write(",\"album\":");
+        writeJsonString(song.album());
+        out.write(",\"durationInSeconds\":");
+        out.write(Integer.toString(song.durationInSeconds()));
+        out.write("}\n");
+    }
+
+    private void writeJsonString(String value) throws IOException {
+        if (value == null) {
+            out.write("null");
+            return;
+        }
+
+        out.write('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '"' && c != '\\' && c >= 0x20) continue;
+
+            out.write(value, start, i - start);
+            start = i + 1;
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                case '\b' -> out.write("\\b");
+                case '\f' -> out.write("\\f");
+                default -> out.write(String.format("\\u%04x", (int) c));
+            }
+        }
+        out.write(value, start, value.length() - start);
+        out.write('"');
+    }
+}
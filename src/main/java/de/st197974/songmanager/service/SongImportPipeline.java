@@ -0,0 +1,218 @@
+package de.st197974.songmanager.service;
+
+import de.st197974.songmanager.model.Song;
+import de.st197974.songmanager.repository.SongRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Parse-and-write pipeline behind the song imports of {@link DiscographyService}.
+ * <p>
+ * The calling thread pulls lines lazily from an iterator and cuts them into chunks of one batch each.
+ * With a parallelism of 1 it parses the chunks itself; otherwise the chunks are parsed on a dedicated
+ * {@link ForkJoinPool} while the calling thread keeps reading. Parsed chunks are handed over strictly in input
+ * order to a single writer thread that stores them through {@link SongRepository#saveAll}, because SQLite only
+ * allows one writer at a time. Both hand-overs are bounded, so at most a few batches per worker are held in
+ * memory, no matter how large the input is.
+ */
+final class SongImportPipeline {
+
+    private static final Logger logger = LogManager.getLogger(SongImportPipeline.class);
+
+    private static final int QUEUE_CAPACITY = 4;
+    private static final int CHUNKS_IN_FLIGHT_PER_WORKER = 2;
+    private static final List<Song> END_OF_INPUT = new ArrayList<>();
+
+    private final SongRepository repository;
+    private final Function<String, Song> parser;
+    private final int batchSize;
+    private final int parallelism;
+
+    SongImportPipeline(SongRepository repository, Function<String, Song> parser, int batchSize, int parallelism) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1, was " + batchSize);
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1, was " + parallelism);
+        }
+        this.repository = repository;
+        this.parser = parser;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Runs the import until the input is exhausted or {@code cancelled} returns true.
+     * On cancellation the chunks that are still being read or parsed are dropped; chunks handed to the writer
+     * before are committed.
+     */
+    ImportResult run(Iterator<String> lines, LongSupplier position, long total, ImportProgressListener listener, BooleanSupplier cancelled) {
+        BlockingQueue<List<Song>> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        AtomicInteger imported = new AtomicInteger();
+        AtomicInteger failedWrites = new AtomicInteger();
+
+        Thread writer = Thread.ofPlatform().name("song-import-writer").start(() -> writeBatches(queue, imported, failedWrites));
+        ForkJoinPool parsers = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+
+        Deque<Future<ParsedChunk>> inFlight = new ArrayDeque<>();
+        int maxInFlight = parsers == null ? 0 : parallelism * CHUNKS_IN_FLIGHT_PER_WORKER;
+
+        int skipped = 0;
+        int failedParses = 0;
+        boolean stopped = false;
+
+        try {
+            while (lines.hasNext()) {
+                if (cancelled.getAsBoolean()) {
+                    stopped = true;
+                    break;
+                }
+
+                List<String> chunk = readChunk(lines);
+                if (chunk.isEmpty()) continue;
+
+                inFlight.addLast(parsers == null ? CompletableFuture.completedFuture(parseChunk(chunk)) : parsers.submit(() -> parseChunk(chunk)));
+
+                while (inFlight.size() > maxInFlight) {
+                    ParsedChunk parsed = awaitChunk(inFlight.removeFirst());
+                    skipped += parsed.skipped();
+                    failedParses += parsed.failed();
+
+                    if (!parsed.songs().isEmpty()) queue.put(parsed.songs());
+
+                    listener.onProgress(new ImportResult(imported.get(), skipped, failedParses + failedWrites.get()), position.getAsLong(), total);
+                }
+            }
+
+            while (!stopped && !inFlight.isEmpty()) {
+                ParsedChunk parsed = awaitChunk(inFlight.removeFirst());
+                skipped += parsed.skipped();
+                failedParses += parsed.failed();
+
+                if (!parsed.songs().isEmpty()) queue.put(parsed.songs());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopped = true;
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+            if (parsers != null) parsers.shutdownNow();
+            finishWriter(queue, writer);
+        }
+
+        ImportResult result = new ImportResult(imported.get(), skipped, failedParses + failedWrites.get());
+        listener.onProgress(result, position.getAsLong(), total);
+
+        if (stopped) {
+            logger.info("Import cancelled: {} imported, {} skipped, {} failed", result.imported(), result.skipped(), result.failed());
+        } else {
+            logger.info("Import finished: {} imported, {} skipped, {} failed (parallelism {})", result.imported(), result.skipped(), result.failed(), parallelism);
+        }
+        return result;
+    }
+
+    private List<String> readChunk(Iterator<String> lines) {
+        List<String> chunk = new ArrayList<>(batchSize);
+
+        while (chunk.size() < batchSize && lines.hasNext()) {
+            String line = lines.next();
+            if (line == null || line.trim().isEmpty()) continue;
+            chunk.add(line);
+        }
+
+        return chunk;
+    }
+
+    private ParsedChunk parseChunk(List<String> chunk) {
+        List<Song> songs = new ArrayList<>(chunk.size());
+        int skipped = 0;
+        int failed = 0;
+
+        for (String line : chunk) {
+            Song song = parser.apply(line);
+            if (song == null) {
+                failed++;
+                continue;
+            }
+            if (song.title().isEmpty()) {
+                skipped++;
+                continue;
+            }
+
+            songs.add(song);
+        }
+
+        return new ParsedChunk(songs, skipped, failed);
+    }
+
+    private static ParsedChunk awaitChunk(Future<ParsedChunk> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            if (e.getCause() instanceof Error error) throw error;
+            throw new IllegalStateException("Parsing an import chunk failed", e.getCause());
+        }
+    }
+
+    private void writeBatches(BlockingQueue<List<Song>> queue, AtomicInteger imported, AtomicInteger failedWrites) {
+        while (true) {
+            List<Song> batch;
+            try {
+                batch = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (batch == END_OF_INPUT) return;
+
+            try {
+                int saved = repository.saveAll(batch);
+                imported.addAndGet(saved);
+                failedWrites.addAndGet(batch.size() - saved);
+            } catch (RuntimeException e) {
+                logger.error("Error while writing import batch of {} songs", batch.size(), e);
+                failedWrites.addAndGet(batch.size());
+            }
+        }
+    }
+
+    private static void finishWriter(BlockingQueue<List<Song>> queue, Thread writer) {
+        boolean interrupted = false;
+
+        while (true) {
+            try {
+                queue.put(END_OF_INPUT);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        while (true) {
+            try {
+                writer.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    private record ParsedChunk(List<Song> songs, int skipped, int failed) {
+    }
+}
@@ -1,51 +1,75 @@
 package de.st197974.songmanager.service;
 
+import de.st197974.songmanager.event.LibraryEventBus;
+import de.st197974.songmanager.model.LibraryStats;
 import de.st197974.songmanager.model.Song;
+import de.st197974.songmanager.repository.StatsRepository;
 
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Provides statistical analysis and operations for songs and favorites.
  * <p>
- * The StatsService class aggregates data from two primary services:
- * DiscographyService and FavoritesService. It provides methods for
- * retrieving high-level information, such as the total number of songs,
- * average duration, and total number of favorite songs.
+ * The StatsService class keeps running totals that are computed once by a
+ * StatsRepository and then updated from the change events of the library.
+ * It provides methods for retrieving high-level information, such as the
+ * total number of songs, average duration, and total number of favorite songs.
  * <p>
  * Responsibilities include:
  * - Aggregating and summarizing data on songs and favorites.
  * - Calculating statistics, such as the total duration and average song length.
  * - Grouping songs by artist and managing song counts.
  */
-public record StatsService(DiscographyService discographyService, FavoritesService favoritesService) {
+public record StatsService(StatsRepository repository, DiscographyService discographyService, FavoritesService favoritesService, IncrementalLibraryStats stats) {
+
+    /**
+     * Creates the service with running totals that follow the changes published on {@code eventBus}.
+     */
+    public StatsService(StatsRepository repository, DiscographyService discographyService, FavoritesService favoritesService, LibraryEventBus eventBus) {
+        this(repository, discographyService, favoritesService, new IncrementalLibraryStats(repository, eventBus, favoritesService::getAllFavoriteIds, id -> discographyService.getSongById(id) != null));
+        eventBus.subscribe(stats::onEvent);
+    }
 
     public List<Song> getAllSongs() {
         return discographyService.getAll();
     }
 
+    /**
+     * All figures of the stats view. The first call computes them in the database, later calls only pay for the
+     * changes made in between.
+     */
+    public LibraryStats getSnapshot() {
+        return stats.snapshot();
+    }
+
+    /**
+     * Recomputes all figures in the database and compares them with the running totals, repairing them on a mismatch.
+     *
+     * @return true if the running totals were correct
+     */
+    public boolean checkConsistency() {
+        return stats.verify();
+    }
+
     public Map<String, Long> getSongsPerArtist() {
-        return discographyService.getAll().stream().collect(Collectors.groupingBy(Song::artist, Collectors.counting()));
+        return getSnapshot().songsPerArtist();
     }
 
     public int getTotalSongs() {
-        return discographyService.getAll().size();
+        return getSnapshot().totalSongs();
     }
 
-    public int getTotalDuration() {
-        return discographyService.getAll().stream().mapToInt(Song::durationInSeconds).sum();
+    public long getTotalDuration() {
+        return getSnapshot().totalDuration();
     }
 
     public int getAverageDuration() {
-        List<Song> all = discographyService.getAll();
-        if (all.isEmpty()) return 0;
-        return getTotalDuration() / all.size();
+        return getSnapshot().averageDuration();
     }
 
     public int getTotalFavorites() {
-        return favoritesService.getAllFavorites().size();
+        return getSnapshot().totalFavorites();
     }
 
-
 }
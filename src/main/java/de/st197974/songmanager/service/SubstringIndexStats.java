@@ -0,0 +1,13 @@
+package de.st197974.songmanager.service;
+
+/**
+ * Size of a {@link SubstringSearchIndex}: indexed songs, deleted songs not compacted away yet, distinct trigrams,
+ * posting list entries and the estimated heap footprint of the index itself, not counting the songs.
+ */
+public record SubstringIndexStats(int songs, int deleted, int trigrams, long postings, long estimatedBytes) {
+
+    @Override
+    public String toString() {
+        return String.format("%d songs (%d deleted), %d trigrams, %d postings, ~%.1f MB", songs, deleted, trigrams, postings, estimatedBytes / (1024.0 * 1024.0));
+    }
+}
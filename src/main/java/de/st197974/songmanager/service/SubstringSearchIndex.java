@@ -0,0 +1,387 @@
+package de.st197974.songmanager.service;
+
+import de.st197974.songmanager.event.LibraryEvent;
+import de.st197974.songmanager.event.SongAdded;
+import de.st197974.songmanager.event.SongDeleted;
+import de.st197974.songmanager.event.SongUpdated;
+import de.st197974.songmanager.event.SongsBulkChanged;
+import de.st197974.songmanager.model.Song;
+import de.st197974.songmanager.model.SongView;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * In-memory trigram index answering {@code contains} queries over title, artist and album, ignoring case.
+ * <p>
+ * Every indexed song gets a document number, and its lowercased fields are split into trigrams. Each trigram maps
+ * to a sorted {@code int[]} of the documents containing it. A query intersects the posting lists of its trigrams
+ * and checks each document in all of them against the lowercased fields, because a song having all trigrams of the
+ * query does not necessarily contain the query. Queries shorter than three characters, or without a trigram inside
+ * one field, scan the lowercased fields instead.
+ * <p>
+ * The index is built from the library on first use or by {@link #rebuild()} and from then on kept up to date by
+ * the {@link LibraryEvent}s of each write. A deleted or replaced song leaves a hole in the document numbers; once
+ * there are more holes than songs the index is compacted. A {@link SongsBulkChanged} event marks the index stale
+ * and the next query rebuilds it.
+ */
+public final class SubstringSearchIndex {
+
+    private static final Logger logger = LogManager.getLogger(SubstringSearchIndex.class);
+
+    private static final int MIN_DELETED_FOR_COMPACTION = 1_024;
+    private static final long NO_TRIGRAM = -1;
+
+    private static final int ARRAY_BYTES = 16;
+    private static final int REFERENCE_BYTES = 4;
+    private static final int ID_ENTRY_BYTES = 64;
+
+    private final Supplier<List<Song>> source;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private boolean loaded;
+
+    private Song[] songs;
+    private String[] keys;
+    private int documents;
+    private int deleted;
+    private final Map<String, Integer> documentById = new HashMap<>();
+
+    // Open addressing from trigram to its posting list
+    private long[] trigrams;
+    private int[] postingOf;
+    private int trigramCount;
+    private int[][] postings;
+    private int[] postingSizes;
+
+    SubstringSearchIndex(Supplier<List<Song>> source) {
+        this.source = source;
+        clear(0);
+    }
+
+    /**
+     * @return at most {@code limit} songs whose title, artist or album contains {@code query}, ignoring case,
+     * in the order they were indexed; empty for an empty query
+     */
+    public List<Song> search(String query, int limit) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        if (needle.isEmpty() || limit <= 0) return new ArrayList<>();
+
+        return read(() -> needle.length() < 3 ? scan(needle, limit) : lookup(needle, limit));
+    }
+
+    /**
+     * Builds the index from the library now instead of on the first query.
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            load();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public SubstringIndexStats getStats() {
+        lock.readLock().lock();
+        try {
+            return stats();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void onEvent(LibraryEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) return;
+
+            switch (event) {
+                case SongAdded(Song song) -> add(song);
+                case SongUpdated(Song _, Song after) -> add(after);
+                case SongDeleted(Song song) -> remove(song.id());
+                case SongsBulkChanged() -> loaded = false;
+                default -> {
+                }
+            }
+
+            if (deleted > MIN_DELETED_FOR_COMPACTION && deleted > documentById.size()) compact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private <T> T read(Supplier<T> query) {
+        lock.readLock().lock();
+        try {
+            if (loaded) return query.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (!loaded) load();
+            return query.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes the whole library. Must be called with the write lock held. Like the catalog cache, an empty
+     * library is not kept, because a failed query also returns no songs; the next query simply asks again.
+     */
+    private void load() {
+        long start = System.nanoTime();
+        List<Song> library = source.get();
+
+        clear(library.size());
+        library.forEach(this::add);
+        trimPostings();
+        loaded = !library.isEmpty();
+
+        logger.info("Built substring index in {} ms: {}", (System.nanoTime() - start) / 1_000_000, stats());
+    }
+
+    private void compact() {
+        List<Song> live = new ArrayList<>(documentById.size());
+        for (int document = 0; document < documents; document++) {
+            if (songs[document] != null) live.add(songs[document]);
+        }
+
+        clear(live.size());
+        live.forEach(this::add);
+        trimPostings();
+    }
+
+    /**
+     * Cuts the spare capacity off the posting lists after a build; they grow again as songs are added.
+     */
+    private void trimPostings() {
+        for (int posting = 0; posting < trigramCount; posting++) {
+            if (postings[posting].length > postingSizes[posting]) postings[posting] = Arrays.copyOf(postings[posting], postingSizes[posting]);
+        }
+    }
+
+    private void clear(int expectedSongs) {
+        songs = new Song[Math.max(16, expectedSongs)];
+        keys = new String[songs.length];
+        documents = 0;
+        deleted = 0;
+        documentById.clear();
+
+        trigrams = new long[1 << 12];
+        Arrays.fill(trigrams, NO_TRIGRAM);
+        postingOf = new int[trigrams.length];
+        trigramCount = 0;
+        postings = new int[trigrams.length / 2][];
+        postingSizes = new int[postings.length];
+    }
+
+    private void add(Song song) {
+        remove(song.id());
+
+        if (documents == songs.length) {
+            songs = Arrays.copyOf(songs, documents * 2);
+            keys = Arrays.copyOf(keys, songs.length);
+        }
+
+        int document = documents++;
+        String key = SongView.searchKey(song);
+        songs[document] = song;
+        keys[document] = key;
+        documentById.put(song.id(), document);
+
+        // Documents only ever get higher numbers, so appending keeps every posting list sorted
+        for (long trigram : trigramsOf(key)) {
+            int posting = postingIndex(trigram, true);
+            int size = postingSizes[posting];
+            if (size == postings[posting].length) postings[posting] = Arrays.copyOf(postings[posting], size * 2);
+            postings[posting][size] = document;
+            postingSizes[posting] = size + 1;
+        }
+    }
+
+    private void remove(String id) {
+        Integer document = documentById.remove(id);
+        if (document == null) return;
+
+        songs[document] = null;
+        keys[document] = null;
+        deleted++;
+    }
+
+    private List<Song> scan(String needle, int limit) {
+        List<Song> result = new ArrayList<>();
+        for (int document = 0; document < documents && result.size() < limit; document++) {
+            if (keys[document] != null && keys[document].contains(needle)) result.add(songs[document]);
+        }
+        return result;
+    }
+
+    /**
+     * Walks the posting lists of the query's trigrams in step, leapfrogging to the highest document any of them is
+     * at, so the work stops as soon as {@code limit} songs matched instead of intersecting whole lists first.
+     */
+    private List<Song> lookup(String needle, int limit) {
+        long[] queryTrigrams = trigramsOf(needle);
+        // every trigram of the query spans a field boundary, so the index cannot narrow it down
+        if (queryTrigrams.length == 0) return scan(needle, limit);
+
+        Integer[] lists = new Integer[queryTrigrams.length];
+        for (int i = 0; i < queryTrigrams.length; i++) {
+            int posting = postingIndex(queryTrigrams[i], false);
+            if (posting == -1) return new ArrayList<>();
+            lists[i] = posting;
+        }
+        Arrays.sort(lists, Comparator.comparingInt(posting -> postingSizes[posting]));
+
+        List<Song> result = new ArrayList<>();
+        int[] positions = new int[lists.length];
+        int document = 0;
+        int agreeing = 0;
+
+        for (int list = 0; result.size() < limit; list = (list + 1) % lists.length) {
+            int[] posting = postings[lists[list]];
+            int size = postingSizes[lists[list]];
+
+            int position = seek(posting, size, positions[list], document);
+            if (position == size) break;
+            positions[list] = position;
+
+            if (posting[position] == document) {
+                agreeing++;
+            } else {
+                document = posting[position];
+                agreeing = 1;
+            }
+
+            if (agreeing == lists.length) {
+                String key = keys[document];
+                if (key != null && key.contains(needle)) result.add(songs[document]);
+                document++;
+                agreeing = 0;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The first position at or after {@code from} whose document is at least {@code document}, or {@code size}.
+     * Gallops before searching binary, so skipping far ahead in a long list costs about the log of the distance.
+     */
+    static int seek(int[] posting, int size, int from, int document) {
+        if (from >= size || posting[from] >= document) return from;
+
+        int bound = 1;
+        while (from + bound < size && posting[from + bound] < document) bound <<= 1;
+
+        int low = from + (bound >> 1) + 1;
+        int high = Math.min(from + bound, size);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (posting[mid] < document) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * The distinct trigrams of {@code key}, leaving out those spanning two fields.
+     */
+    private static long[] trigramsOf(String key) {
+        long[] result = new long[Math.max(0, key.length() - 2)];
+        int count = 0;
+
+        for (int i = 0; i + 2 < key.length(); i++) {
+            char first = key.charAt(i), second = key.charAt(i + 1), third = key.charAt(i + 2);
+            if (first == '\n' || second == '\n' || third == '\n') continue;
+            result[count++] = ((long) first << 32) | ((long) second << 16) | third;
+        }
+
+        Arrays.sort(result, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || result[distinct - 1] != result[i]) result[distinct++] = result[i];
+        }
+        return Arrays.copyOf(result, distinct);
+    }
+
+    private int postingIndex(long trigram, boolean create) {
+        int mask = trigrams.length - 1;
+        int slot = (int) ((trigram * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+
+        while (trigrams[slot] != NO_TRIGRAM) {
+            if (trigrams[slot] == trigram) return postingOf[slot];
+            slot = (slot + 1) & mask;
+        }
+        if (!create) return -1;
+
+        if (trigramCount == postings.length) {
+            growTable();
+            return postingIndex(trigram, true);
+        }
+
+        trigrams[slot] = trigram;
+        postingOf[slot] = trigramCount;
+        postings[trigramCount] = new int[4];
+        postingSizes[trigramCount] = 0;
+        return trigramCount++;
+    }
+
+    /**
+     * Doubles the hash table, which stays at most half full, and the posting list arrays with it.
+     */
+    private void growTable() {
+        long[] oldTrigrams = trigrams;
+        int[] oldPostingOf = postingOf;
+
+        trigrams = new long[oldTrigrams.length * 2];
+        Arrays.fill(trigrams, NO_TRIGRAM);
+        postingOf = new int[trigrams.length];
+        postings = Arrays.copyOf(postings, trigrams.length / 2);
+        postingSizes = Arrays.copyOf(postingSizes, postings.length);
+
+        int mask = trigrams.length - 1;
+        for (int i = 0; i < oldTrigrams.length; i++) {
+            if (oldTrigrams[i] == NO_TRIGRAM) continue;
+
+            int slot = (int) ((oldTrigrams[i] * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+            while (trigrams[slot] != NO_TRIGRAM) slot = (slot + 1) & mask;
+            trigrams[slot] = oldTrigrams[i];
+            postingOf[slot] = oldPostingOf[i];
+        }
+    }
+
+    /**
+     * Rough heap footprint of the index: posting lists, hash table, lowercased fields and the id lookup.
+     * The songs themselves are shared with the rest of the application and not counted.
+     */
+    private SubstringIndexStats stats() {
+        long postingEntries = 0;
+        long bytes = (long) ARRAY_BYTES * 5 + 12L * trigrams.length + (4L + REFERENCE_BYTES) * postings.length;
+
+        for (int posting = 0; posting < trigramCount; posting++) {
+            postingEntries += postingSizes[posting];
+            bytes += ARRAY_BYTES + 4L * postings[posting].length;
+        }
+
+        bytes += 2L * REFERENCE_BYTES * songs.length;
+        for (int document = 0; document < documents; document++) {
+            if (keys[document] != null) bytes += stringBytes(keys[document]);
+        }
+        bytes += (long) documentById.size() * ID_ENTRY_BYTES;
+
+        return new SubstringIndexStats(documentById.size(), deleted, trigramCount, postingEntries, bytes);
+    }
+
+    private static long stringBytes(String value) {
+        boolean latin1 = value.chars().allMatch(c -> c <= 0xFF);
+        long array = ARRAY_BYTES + (long) value.length() * (latin1 ? 1 : 2);
+        return 24 + ((array + 7) & ~7L);
+    }
+}
@@ -18,13 +18,15 @@ public final class AppTheme {
     }
 
     private static boolean dark = true;
+    private static int version;
 
     public static void applyDarkTheme() {
         try {
             FlatDarkLaf.setup();
             applyCommonColors(true);
-            FlatLaf.updateUI();
             dark = true;
+            version++;
+            FlatLaf.updateUI();
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -34,8 +36,9 @@ public final class AppTheme {
         try {
             FlatLightLaf.setup();
             applyCommonColors(false);
-            FlatLaf.updateUI();
             dark = false;
+            version++;
+            FlatLaf.updateUI();
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -50,6 +53,13 @@ public final class AppTheme {
         return dark;
     }
 
+    /**
+     * Changes whenever a theme is applied, so cell renderers can keep their colors and borders until it does.
+     */
+    public static int version() {
+        return version;
+    }
+
     private static void applyCommonColors(boolean darkMode) {
 
         UIManager.put("App.accentColor", darkMode ? new Color(118, 117, 226) : new Color(113, 179, 223));
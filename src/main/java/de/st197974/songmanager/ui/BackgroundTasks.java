@@ -0,0 +1,139 @@
+package de.st197974.songmanager.ui;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.swing.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Runs the queries behind the UI on virtual threads and hands their results back on the event dispatch thread.
+ * <p>
+ * Tasks are submitted on a channel, one per model they fill (e.g. the song list). A newer task on the same channel
+ * replaces the older one: its result is dropped and, if it has not started yet, it does not run at all. Running
+ * queries are not interrupted, because the connection pool turns an interrupt into a failed query.
+ * <p>
+ * Writes are never replaced: {@link #write} queues them one after another, every one of them runs and reports its
+ * result, and {@link #close()} waits for those still queued or running.
+ * <p>
+ * The time from submitting a task to handing its result to the UI is recorded in a {@link LatencyHistogram} per
+ * task type and logged on {@link #close()}.
+ */
+public class BackgroundTasks implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger(BackgroundTasks.class);
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ExecutorService writes = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("background-write").factory());
+
+    private final Map<String, Running> running = new HashMap<>();
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+
+    private record Running(String type, Future<?> future) {
+    }
+
+    /**
+     * Runs {@code task} in the background and passes its result to {@code onResult} on the EDT, unless a newer
+     * task was submitted on the same channel in the meantime. Failures are logged. Must be called on the EDT.
+     */
+    public <T> void submit(String channel, String type, Callable<T> task, Consumer<? super T> onResult) {
+        cancel(channel);
+
+        long submitted = System.nanoTime();
+        CompletableFuture<Running> self = new CompletableFuture<>();
+
+        Future<?> future = executor.submit(() -> {
+            try {
+                T result = task.call();
+                SwingUtilities.invokeLater(() -> {
+                    if (!finish(channel, self.join())) return;
+
+                    histogram(type).record(System.nanoTime() - submitted);
+                    onResult.accept(result);
+                });
+            } catch (Exception e) {
+                logger.error("Background task '{}' failed", type, e);
+                SwingUtilities.invokeLater(() -> finish(channel, self.join()));
+            }
+        });
+
+        Running current = new Running(type, future);
+        running.put(channel, current);
+        self.complete(current);
+    }
+
+    public <T> void submit(String type, Callable<T> task, Consumer<? super T> onResult) {
+        submit(type, type, task, onResult);
+    }
+
+    /**
+     * Runs {@code task} after all writes submitted before it and passes its result to {@code onResult} on the EDT.
+     * Unlike {@link #submit} nothing drops it. Failures are logged. Must be called on the EDT.
+     */
+    public <T> void write(String type, Callable<T> task, Consumer<? super T> onResult) {
+        long submitted = System.nanoTime();
+
+        writes.execute(() -> {
+            try {
+                T result = task.call();
+                SwingUtilities.invokeLater(() -> {
+                    histogram(type).record(System.nanoTime() - submitted);
+                    onResult.accept(result);
+                });
+            } catch (Exception e) {
+                logger.error("Background write '{}' failed", type, e);
+            }
+        });
+    }
+
+    /**
+     * Drops the task running on {@code channel}, if any. Must be called on the EDT.
+     */
+    public void cancel(String channel) {
+        Running previous = running.remove(channel);
+        if (previous == null) return;
+
+        previous.future().cancel(false);
+        histogram(previous.type()).recordCancelled();
+    }
+
+    /**
+     * Whether a task on {@code channel} has not delivered its result yet. Must be called on the EDT.
+     */
+    public boolean isRunning(String channel) {
+        return running.containsKey(channel);
+    }
+
+    /**
+     * Records the latency of work that runs elsewhere, e.g. in a {@link SwingWorker}.
+     */
+    public void record(String type, long nanos) {
+        histogram(type).record(nanos);
+    }
+
+    public Map<String, LatencyHistogram> getLatencies() {
+        return new TreeMap<>(latencies);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        writes.close();
+        getLatencies().forEach((type, histogram) -> logger.info("Task latency '{}': {}", type, histogram));
+    }
+
+    private boolean finish(String channel, Running task) {
+        if (running.get(channel) != task) return false;
+
+        running.remove(channel);
+        return true;
+    }
+
+    private LatencyHistogram histogram(String type) {
+        return latencies.computeIfAbsent(type, _ -> new LatencyHistogram());
+    }
+}
@@ -0,0 +1,40 @@
+package de.st197974.songmanager.ui;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Plain text label for cell renderers built from several components. Like {@link DefaultListCellRenderer} it
+ * does not repaint, revalidate or fire property changes when its text or colors are set, since a renderer is
+ * only stamped onto the list; the renderer invalidates itself once per cell instead. Not for HTML text.
+ */
+public class CellLabel extends JLabel {
+
+    public CellLabel(Font font) {
+        setFont(font);
+    }
+
+    @Override
+    public void revalidate() {
+    }
+
+    @Override
+    public void repaint(long tm, int x, int y, int width, int height) {
+    }
+
+    @Override
+    public void repaint(Rectangle r) {
+    }
+
+    @Override
+    public void repaint() {
+    }
+
+    @Override
+    protected void firePropertyChange(String propertyName, Object oldValue, Object newValue) {
+    }
+
+    @Override
+    public void firePropertyChange(String propertyName, boolean oldValue, boolean newValue) {
+    }
+}
@@ -0,0 +1,68 @@
+package de.st197974.songmanager.ui;
+
+import javax.swing.*;
+import javax.swing.border.Border;
+import javax.swing.border.CompoundBorder;
+import javax.swing.border.EmptyBorder;
+import javax.swing.border.MatteBorder;
+import java.awt.*;
+
+/**
+ * Base of list cell renderers built from a panel of {@link CellLabel}s that is created once and reused for
+ * every cell. Subclasses look up their colors and borders in {@link #applyTheme(boolean)}, which runs before the
+ * first cell and again only after the theme changed, and fill the labels in {@link #render}. Like
+ * {@link DefaultListCellRenderer}, the panel does not repaint, revalidate or fire property changes, since it is
+ * only stamped onto the list; it is invalidated once per cell so the list lays it out for the new text.
+ */
+public abstract class CellPanel<T> extends JPanel implements ListCellRenderer<T> {
+
+    private int themeVersion = -1;
+
+    protected CellPanel(LayoutManager layout) {
+        super(layout);
+    }
+
+    @Override
+    public final Component getListCellRendererComponent(JList<? extends T> list, T value, int index, boolean isSelected, boolean cellHasFocus) {
+        if (themeVersion != AppTheme.version()) {
+            themeVersion = AppTheme.version();
+            applyTheme(AppTheme.isDark());
+        }
+
+        render(value, isSelected);
+        invalidate();
+        return this;
+    }
+
+    protected abstract void applyTheme(boolean dark);
+
+    protected abstract void render(T value, boolean isSelected);
+
+    /**
+     * The divider line under each cell with the given padding around its content.
+     */
+    protected static Border dividerBorder(int verticalPadding, int horizontalPadding) {
+        Border divider = new MatteBorder(0, 0, 1, 0, UIManager.getColor("App.dividerColor"));
+        return new CompoundBorder(divider, new EmptyBorder(verticalPadding, horizontalPadding, verticalPadding, horizontalPadding));
+    }
+
+    @Override
+    public void revalidate() {
+    }
+
+    @Override
+    public void repaint(long tm, int x, int y, int width, int height) {
+    }
+
+    @Override
+    public void repaint(Rectangle r) {
+    }
+
+    @Override
+    public void repaint() {
+    }
+
+    @Override
+    protected void firePropertyChange(String propertyName, Object oldValue, Object newValue) {
+    }
+}
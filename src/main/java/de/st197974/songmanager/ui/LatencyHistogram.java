@@ -0,0 +1,89 @@
+package de.st197974.songmanager.ui;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts task latencies in fixed buckets from 1 ms to 10 s, plus one overflow bucket.
+ * Percentiles are reported as the upper bound of the bucket they fall into, which is precise enough to tell a
+ * query that feels instant from one that makes the window wait.
+ */
+public final class LatencyHistogram {
+
+    private static final long[] BOUNDS_MILLIS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1_000, 2_000, 5_000, 10_000};
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_MILLIS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+    private final LongAdder cancelled = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+    }
+
+    public void record(long nanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+
+        int bucket = 0;
+        while (bucket < BOUNDS_MILLIS.length && millis >= BOUNDS_MILLIS[bucket]) bucket++;
+
+        buckets[bucket].increment();
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public void recordCancelled() {
+        cancelled.increment();
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long cancelled() {
+        return cancelled.sum();
+    }
+
+    public double meanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalNanos.sum() / 1_000_000.0 / n;
+    }
+
+    public long maxMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the upper bound in milliseconds of the bucket holding the given percentile, or the maximum for the
+     * overflow bucket
+     */
+    public long percentileMillis(double percentile) {
+        long n = count.sum();
+        if (n == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(n * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BOUNDS_MILLIS.length; i++) {
+            seen += buckets[i].sum();
+            if (seen >= rank) return BOUNDS_MILLIS[i];
+        }
+        return maxMillis();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(String.format("%d tasks, %d cancelled, mean %.1f ms, p50 < %d ms, p95 < %d ms, p99 < %d ms, max %d ms |",
+                count(), cancelled(), meanMillis(), percentileMillis(50), percentileMillis(95), percentileMillis(99), maxMillis()));
+
+        for (int i = 0; i < buckets.length; i++) {
+            long n = buckets[i].sum();
+            if (n == 0) continue;
+            sb.append(i < BOUNDS_MILLIS.length ? " <" + BOUNDS_MILLIS[i] + "ms:" : " >=" + BOUNDS_MILLIS[i - 1] + "ms:").append(n);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,46 @@
+package de.st197974.songmanager.ui;
+
+import de.st197974.songmanager.event.LibraryEvent;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Moves {@link LibraryEvent}s from the publishing thread onto the event dispatch thread.
+ * <p>
+ * Events are queued and handed over in publishing order as one batch per EDT task, so the hundreds of events
+ * of an import batch or an artist rename cost a single model update instead of one per song. Events published
+ * on the EDT itself are applied right after the current task, which is why code that selects a just written song
+ * does so with {@link SwingUtilities#invokeLater(Runnable)}.
+ */
+final class LibraryEventBatcher implements Consumer<LibraryEvent> {
+
+    private final Consumer<List<LibraryEvent>> handler;
+
+    private final Queue<LibraryEvent> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    LibraryEventBatcher(Consumer<List<LibraryEvent>> handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public void accept(LibraryEvent event) {
+        pending.add(event);
+        if (scheduled.compareAndSet(false, true)) SwingUtilities.invokeLater(this::drain);
+    }
+
+    private void drain() {
+        scheduled.set(false);
+
+        List<LibraryEvent> batch = new ArrayList<>();
+        for (LibraryEvent event; (event = pending.poll()) != null; ) batch.add(event);
+
+        if (!batch.isEmpty()) handler.accept(batch);
+    }
+}
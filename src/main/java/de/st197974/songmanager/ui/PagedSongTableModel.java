@@ -0,0 +1,322 @@
+package de.st197974.songmanager.ui;
+
+import de.st197974.songmanager.event.LibraryEvent;
+import de.st197974.songmanager.event.SongDeleted;
+import de.st197974.songmanager.event.SongUpdated;
+import de.st197974.songmanager.model.Song;
+import de.st197974.songmanager.model.SongView;
+import de.st197974.songmanager.repository.SongOrder;
+import de.st197974.songmanager.service.DiscographyService;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+
+/**
+ * Song table over the whole library that only holds the pages around the rows the table asks for.
+ * <p>
+ * The row count comes from a count query. A row that is not loaded shows a placeholder and loads its page, plus
+ * the pages before and after it, in the background. A page following a loaded one continues after its last song
+ * (keyset pagination), so scrolling down costs an index seek per page however large the library is; any other
+ * page is read by offset. At most {@code maxPages} pages are kept, dropping those farthest from the last
+ * requested one, so memory is bounded by the window and not by the library.
+ * <p>
+ * {@link #reload()} keeps showing the loaded pages until their rows have been read again. The model can also
+ * show a fixed list of songs instead, like the duplicates found in the library. All methods must be called on
+ * the EDT.
+ */
+public final class PagedSongTableModel extends AbstractTableModel {
+
+    public static final int DEFAULT_PAGE_SIZE = 200;
+    public static final int DEFAULT_MAX_PAGES = 12;
+
+    private static final String[] COLUMNS = {"ID", "Title", "Artist", "Album", "Duration"};
+    private static final String LOADING = "Loading…";
+
+    private final DiscographyService discographyService;
+    private final BackgroundTasks backgroundTasks;
+    private final String channel;
+    private final int pageSize;
+    private final int maxPages;
+
+    private SongOrder order = SongOrder.TITLE;
+    private final Map<Integer, Page> pages = new HashMap<>();
+    private int rowCount;
+    private int generation;
+    private int lastRequestedPage;
+
+    // non-null while a fixed list is shown instead of the library
+    private List<Song> fixedSongs;
+    private String titlePrefix = "";
+
+    private record Page(int generation, List<Song> songs) {
+    }
+
+    /**
+     * @param channel prefix of the {@link BackgroundTasks} channels the count and the pages are loaded on
+     */
+    public PagedSongTableModel(DiscographyService discographyService, BackgroundTasks backgroundTasks, String channel, int pageSize, int maxPages) {
+        this.discographyService = discographyService;
+        this.backgroundTasks = backgroundTasks;
+        this.channel = channel;
+        this.pageSize = Math.max(1, pageSize);
+        this.maxPages = Math.max(3, maxPages);
+    }
+
+    public PagedSongTableModel(DiscographyService discographyService, BackgroundTasks backgroundTasks, String channel) {
+        this(discographyService, backgroundTasks, channel, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Song song = getSongAt(row);
+        if (song == null) return column == 1 ? LOADING : "";
+
+        return switch (column) {
+            case 0 -> song.id();
+            case 1 -> titlePrefix + song.title();
+            case 2 -> song.artist();
+            case 3 -> song.album();
+            default -> SongView.formatDuration(song.durationInSeconds());
+        };
+    }
+
+    /**
+     * The song shown in {@code row}, or null while its page is loading. Asks for the page if it is missing or
+     * was loaded before the last reload.
+     */
+    public Song getSongAt(int row) {
+        if (row < 0 || row >= rowCount) return null;
+        if (fixedSongs != null) return fixedSongs.get(row);
+
+        int index = row / pageSize;
+        Page page = pages.get(index);
+        if (page == null || page.generation() != generation) request(index);
+        if (page == null) return null;
+
+        int offset = row - index * pageSize;
+        return offset < page.songs().size() ? page.songs().get(offset) : null;
+    }
+
+    public SongOrder getOrder() {
+        return order;
+    }
+
+    public boolean isShowingFixedList() {
+        return fixedSongs != null;
+    }
+
+    /**
+     * Shows the whole library in the given order, starting over from the first page.
+     */
+    public void showLibrary(SongOrder order) {
+        this.order = order;
+        fixedSongs = null;
+        titlePrefix = "";
+        pages.clear();
+        reload();
+    }
+
+    /**
+     * Shows the given songs instead of the library, each title prefixed with {@code titlePrefix}.
+     */
+    public void showSongs(List<Song> songs, String titlePrefix) {
+        generation++;
+        cancelLoads();
+        pages.clear();
+
+        fixedSongs = new ArrayList<>(songs);
+        this.titlePrefix = titlePrefix;
+        rowCount = fixedSongs.size();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Reads the library again: counts the songs and marks the loaded pages as outdated, so they are read again
+     * once they are shown. A changed count resets the table, otherwise only the rows are repainted and the
+     * selection stays.
+     */
+    public void reload() {
+        if (fixedSongs != null) return;
+
+        int loadedGeneration = ++generation;
+        cancelLoads();
+
+        backgroundTasks.submit(channel + ":count", "countSongs", discographyService::countSongs, count -> {
+            if (loadedGeneration != generation) return;
+
+            if (count != rowCount) {
+                rowCount = count;
+                fireTableDataChanged();
+            } else if (rowCount > 0) {
+                fireTableRowsUpdated(0, rowCount - 1);
+            }
+        });
+    }
+
+    /**
+     * Follows song changes: the library is read again, while a fixed list updates and removes its songs in place
+     * and leaves out new ones.
+     */
+    public void applyChanges(List<LibraryEvent> events) {
+        if (fixedSongs == null) {
+            reload();
+            return;
+        }
+
+        Map<String, Integer> rows = new HashMap<>();
+        for (int row = 0; row < fixedSongs.size(); row++) rows.put(fixedSongs.get(row).id(), row);
+
+        boolean deleted = false;
+        for (LibraryEvent event : events) {
+            switch (event) {
+                case SongUpdated(Song before, Song after) -> {
+                    Integer row = rows.get(before.id());
+                    if (row != null) {
+                        fixedSongs.set(row, after);
+                        fireTableRowsUpdated(row, row);
+                    }
+                }
+                case SongDeleted(Song song) -> {
+                    Integer row = rows.get(song.id());
+                    if (row != null) {
+                        fixedSongs.set(row, null);
+                        deleted = true;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        if (deleted) {
+            for (int row = fixedSongs.size() - 1; row >= 0; row--) {
+                if (fixedSongs.get(row) == null) {
+                    fixedSongs.remove(row);
+                    rowCount--;
+                    fireTableRowsDeleted(row, row);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a task resolving the songs in the given rows, for running in the background. Loaded rows resolve to
+     * the songs shown, rows of pages that are not loaded are read in one query per run of consecutive pages.
+     */
+    public Callable<List<Song>> songsAt(int[] rows) {
+        List<Song> shown = new ArrayList<>(rows.length);
+        List<Integer> missingPages = new ArrayList<>();
+        for (int row : rows) {
+            Song song = row >= 0 && row < rowCount ? peekSongAt(row) : null;
+            shown.add(song);
+            if (song == null && row >= 0 && row < rowCount) {
+                int index = row / pageSize;
+                if (missingPages.isEmpty() || missingPages.getLast() != index) missingPages.add(index);
+            }
+        }
+        if (missingPages.isEmpty()) return () -> shown.stream().filter(Objects::nonNull).toList();
+
+        SongOrder loadOrder = order;
+        return () -> {
+            Map<Integer, Song> read = new HashMap<>();
+            int i = 0;
+            while (i < missingPages.size()) {
+                int first = missingPages.get(i);
+                int last = first;
+                while (i + 1 < missingPages.size() && missingPages.get(i + 1) == last + 1) last = missingPages.get(++i);
+                i++;
+
+                List<Song> songs = discographyService.getSongPage(loadOrder, null, first * pageSize, (last - first + 1) * pageSize);
+                for (int offset = 0; offset < songs.size(); offset++) read.put(first * pageSize + offset, songs.get(offset));
+            }
+
+            List<Song> songs = new ArrayList<>(rows.length);
+            for (int r = 0; r < rows.length; r++) {
+                Song song = shown.get(r) != null ? shown.get(r) : read.get(rows[r]);
+                if (song != null) songs.add(song);
+            }
+            return songs;
+        };
+    }
+
+    /**
+     * The song shown in {@code row} without loading anything.
+     */
+    private Song peekSongAt(int row) {
+        if (fixedSongs != null) return fixedSongs.get(row);
+
+        Page page = pages.get(row / pageSize);
+        int offset = row % pageSize;
+        return page != null && offset < page.songs().size() ? page.songs().get(offset) : null;
+    }
+
+    private void request(int index) {
+        lastRequestedPage = index;
+
+        for (int i = Math.max(0, index - 1); i <= Math.min(pageCount() - 1, index + 1); i++) {
+            Page page = pages.get(i);
+            if ((page == null || page.generation() != generation) && !backgroundTasks.isRunning(pageChannel(i))) load(i);
+        }
+    }
+
+    private void load(int index) {
+        Page previous = pages.get(index - 1);
+        Song after = previous != null && previous.generation() == generation && previous.songs().size() == pageSize ? previous.songs().getLast() : null;
+        int offset = after == null ? index * pageSize : 0;
+
+        int loadedGeneration = generation;
+        SongOrder loadOrder = order;
+
+        backgroundTasks.submit(pageChannel(index), "loadPage", () -> discographyService.getSongPage(loadOrder, after, offset, pageSize), songs -> {
+            if (loadedGeneration != generation) return;
+
+            pages.put(index, new Page(loadedGeneration, songs));
+            evictFarPages();
+
+            int first = index * pageSize;
+            if (first < rowCount) fireTableRowsUpdated(first, Math.min(rowCount, first + pageSize) - 1);
+        });
+    }
+
+    private void evictFarPages() {
+        while (pages.size() > maxPages) {
+            int farthest = lastRequestedPage;
+            for (int index : pages.keySet()) {
+                if (Math.abs(index - lastRequestedPage) > Math.abs(farthest - lastRequestedPage)) farthest = index;
+            }
+            pages.remove(farthest);
+        }
+    }
+
+    private void cancelLoads() {
+        for (int index = 0; index < pageCount(); index++) backgroundTasks.cancel(pageChannel(index));
+    }
+
+    private int pageCount() {
+        return (rowCount + pageSize - 1) / pageSize;
+    }
+
+    private String pageChannel(int index) {
+        return channel + ":page:" + index;
+    }
+}
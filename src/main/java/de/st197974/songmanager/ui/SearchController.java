@@ -0,0 +1,145 @@
+package de.st197974.songmanager.ui;
+
+import javax.swing.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs the search behind a search field while the user types.
+ * <p>
+ * Keystrokes are debounced, so a query typed in one go runs once. An {@link #indexed indexed} controller passes
+ * each query to an index such as the trigram substring index of the songs. A {@link #narrowing narrowing}
+ * controller loads the searched items in the background together with their search key, lowercased in the root
+ * locale like that index, and keeps the result of every query along the chain of queries typed so far: a query
+ * containing an earlier one only filters that earlier, smaller result instead of reading the library again, and
+ * deleting characters falls back to the longest earlier query still contained in the text. The loaded items are
+ * dropped with {@link #invalidate()} whenever the library changes.
+ */
+public final class SearchController<T> {
+
+    private final BackgroundTasks backgroundTasks;
+    private final String channel;
+    private final String type;
+    private final Callable<List<T>> source;
+    private final Function<? super T, String> searchKey;
+    private final Function<String, List<T>> index;
+
+    private final Timer debounce;
+    private Runnable pendingSearch;
+
+    // EDT-confined; the first entry holds all items under the empty query, every later query contains the one before
+    private final Deque<Result<T>> results = new ArrayDeque<>();
+    private int generation;
+
+    private record Entry<T>(T item, String key) {
+    }
+
+    private record Result<T>(String query, List<Entry<T>> entries) {
+    }
+
+    private SearchController(BackgroundTasks backgroundTasks, String channel, String type, int debounceMillis, Callable<List<T>> source, Function<? super T, String> searchKey, Function<String, List<T>> index) {
+        this.backgroundTasks = backgroundTasks;
+        this.channel = channel;
+        this.type = type;
+        this.source = source;
+        this.searchKey = searchKey;
+        this.index = index;
+
+        debounce = new Timer(Math.max(0, debounceMillis), _ -> pendingSearch.run());
+        debounce.setRepeats(false);
+    }
+
+    /**
+     * @param source    loads all searchable items in the order results are shown
+     * @param searchKey the text a query is matched against; lowercased once per item
+     */
+    public static <T> SearchController<T> narrowing(BackgroundTasks backgroundTasks, String channel, String type, int debounceMillis, Callable<List<T>> source, Function<? super T, String> searchKey) {
+        return new SearchController<>(backgroundTasks, channel, type, debounceMillis, source, searchKey, null);
+    }
+
+    /**
+     * @param index answers a query on a background thread
+     */
+    public static <T> SearchController<T> indexed(BackgroundTasks backgroundTasks, String channel, String type, int debounceMillis, Function<String, List<T>> index) {
+        return new SearchController<>(backgroundTasks, channel, type, debounceMillis, null, null, index);
+    }
+
+    /**
+     * Runs {@link #searchNow(String, Consumer)} once no further search was requested for the debounce delay.
+     */
+    public void search(String query, Consumer<? super List<T>> onResult) {
+        pendingSearch = () -> searchNow(query, onResult);
+        if (debounce.getInitialDelay() == 0) pendingSearch.run();
+        else debounce.restart();
+    }
+
+    /**
+     * Passes the items matching {@code query} to {@code onResult} on the EDT; for a narrowing controller these are
+     * all items whose search key contains the query, ignoring case. Runs on the controller's channel, so it
+     * replaces any query still in flight there.
+     */
+    public void searchNow(String query, Consumer<? super List<T>> onResult) {
+        debounce.stop();
+
+        if (index != null) {
+            backgroundTasks.submit(channel, type, () -> index.apply(query), onResult);
+            return;
+        }
+
+        String lowerQuery = query.toLowerCase(Locale.ROOT);
+        while (!results.isEmpty() && !lowerQuery.contains(results.peekLast().query())) results.removeLast();
+
+        Result<T> base = results.peekLast();
+        int loadedGeneration = generation;
+
+        backgroundTasks.submit(channel, type, () -> {
+            List<Result<T>> chain = new ArrayList<>(2);
+            Result<T> from = base != null ? base : load();
+            if (base == null) chain.add(from);
+            if (!from.query().equals(lowerQuery)) chain.add(narrow(from, lowerQuery));
+            return chain;
+        }, chain -> {
+            if (loadedGeneration == generation && results.peekLast() == base) results.addAll(chain);
+
+            List<Entry<T>> entries = chain.isEmpty() ? base.entries() : chain.getLast().entries();
+            onResult.accept(entries.stream().map(Entry::item).toList());
+        });
+    }
+
+    /**
+     * Drops a search still waiting for the debounce delay.
+     */
+    public void cancel() {
+        debounce.stop();
+    }
+
+    /**
+     * Forgets the loaded items, so the next search reads the library again.
+     */
+    public void invalidate() {
+        results.clear();
+        generation++;
+    }
+
+    private Result<T> load() throws Exception {
+        List<T> items = source.call();
+
+        List<Entry<T>> entries = new ArrayList<>(items.size());
+        for (T item : items) entries.add(new Entry<>(item, searchKey.apply(item).toLowerCase(Locale.ROOT)));
+        return new Result<>("", entries);
+    }
+
+    private static <T> Result<T> narrow(Result<T> from, String lowerQuery) {
+        List<Entry<T>> entries = new ArrayList<>();
+        for (Entry<T> entry : from.entries()) {
+            if (entry.key().contains(lowerQuery)) entries.add(entry);
+        }
+        return new Result<>(lowerQuery, entries);
+    }
+}
@@ -0,0 +1,62 @@
+package de.st197974.songmanager.ui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.function.Function;
+
+/**
+ * Renders the entries of a sidebar list, like the artists or the playlists, as one bold line with a divider.
+ * <p>
+ * One label is reused for every cell. Its font is created once, and the border and colors are looked up again
+ * only after the theme changed, so painting a cell allocates nothing beyond what {@code text} does.
+ * Extending {@link DefaultListCellRenderer} keeps its no-op overrides of {@code repaint}, {@code validate} and
+ * property change events, which cell renderers never need.
+ */
+public final class SidebarCellRenderer<T> extends DefaultListCellRenderer {
+
+    private static final Font FONT = new Font("SansSerif", Font.BOLD, 13);
+
+    private final Function<? super T, String> text;
+    private final Class<T> type;
+
+    private int themeVersion = -1;
+    private Color background;
+    private Color foreground;
+    private Color selectedBackground;
+    private Color selectedForeground;
+
+    /**
+     * @param type entries of other types, like a placeholder string, are shown with {@link String#valueOf(Object)}
+     */
+    public SidebarCellRenderer(Class<T> type, Function<? super T, String> text) {
+        this.type = type;
+        this.text = text;
+
+        setFont(FONT);
+        setOpaque(true);
+    }
+
+    @Override
+    public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+        if (themeVersion != AppTheme.version()) applyTheme();
+
+        setText(type.isInstance(value) ? text.apply(type.cast(value)) : String.valueOf(value));
+        setBackground(isSelected ? selectedBackground : background);
+        setForeground(isSelected ? selectedForeground : foreground);
+        setEnabled(list.isEnabled());
+        setComponentOrientation(list.getComponentOrientation());
+
+        return this;
+    }
+
+    private void applyTheme() {
+        themeVersion = AppTheme.version();
+
+        setBorder(CellPanel.dividerBorder(5, 15));
+
+        background = AppTheme.sidebar();
+        foreground = AppTheme.isDark() ? Color.LIGHT_GRAY : Color.DARK_GRAY;
+        selectedBackground = AppTheme.selection();
+        selectedForeground = AppTheme.isDark() ? Color.WHITE : Color.BLACK;
+    }
+}
@@ -0,0 +1,128 @@
+package de.st197974.songmanager.ui;
+
+import de.st197974.songmanager.model.Song;
+import de.st197974.songmanager.model.SongView;
+import de.st197974.songmanager.service.FavoritesService;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Renders a song of the library list as its title over artist and album, with the duration and a favorite
+ * star on the right.
+ * <p>
+ * Fonts are constants, and the border and colors are rebuilt only when the theme changes. The text is set on plain labels rather than as HTML, which
+ * Swing would parse into a new view for every cell. What a song shows besides its title, including whether it is
+ * a favorite, is kept in a least recently used cache keyed by the song, so scrolling back over songs neither
+ * formats them nor queries the favorites again. All methods must be called on the EDT.
+ */
+public final class SongCellRenderer extends CellPanel<Song> {
+
+    public static final int DEFAULT_CACHE_SIZE = 1_024;
+
+    private static final Font TITLE_FONT = new Font("SansSerif", Font.BOLD, 13);
+    private static final Font SUBTITLE_FONT = new Font("SansSerif", Font.PLAIN, 13);
+    private static final Font DURATION_FONT = new Font("Monospaced", Font.BOLD, 12);
+    private static final Color FAVORITE_COLOR = new Color(255, 153, 0);
+    private static final Color LIGHT_TITLE = new Color(0xdd, 0xdd, 0xdd);
+    private static final Color LIGHT_SUBTITLE = new Color(0xcc, 0xcc, 0xcc);
+    private static final Display EMPTY = new Display("", "", false);
+
+    private final FavoritesService favoritesService;
+    private final Song placeholder;
+
+    private final CellLabel titleLabel = new CellLabel(TITLE_FONT);
+    private final CellLabel subtitleLabel = new CellLabel(SUBTITLE_FONT);
+    private final CellLabel durationLabel = new CellLabel(DURATION_FONT);
+
+    private final Map<Song, Display> displays;
+
+    private Color background;
+    private Color selectedBackground;
+    private Color title;
+    private Color selectedTitle;
+    private Color subtitle;
+    private Color selectedSubtitle;
+    private Color duration;
+    private Color selectedDuration;
+
+    private record Display(String subtitle, String duration, boolean favorite) {
+    }
+
+    /**
+     * @param placeholder the entry shown for an empty list, rendered with its title only
+     */
+    public SongCellRenderer(FavoritesService favoritesService, Song placeholder, int cacheSize) {
+        super(new BorderLayout(15, 0));
+        this.favoritesService = favoritesService;
+        this.placeholder = placeholder;
+
+        displays = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Song, Display> eldest) {
+                return size() > cacheSize;
+            }
+        };
+
+        JPanel text = new JPanel(new GridLayout(2, 1));
+        text.setOpaque(false);
+        text.add(titleLabel);
+        text.add(subtitleLabel);
+
+        add(text, BorderLayout.CENTER);
+        add(durationLabel, BorderLayout.EAST);
+    }
+
+    public SongCellRenderer(FavoritesService favoritesService, Song placeholder) {
+        this(favoritesService, placeholder, DEFAULT_CACHE_SIZE);
+    }
+
+    @Override
+    protected void render(Song song, boolean isSelected) {
+        Display display = song == null ? EMPTY : displays.computeIfAbsent(song, this::format);
+
+        titleLabel.setText(song == null ? "" : song.title());
+        subtitleLabel.setText(display.subtitle());
+        durationLabel.setText(display.duration());
+
+        setBackground(isSelected ? selectedBackground : background);
+        titleLabel.setForeground(isSelected ? selectedTitle : title);
+        subtitleLabel.setForeground(isSelected ? selectedSubtitle : subtitle);
+        durationLabel.setForeground(display.favorite() ? FAVORITE_COLOR : isSelected ? selectedDuration : duration);
+    }
+
+    /**
+     * Forgets what is cached for a song, e.g. after it was added to or removed from the favorites.
+     */
+    public void forget(String songId) {
+        displays.keySet().removeIf(song -> song.id().equals(songId));
+    }
+
+    public void clearCache() {
+        displays.clear();
+    }
+
+    private Display format(Song song) {
+        if (song == placeholder) return EMPTY;
+
+        boolean favorite = favoritesService.isFavorite(song.id());
+        String subtitle = song.album().isEmpty() ? song.artist() : song.artist() + " • " + song.album();
+        return new Display(subtitle, (favorite ? "★ " : "") + SongView.formatDuration(song.durationInSeconds()), favorite);
+    }
+
+    @Override
+    protected void applyTheme(boolean dark) {
+        setBorder(dividerBorder(5, 15));
+
+        background = dark ? UIManager.getColor("List.background") : Color.WHITE;
+        selectedBackground = AppTheme.selection();
+        title = dark ? LIGHT_TITLE : Color.BLACK;
+        selectedTitle = dark ? Color.WHITE : Color.BLACK;
+        subtitle = Color.GRAY;
+        selectedSubtitle = dark ? LIGHT_SUBTITLE : Color.GRAY;
+        duration = dark ? Color.LIGHT_GRAY : Color.DARK_GRAY;
+        selectedDuration = dark ? Color.WHITE : Color.BLACK;
+    }
+}
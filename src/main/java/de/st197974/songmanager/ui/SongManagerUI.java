@@ -1,7 +1,9 @@
 package de.st197974.songmanager.ui;
 
+import de.st197974.songmanager.event.*;
 import de.st197974.songmanager.model.Playlist;
 import de.st197974.songmanager.model.Song;
+import de.st197974.songmanager.model.SongView;
 import de.st197974.songmanager.service.*;
 import de.st197974.songmanager.ui.panels.MultiEditPanel;
 import de.st197974.songmanager.ui.panels.FavoritesPanel;
@@ -17,6 +19,7 @@ import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.text.AttributeSet;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.PlainDocument;
@@ -24,12 +27,17 @@ import java.awt.*;
 import java.awt.event.*;
 import java.io.File;
 import java.net.URL;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -43,6 +51,20 @@ public class SongManagerUI extends JFrame {
 
     private final Font MAIN_FONT = new Font("SansSerif", Font.PLAIN, 13);
 
+    /**
+     * Event batches larger than this are not applied one by one; the tabs are reloaded instead.
+     */
+    private static final int BULK_EVENT_THRESHOLD = 256;
+
+    /**
+     * How long the search fields wait after a keystroke before searching.
+     */
+    public static final int DEFAULT_SEARCH_DEBOUNCE_MILLIS = 150;
+
+    private static final Comparator<Song> BY_TITLE = Comparator.comparing(Song::title, String.CASE_INSENSITIVE_ORDER);
+    private static final Comparator<Song> BY_ALBUM = Comparator.comparing(Song::album, String.CASE_INSENSITIVE_ORDER).thenComparing(BY_TITLE);
+    private static final Comparator<Song> BY_DURATION = Comparator.comparingInt(Song::durationInSeconds);
+
     private ImageIcon appIcon;
 
     private ImageIcon loadAppicon() {
@@ -60,9 +82,24 @@ public class SongManagerUI extends JFrame {
     private final FavoritesService favoritesService;
     private final StatsService statsService;
     private final ArtistService artistService;
+    private final SnapshotService snapshotService;
+    private final BackgroundTasks backgroundTasks;
 
     private final DefaultListModel<String> artistModel = new DefaultListModel<>();
     private final DefaultListModel<Song> songModel = new DefaultListModel<>();
+    private Comparator<Song> songOrder = BY_TITLE;
+
+    private Runnable artistListQuery = () -> loadArtists(null);
+    private Runnable songListQuery = () -> loadSongs(null);
+    private Song songToSelect;
+    // artists that may have lost their last song, see removeUnusedArtists
+    private final Set<String> artistsToCheck = new HashSet<>();
+
+    private final SearchController<String> artistSearch;
+    private final SearchController<Song> songSearch;
+
+    private final BitSet staleTabs = new BitSet();
+    private final Timer staleTabReload = new Timer(250, _ -> refreshTabData());
 
     private JTabbedPane tabbedPane;
     private PlaylistPanel playlistPanel;
@@ -82,17 +119,25 @@ public class SongManagerUI extends JFrame {
     private final JLabel statusBar = new JLabel("Ready...");
     private JList<String> artistList;
     private JList<Song> songList;
+    private SongCellRenderer songRenderer;
     private JTextField songSearchField;
     private JTextField artistSearchField;
     private JToggleButton darkModeToggle;
 
-    public SongManagerUI(DiscographyService discographyService, PlaylistService playlistService, FavoritesService favoritesService, StatsService statsService, ArtistService artistService) {
+    public SongManagerUI(DiscographyService discographyService, PlaylistService playlistService, FavoritesService favoritesService, StatsService statsService, ArtistService artistService, SnapshotService snapshotService, LibraryEventBus eventBus, BackgroundTasks backgroundTasks, int searchDebounceMillis) {
 
         this.discographyService = discographyService;
         this.playlistService = playlistService;
         this.favoritesService = favoritesService;
         this.statsService = statsService;
         this.artistService = artistService;
+        this.snapshotService = snapshotService;
+        this.backgroundTasks = backgroundTasks;
+
+        artistSearch = SearchController.narrowing(backgroundTasks, "artists", "filterArtists", searchDebounceMillis,
+                () -> discographyService.getAllArtists().stream().sorted(String.CASE_INSENSITIVE_ORDER).toList(), artist -> artist);
+        songSearch = SearchController.indexed(backgroundTasks, "songs", "filterSongs", searchDebounceMillis,
+                query -> discographyService.searchSubstring(query).stream().sorted(BY_TITLE).toList());
 
         setTitle("Music Master");
         setSize(1200, 800);
@@ -105,12 +150,14 @@ public class SongManagerUI extends JFrame {
 
         setLayout(new BorderLayout());
 
+        staleTabReload.setRepeats(false);
+        eventBus.subscribe(new LibraryEventBatcher(this::applyLibraryEvents));
+
         buildCenter();
         buildBottom();
 
         updateUIColors();
 
-        loadArtists(null);
         setVisible(true);
     }
 
@@ -123,16 +170,17 @@ public class SongManagerUI extends JFrame {
 
         artistList.setFixedCellHeight(30);
         artistList.setBorder(new EmptyBorder(5, 5, 5, 5));
-        artistList.setCellRenderer(createArtistRenderer());
+        artistList.setCellRenderer(new SidebarCellRenderer<>(String.class, artist -> artist));
 
         songList = new JList<>(songModel);
         songList.setFixedCellHeight(50);
-        songList.setCellRenderer(createModernSongRenderer());
+        songRenderer = new SongCellRenderer(favoritesService, EMPTY_SONG_PLACEHOLDER);
+        songList.setCellRenderer(songRenderer);
 
-        playlistPanel = new PlaylistPanel(discographyService.repository(), playlistService);
-        favoritesPanel = new FavoritesPanel(favoritesService);
-        multiEditPanel = new MultiEditPanel(discographyService, favoritesService, this);
-        statsPanel = new StatsPanel(statsService);
+        playlistPanel = new PlaylistPanel(discographyService.repository(), playlistService, backgroundTasks);
+        favoritesPanel = new FavoritesPanel(favoritesService, backgroundTasks);
+        multiEditPanel = new MultiEditPanel(discographyService, favoritesService, this, backgroundTasks);
+        statsPanel = new StatsPanel(statsService, backgroundTasks);
 
         JPanel topBar = new JPanel(new BorderLayout());
         topBar.setOpaque(false);
@@ -173,6 +221,8 @@ public class SongManagerUI extends JFrame {
         importButtonPanel.setOpaque(false);
         importButtonPanel.add(createSortButton("Import", _ -> importSongsFromFile()));
         importButtonPanel.add(createSortButton("Export", _ -> exportSongsToFile()));
+        importButtonPanel.add(createSortButton("Backup", _ -> backupLibrary()));
+        importButtonPanel.add(createSortButton("Restore", _ -> restoreLibrary()));
 
         statusBar.setFont(new Font("SansSerif", Font.PLAIN, 14));
         statusBar.setBorder(new EmptyBorder(0, 60, 0, 0));
@@ -196,6 +246,7 @@ public class SongManagerUI extends JFrame {
         addStyledTab("  Playlists  ", playlistPanel);
         addStyledTab("  Multi Edit  ", multiEditPanel);
         addStyledTab("  Statistics  ", statsPanel);
+        staleTabs.set(0, tabbedPane.getTabCount());
 
         tabbedPane.addChangeListener(_ -> refreshTabData());
 
@@ -438,98 +489,233 @@ public class SongManagerUI extends JFrame {
         return btn;
     }
 
-    private DefaultListCellRenderer createArtistRenderer() {
-        return new DefaultListCellRenderer() {
-            @Override
-            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
-                JLabel label = (JLabel) super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+    /**
+     * Loads the selected tab if it has not been loaded yet or was marked stale by a bulk change.
+     * Every other change reaches the tabs as events, so switching tabs does not query the database.
+     */
+    private void refreshTabData() {
+        int idx = tabbedPane.getSelectedIndex();
+        statusBar.setVisible(idx == 0);
+        if (idx < 0 || !staleTabs.get(idx)) return;
 
-                Color dividerColor = UIManager.getColor("App.dividerColor");
+        staleTabs.clear(idx);
+        switch (idx) {
+            case 0 -> reloadLibrary(artistList.getSelectedValue());
+            case 1 -> {
+                if (favoritesPanel != null) favoritesPanel.loadFavorites();
+            }
+            case 2 -> {
+                if (playlistPanel != null) playlistPanel.loadPlaylists();
+            }
+            case 3 -> {
+                if (multiEditPanel != null) multiEditPanel.loadAllSongs();
+            }
+            case 4 -> {
+                if (statsPanel != null) statsPanel.loadStatistics();
+            }
+        }
+    }
+
+    private void applyLibraryEvents(List<LibraryEvent> events) {
+        if (events.stream().anyMatch(event -> !(event instanceof PlaylistChanged || event instanceof FavoriteToggled))) {
+            artistSearch.invalidate();
+        }
+
+        if (events.size() > BULK_EVENT_THRESHOLD || events.stream().anyMatch(SongsBulkChanged.class::isInstance)) {
+            songRenderer.clearCache();
+            staleTabs.set(0, tabbedPane.getTabCount());
+            staleTabReload.restart();
+            return;
+        }
+
+        // The renderer caches favorite stars even while the library tab is stale
+        for (LibraryEvent event : events) {
+            if (event instanceof FavoriteToggled(String songId, _)) songRenderer.forget(songId);
+        }
 
-                label.setBorder(BorderFactory.createCompoundBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, dividerColor), BorderFactory.createEmptyBorder(5, 15, 5, 15)));
+        if (!staleTabs.get(0)) applyToLibrary(events);
+        if (!staleTabs.get(1)) favoritesPanel.applyChanges(events);
+        if (!staleTabs.get(2)) playlistPanel.applyChanges(events);
+        if (!staleTabs.get(3)) multiEditPanel.applyChanges(events);
 
-                if (value instanceof String artist) {
-                    label.setText(artist);
+        if (events.stream().anyMatch(event -> !(event instanceof PlaylistChanged))) {
+            staleTabs.set(4);
+            if (tabbedPane.getSelectedIndex() == 4) refreshTabData();
+        }
+    }
+
+    /**
+     * Reloads the artists; selecting one then loads its songs.
+     */
+    private void reloadLibrary(String artist) {
+        staleTabs.clear(0);
+        artistsToCheck.clear();
+        loadArtists(artist);
+    }
+
+    private void applyToLibrary(List<LibraryEvent> events) {
+        // A query still in flight may have read the library before these changes
+        if (backgroundTasks.isRunning("artists")) artistListQuery.run();
+        if (backgroundTasks.isRunning("songs")) songListQuery.run();
+
+        // Search results are capped, so a search is asked again instead of patched
+        boolean searching = !songSearchField.getText().isBlank();
+        boolean songsChanged = false;
+        boolean searchChanged = false;
+        Song selected = songList.getSelectedValue();
+
+        for (LibraryEvent event : events) {
+            switch (event) {
+                case SongAdded(Song song) -> {
+                    if (searching) searchChanged = true;
+                    else songsChanged |= addToSongList(song);
+                    addArtist(song.artist());
                 }
+                case SongUpdated(Song before, Song after) -> {
+                    if (selected != null && selected.id().equals(after.id())) selected = after;
+                    if (searching) {
+                        searchChanged = true;
+                    } else {
+                        songsChanged |= removeFromSongList(before.id());
+                        songsChanged |= addToSongList(after);
+                        if (selected == after) songList.setSelectedValue(after, false);
+                    }
 
-                if (isSelected) {
-                    label.setBackground(AppTheme.selection());
-                    label.setForeground(AppTheme.isDark() ? Color.WHITE : Color.BLACK);
-                } else {
-                    label.setBackground(AppTheme.sidebar());
-                    label.setForeground(AppTheme.isDark() ? Color.LIGHT_GRAY : Color.DARK_GRAY);
+                    addArtist(after.artist());
+                    checkArtistLater(before.artist());
+                }
+                case SongDeleted(Song song) -> {
+                    if (searching) searchChanged = true;
+                    else songsChanged |= removeFromSongList(song.id());
+                    checkArtistLater(song.artist());
+                }
+                case FavoriteToggled _ -> songList.repaint();
+                default -> {
                 }
+            }
+        }
 
-                label.setFont(new Font("SansSerif", Font.BOLD, 13));
-                label.setOpaque(true);
+        if (!artistsToCheck.isEmpty()) removeUnusedArtists();
 
-                return label;
+        if (searchChanged) {
+            if (songToSelect == null && selected != EMPTY_SONG_PLACEHOLDER) songToSelect = selected;
+            songListQuery.run();
+        }
+
+        if (songsChanged) {
+            String query = songSearchField.getText().trim();
+            List<Song> shown = new ArrayList<>();
+            for (int i = 0; i < songModel.size(); i++) {
+                if (songModel.get(i) != EMPTY_SONG_PLACEHOLDER) shown.add(songModel.get(i));
             }
-        };
+            updateStatusBar(shown, query.isEmpty() ? artistList.getSelectedValue() : "Search: '" + query + "'");
+        }
     }
 
+    private void addArtist(String artist) {
+        artistsToCheck.remove(artist);
+        if (artist == null || artist.isBlank() || artistModel.contains(artist)) return;
 
-    private DefaultListCellRenderer createModernSongRenderer() {
-        return new DefaultListCellRenderer() {
-            @Override
-            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
-                JPanel itemPanel = new JPanel(new BorderLayout(15, 0));
+        String query = artistSearchField.getText().trim().toLowerCase();
+        if (!artist.toLowerCase().contains(query)) return;
 
-                Color normalBg = AppTheme.isDark() ? UIManager.getColor("List.background") : Color.WHITE;
-                itemPanel.setBackground(isSelected ? AppTheme.selection() : normalBg);
+        if (!artistModel.isEmpty() && artistModel.getElementAt(0).startsWith(" No Result")) artistModel.clear();
 
-                itemPanel.setBorder(BorderFactory.createCompoundBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, UIManager.getColor("App.dividerColor")), BorderFactory.createEmptyBorder(5, 15, 5, 15)));
+        int index = 0;
+        while (index < artistModel.size() && String.CASE_INSENSITIVE_ORDER.compare(artistModel.get(index), artist) <= 0) index++;
+        artistModel.add(index, artist);
 
-                if (value instanceof Song song) {
-                    String titleColor = AppTheme.isDark() ? (isSelected ? "white" : "#dddddd") : "black";
-                    String subColor = AppTheme.isDark() ? (isSelected ? "#cccccc" : "gray") : "gray";
+        if (artistList.getSelectedIndex() == -1) artistList.setSelectedIndex(index);
+    }
 
-                    JLabel titleLabel = new JLabel("<html><b><font color='" + titleColor + "'>" + song.title() + "</font></b><br><font color='" + subColor + "'>" + song.artist() + (song.album().isEmpty() ? "" : " • " + song.album()) + "</font></html>");
-                    titleLabel.setFont(MAIN_FONT);
+    private void checkArtistLater(String artist) {
+        if (artist != null && artistModel.contains(artist)) artistsToCheck.add(artist);
+    }
 
-                    boolean isPlaceholder = song == EMPTY_SONG_PLACEHOLDER;
+    /**
+     * Looks up in the background which of the artists to check have no songs left and removes those from the list,
+     * unless a song of theirs arrived in the meantime. A newer check replaces a running one and covers its artists.
+     */
+    private void removeUnusedArtists() {
+        Set<String> candidates = Set.copyOf(artistsToCheck);
 
-                    boolean isFav = favoritesService.isFavorite(song.id());
-                    JLabel rightLabel = new JLabel(isPlaceholder ? "" : (isFav ? "★ " : "") + song.formatTime(song.durationInSeconds()));
-                    rightLabel.setFont(new Font("Monospaced", Font.BOLD, 12));
+        backgroundTasks.submit("unusedArtists", () -> candidates.stream().filter(artist -> discographyService.getSongsByArtist(artist).stream().noneMatch(song -> artist.equals(song.artist()))).toList(), unused -> {
+            for (String artist : unused) {
+                if (!artistsToCheck.contains(artist)) continue;
 
-                    Color timeColor = isFav ? new Color(255, 153, 0) : (isSelected ? (AppTheme.isDark() ? Color.WHITE : Color.BLACK) : (AppTheme.isDark() ? Color.LIGHT_GRAY : Color.DARK_GRAY));
+                boolean wasSelected = artist.equals(artistList.getSelectedValue());
+                artistModel.removeElement(artist);
+                if (wasSelected && !artistModel.isEmpty()) artistList.setSelectedIndex(0);
+            }
+            artistsToCheck.removeAll(candidates);
+        });
+    }
 
-                    rightLabel.setForeground(timeColor);
+    /**
+     * Whether the song list, i.e. the selected artist or the current search, shows this song.
+     */
+    private boolean belongsInSongList(Song song) {
+        String query = songSearchField.getText().trim().toLowerCase();
+        if (!query.isEmpty()) {
+            return song.title().toLowerCase().contains(query) || song.album().toLowerCase().contains(query) || song.artist().toLowerCase().contains(query);
+        }
 
-                    itemPanel.add(titleLabel, BorderLayout.CENTER);
-                    itemPanel.add(rightLabel, BorderLayout.EAST);
-                }
-                return itemPanel;
-            }
-        };
+        String artist = artistList.getSelectedValue();
+        return artist != null && artist.equalsIgnoreCase(song.artist());
     }
 
-    private void refreshTabData() {
-        int idx = tabbedPane.getSelectedIndex();
-        statusBar.setVisible(idx == 0);
-        switch (idx) {
-            case 0 -> {
-                loadArtists(artistList.getSelectedValue());
-                if (artistList.getSelectedValue() != null) {
-                    loadSongs(artistList.getSelectedValue());
-                } else {
-                    loadSongs(null);
-                }
-            }
-            case 1 -> {
-                if (favoritesPanel != null) favoritesPanel.loadFavorites();
-            }
-            case 2 -> {
-                if (playlistPanel != null) playlistPanel.loadPlaylists();
-            }
-            case 3 -> {
-                if (multiEditPanel != null) multiEditPanel.loadAllSongs();
-            }
-            case 4 -> {
-                if (statsPanel != null) statsPanel.loadStatistics();
+    private boolean addToSongList(Song song) {
+        if (!belongsInSongList(song)) return false;
+
+        songModel.removeElement(EMPTY_SONG_PLACEHOLDER);
+
+        int index = songModel.size();
+        if (songOrder != null) {
+            index = 0;
+            while (index < songModel.size() && songOrder.compare(songModel.get(index), song) <= 0) index++;
+        }
+        songModel.add(index, song);
+        return true;
+    }
+
+    private boolean removeFromSongList(String id) {
+        for (int i = 0; i < songModel.size(); i++) {
+            if (songModel.get(i).id().equals(id)) {
+                songModel.remove(i);
+                if (songModel.isEmpty() && !songSearchField.getText().isBlank()) songModel.addElement(EMPTY_SONG_PLACEHOLDER);
+                return true;
             }
         }
+        return false;
+    }
+
+    /**
+     * Selects a song that was just written. Runs after the events of the write were applied to the models.
+     */
+    private void selectInLibrary(String artist, Song song) {
+        SwingUtilities.invokeLater(() -> {
+            songToSelect = song;
+            if (staleTabs.get(0)) {
+                reloadLibrary(artist);
+            } else if (!artist.equals(artistList.getSelectedValue())) {
+                artistList.setSelectedValue(artist, true);
+            }
+            selectPendingSong();
+        });
+    }
+
+    /**
+     * Selects the song a write or navigation asked for, once the song list shows it.
+     */
+    private void selectPendingSong() {
+        if (songToSelect == null) return;
+
+        int index = songModel.indexOf(songToSelect);
+        if (index == -1) return;
+
+        songList.setSelectedIndex(index);
+        songList.ensureIndexIsVisible(index);
+        songToSelect = null;
     }
 
     private void addStyledTab(String title, JComponent panel) {
@@ -561,51 +747,96 @@ public class SongManagerUI extends JFrame {
     }
 
     private void loadArtists(String artistToSelect) {
-        String current = (artistToSelect != null) ? artistToSelect : artistList.getSelectedValue();
-        artistModel.clear();
-        discographyService.getAllArtists().forEach(artistModel::addElement);
-        if (current != null && artistModel.contains(current)) {
-            artistList.setSelectedValue(current, true);
-        } else if (!artistModel.isEmpty()) {
-            artistList.setSelectedIndex(0);
-        }
+        artistListQuery = () -> loadArtists(artistToSelect);
+
+        backgroundTasks.submit("artists", "loadArtists", discographyService::getAllArtists, artists -> {
+            String current = (artistToSelect != null) ? artistToSelect : artistList.getSelectedValue();
+            artistModel.clear();
+            artistModel.addAll(artists);
+            if (current != null && artistModel.contains(current)) {
+                artistList.setSelectedValue(current, true);
+            } else if (!artistModel.isEmpty()) {
+                artistList.setSelectedIndex(0);
+            } else {
+                loadSongs(null);
+            }
+        });
     }
 
     private void loadSongs(String artist) {
-        songModel.clear();
-        List<Song> songs = discographyService.getSongsAlphabetically(artist);
-        songs.forEach(songModel::addElement);
-        updateStatusBar(songs, artist);
+        showSongs("loadSongs", () -> discographyService.getSongsAlphabetically(artist), BY_TITLE, false, artist);
     }
 
     private void filterArtists(String query) {
-        String lowerQuery = query.toLowerCase().trim();
-        List<String> filtered = discographyService.getAllArtists().stream().filter(a -> a.toLowerCase().contains(lowerQuery)).sorted(String.CASE_INSENSITIVE_ORDER).toList();
-        artistModel.clear();
-        if (filtered.isEmpty() && !lowerQuery.isEmpty()) {
-            artistModel.addElement(" No Result for '" + query + "'!");
-        } else {
-            filtered.forEach(artistModel::addElement);
-            if (!artistModel.isEmpty()) artistList.setSelectedIndex(0);
-        }
+        artistListQuery = () -> artistSearch.searchNow(query, filtered -> showArtists(query, filtered));
+        artistSearch.search(query, filtered -> showArtists(query, filtered));
+    }
+
+    private void showArtists(String query, List<String> filtered) {
+        List<String> shown = filtered.isEmpty() && !query.isEmpty() ? List.of(" No Result for '" + query + "'!") : filtered;
+        if (!replaceContents(artistModel, shown)) return;
+
+        if (!filtered.isEmpty()) artistList.setSelectedIndex(0);
     }
 
     private void filterSongs(String query) {
-        String lowerQuery = query.toLowerCase();
-        List<Song> results;
-        if (lowerQuery.isEmpty()) {
+        if (query.isEmpty()) {
+            songSearch.cancel();
             String artist = artistList.getSelectedValue();
             if (artist == null) {
+                backgroundTasks.cancel("songs");
                 songModel.clear();
                 return;
             }
-            results = discographyService.getSongsByArtist(artist);
+            showSongs("filterSongs", () -> discographyService.getSongsByArtist(artist), null, true, artist);
+        } else {
+            String statusLabel = "Search: '" + query + "'";
+            songListQuery = () -> songSearch.searchNow(query, songs -> showSongResult(songs, BY_TITLE, true, statusLabel));
+            songSearch.search(query, songs -> showSongResult(songs, BY_TITLE, true, statusLabel));
+        }
+    }
+
+    /**
+     * Runs a song query in the background and shows its result, replacing any song query still in flight.
+     *
+     * @param order       the order of the result, used to place songs added later; null for insertion order
+     * @param placeholder whether an empty result shows the "No Songs found" entry
+     * @param statusLabel the artist or search shown in the status bar, or null to leave the status bar alone
+     */
+    private void showSongs(String type, Callable<List<Song>> query, Comparator<Song> order, boolean placeholder, String statusLabel) {
+        songListQuery = () -> showSongs(type, query, order, placeholder, statusLabel);
+
+        backgroundTasks.submit("songs", type, query, songs -> showSongResult(songs, order, placeholder, statusLabel));
+    }
+
+    private void showSongResult(List<Song> songs, Comparator<Song> order, boolean placeholder, String statusLabel) {
+        songOrder = order;
+        if (placeholder) {
+            refreshSongList(songs);
         } else {
-            results = discographyService.getAll().stream().filter(s -> s.title().toLowerCase().contains(lowerQuery) || s.album().toLowerCase().contains(lowerQuery) || s.artist().toLowerCase().contains(lowerQuery)).sorted(Comparator.comparing(Song::title, String.CASE_INSENSITIVE_ORDER)).toList();
+            replaceContents(songModel, songs);
+        }
+        if (statusLabel != null || !placeholder) updateStatusBar(songs, statusLabel);
+        selectPendingSong();
+        songToSelect = null;
+    }
+
+    /**
+     * Replaces the contents of a list model with one removal and one insertion event, or leaves the model and
+     * its selection alone if it already shows exactly these elements, as it often does while a query is narrowed.
+     *
+     * @return whether the model changed
+     */
+    private static <E> boolean replaceContents(DefaultListModel<E> model, List<E> elements) {
+        if (model.size() == elements.size()) {
+            int i = 0;
+            while (i < elements.size() && model.get(i).equals(elements.get(i))) i++;
+            if (i == elements.size()) return false;
         }
-        refreshSongList(results);
-        String statusInfo = lowerQuery.isEmpty() ? artistList.getSelectedValue() : "Search: '" + query + "'";
-        updateStatusBar(results, statusInfo);
+
+        model.clear();
+        model.addAll(elements);
+        return true;
     }
 
     private void showSongInfo() {
@@ -628,7 +859,7 @@ public class SongManagerUI extends JFrame {
         idField.setForeground(AppTheme.isDark() ? Color.WHITE : Color.BLACK);
         idField.setBackground(AppTheme.isDark() ? new Color(60, 63, 65) : Color.WHITE);
 
-        Object[] message = {"Title: " + s.title(), "Artist: " + s.artist(), "Album: " + s.album(), "Duration: " + s.formatTime(s.durationInSeconds()) + " (" + s.durationInSeconds() + "s)", "ID:", idField};
+        Object[] message = {"Title: " + s.title(), "Artist: " + s.artist(), "Album: " + s.album(), "Duration: " + SongView.formatDuration(s.durationInSeconds()) + " (" + s.durationInSeconds() + "s)", "ID:", idField};
 
         JOptionPane.showMessageDialog(this, message, "Song Info", JOptionPane.PLAIN_MESSAGE);
 
@@ -655,31 +886,26 @@ public class SongManagerUI extends JFrame {
     }
 
     private void refreshSongList(List<Song> songs) {
-        songModel.clear();
-        if (songs.isEmpty()) songModel.addElement(EMPTY_SONG_PLACEHOLDER);
-        else songs.forEach(songModel::addElement);
+        replaceContents(songModel, songs.isEmpty() ? List.of(EMPTY_SONG_PLACEHOLDER) : songs);
     }
 
     private void sortSongsByAlbum() {
         String artist = artistList.getSelectedValue();
         if (artist != null) {
-            List<Song> sortedSongs = discographyService.getSongsByArtistSortedByAlbum(artist);
-            refreshSongList(sortedSongs);
+            showSongs("sortSongs", () -> discographyService.getSongsByArtistSortedByAlbum(artist), BY_ALBUM, true, null);
         }
     }
 
     private void sortSongsByDuration() {
         String artist = artistList.getSelectedValue();
         if (artist != null) {
-            List<Song> sortedSongs = discographyService.getSongsByArtistSortedByDuration(artist);
-            refreshSongList(sortedSongs);
+            showSongs("sortSongs", () -> discographyService.getSongsByArtistSortedByDuration(artist), BY_DURATION, true, null);
         }
     }
 
     private void sortSongsAlphabetically(String artist) {
         if (artist != null) {
-            List<Song> sortedSongs = discographyService.getSongsAlphabetically(artist);
-            refreshSongList(sortedSongs);
+            showSongs("sortSongs", () -> discographyService.getSongsAlphabetically(artist), BY_TITLE, true, null);
         }
     }
 
@@ -702,8 +928,6 @@ public class SongManagerUI extends JFrame {
         }
 
         showSongForm(s);
-
-        if (currentTab == 3) multiEditPanel.loadAllSongs();
     }
 
     private void deleteSelectedSong() {
@@ -726,22 +950,10 @@ public class SongManagerUI extends JFrame {
 
         int confirm = JOptionPane.showConfirmDialog(this, "Delete '" + s.title() + "'?", "Confirm Delete", JOptionPane.YES_NO_OPTION);
         if (confirm == JOptionPane.YES_OPTION) {
-            String currentArtist = s.artist();
             discographyService.deleteSong(s.id());
 
             if (favoritesService.isFavorite(s.id())) favoritesService.removeFavorite(s.id());
 
-            if (currentTab == 0) {
-                loadArtists(null);
-                if (artistModel.contains(currentArtist)) {
-                    loadSongs(currentArtist);
-                } else {
-                    loadSongs(null);
-                }
-            } else {
-                multiEditPanel.loadAllSongs();
-            }
-
             logger.info("Deleted song {}", s.title());
         }
     }
@@ -768,7 +980,7 @@ public class SongManagerUI extends JFrame {
             titleField.setText(songToEdit.title());
             artistField.setText(songToEdit.artist());
             albumField.setText(songToEdit.album());
-            durationField.setText(songToEdit.formatTime(songToEdit.durationInSeconds()));
+            durationField.setText(SongView.formatDuration(songToEdit.durationInSeconds()));
         }
 
         JLabel errorLabel = new JLabel(" ");
@@ -815,9 +1027,7 @@ public class SongManagerUI extends JFrame {
                         if (tabbedPane != null) tabbedPane.setSelectedIndex(0);
                     }
 
-                    loadArtists(artist);
-                    loadSongs(artist);
-                    songList.setSelectedValue(updatedSong, true);
+                    selectInLibrary(artist, updatedSong);
                     logger.info("{} song: {}", isEdit ? "Updated" : "Added", title);
                     valid = true;
                 } catch (IllegalArgumentException e) {
@@ -885,9 +1095,7 @@ public class SongManagerUI extends JFrame {
                     discographyService.addSongSafely(newSong);
 
                     if (tabbedPane != null) tabbedPane.setSelectedIndex(0);
-                    loadArtists(artist);
-                    loadSongs(artist);
-                    songList.setSelectedValue(newSong, true);
+                    selectInLibrary(artist, newSong);
 
                     logger.info("Added new song '{}' to artist '{}'", title, artist);
                     valid = true;
@@ -1089,7 +1297,10 @@ public class SongManagerUI extends JFrame {
 
                     if (newName != null && !newName.isBlank() && !newName.equals(thisArtist)) {
                         artistService.renameArtist(thisArtist, newName);
-                        loadArtists(newName);
+                        SwingUtilities.invokeLater(() -> {
+                            if (staleTabs.get(0)) reloadLibrary(newName);
+                            else artistList.setSelectedValue(newName, true);
+                        });
                     }
                 });
                 popupMenu.add(editNameItem);
@@ -1115,8 +1326,6 @@ public class SongManagerUI extends JFrame {
 
                     if (confirm == JOptionPane.YES_OPTION) {
                         artistService.deleteArtist(thisArtist);
-                        loadArtists(null);
-                        loadSongs(null);
                     }
                 });
                 popupMenu.add(deleteItem);
@@ -1150,7 +1359,6 @@ public class SongManagerUI extends JFrame {
             if (selected != null) {
                 boolean added = playlistService.addSongToPlaylist(selected.id(), song.id());
                 if (added) {
-                    if (playlistPanel != null) playlistPanel.loadPlaylists();
                     statusBar.setForeground(new Color(0, 150, 0));
                     statusBar.setText("Added '" + song.title() + "' to '" + selected.name() + "'!");
                 } else {
@@ -1166,7 +1374,6 @@ public class SongManagerUI extends JFrame {
         if (added) {
             statusBar.setForeground(new Color(0, 150, 0));
             statusBar.setText("Added '" + selectedSong.title() + "' to Favorites!");
-            if (tabbedPane != null && favoritesPanel != null) favoritesPanel.loadFavorites();
         } else {
             statusBar.setForeground(new Color(150, 0, 0));
             statusBar.setText("Song '" + selectedSong.title() + "' is already in Favorites!");
@@ -1177,24 +1384,19 @@ public class SongManagerUI extends JFrame {
         statusBar.setForeground(new Color(150, 100, 0));
         statusBar.setText("Song '" + selectedSong.title() + "' was removed from Favorites");
         favoritesService.removeFavorite(selectedSong.id());
-        if (tabbedPane != null && favoritesPanel != null) favoritesPanel.loadFavorites();
     }
 
     private void duplicateSong(Song song) {
         Song newSong = new Song(song.title(), song.album(), song.artist(), song.durationInSeconds());
         discographyService.addSongSafely(newSong);
-        loadSongs(song.artist());
     }
 
     public void navigateToSong(Song song) {
         tabbedPane.setSelectedIndex(0);
 
+        songToSelect = song;
         artistList.setSelectedValue(song.artist(), true);
-
-        SwingUtilities.invokeLater(() -> {
-            songList.setSelectedValue(song, true);
-            songList.ensureIndexIsVisible(songList.getSelectedIndex());
-        });
+        selectPendingSong();
     }
 
     private void importSongsFromFile() {
@@ -1207,58 +1409,200 @@ public class SongManagerUI extends JFrame {
 
         java.io.File selectedFile = new java.io.File(dialog.getDirectory(), file);
 
-        try {
-            List<String> lines = Files.readAllLines(selectedFile.toPath());
+        JProgressBar progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        progressBar.setPreferredSize(new Dimension(320, 22));
+
+        JLabel progressLabel = new JLabel("Importing '" + selectedFile.getName() + "'...");
+        progressLabel.setFont(MAIN_FONT);
 
-            int count = discographyService.importSongsFromLines(lines);
+        AtomicBoolean cancelRequested = new AtomicBoolean();
+        JButton cancelButton = createSecondaryButton("Cancel", _ -> cancelRequested.set(true));
 
-            loadArtists(artistList.getSelectedValue());
-            loadSongs(artistList.getSelectedValue());
+        JPanel progressPanel = new JPanel(new BorderLayout(10, 10));
+        progressPanel.setBorder(new EmptyBorder(15, 15, 15, 15));
+        progressPanel.add(progressLabel, BorderLayout.NORTH);
+        progressPanel.add(progressBar, BorderLayout.CENTER);
+        progressPanel.add(cancelButton, BorderLayout.SOUTH);
 
+        JDialog progressDialog = new JDialog(this, "Import Songs", true);
+        progressDialog.setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
+        progressDialog.setContentPane(progressPanel);
+        progressDialog.pack();
+        progressDialog.setLocationRelativeTo(this);
 
-            JOptionPane.showMessageDialog(this, count + " Songs imported successfully!");
+        long started = System.nanoTime();
 
-            logger.info("Imported {} songs from file: {}", count, selectedFile.getName());
+        SwingWorker<ImportResult, Void> worker = new SwingWorker<>() {
+            @Override
+            protected ImportResult doInBackground() throws Exception {
+                return discographyService.importSongsFromFile(selectedFile.toPath(), DiscographyService.DEFAULT_IMPORT_BATCH_SIZE, (progress, position, total) -> {
+                    if (total > 0) setProgress((int) Math.min(100, position * 100 / total));
+                    SwingUtilities.invokeLater(() -> progressLabel.setText(progress.imported() + " Songs imported..."));
+                }, cancelRequested::get);
+            }
 
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error reading file: " + e.getMessage(), "Import Error", JOptionPane.ERROR_MESSAGE);
+            @Override
+            protected void done() {
+                progressDialog.dispose();
+                backgroundTasks.record("importSongs", System.nanoTime() - started);
 
-            logger.error("Import failed", e);
-        }
+                try {
+                    ImportResult result = get();
 
+                    if (cancelRequested.get()) {
+                        JOptionPane.showMessageDialog(SongManagerUI.this, "Import cancelled. " + result.imported() + " Songs were imported before cancelling.");
+                    } else if (result.skipped() == 0 && result.failed() == 0) {
+                        JOptionPane.showMessageDialog(SongManagerUI.this, result.imported() + " Songs imported successfully!");
+                    } else {
+                        JOptionPane.showMessageDialog(SongManagerUI.this, result.imported() + " Songs imported, " + result.skipped() + " skipped, " + result.failed() + " failed.");
+                    }
+
+                    logger.info("Imported {} songs from file: {}", result.imported(), selectedFile.getName());
+
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    JOptionPane.showMessageDialog(SongManagerUI.this, "Error reading file: " + cause.getMessage(), "Import Error", JOptionPane.ERROR_MESSAGE);
+
+                    logger.error("Import failed", cause);
+                }
+            }
+        };
+
+        worker.addPropertyChangeListener(evt -> {
+            if ("progress".equals(evt.getPropertyName())) progressBar.setValue((Integer) evt.getNewValue());
+        });
+
+        worker.execute();
+        progressDialog.setVisible(true);
     }
 
     public void exportSongsToFile() {
 
+        if (backgroundTasks.isRunning("exportSongs")) {
+            JOptionPane.showMessageDialog(this, "An export is already running.");
+            return;
+        }
+
         JFileChooser fileChooser = new JFileChooser();
-        fileChooser.setDialogTitle("Export Songs to Text File");
+        fileChooser.setDialogTitle("Export Songs");
+        FileNameExtensionFilter textFilter = null;
+        for (ExportFormat format : ExportFormat.values()) {
+            FileNameExtensionFilter filter = new FileNameExtensionFilter(format.description() + " (*." + format.extension() + ")", format.extension());
+            fileChooser.addChoosableFileFilter(filter);
+            if (format == ExportFormat.TEXT) textFilter = filter;
+        }
+        fileChooser.setFileFilter(textFilter);
         fileChooser.setSelectedFile(new File("MusicMaster_Export.txt"));
 
         int userSelection = fileChooser.showSaveDialog(this);
 
         if(userSelection == JFileChooser.APPROVE_OPTION) {
             File fileToSave = fileChooser.getSelectedFile();
-            ExportStatus success = discographyService.saveExportToFile(fileToSave.getAbsolutePath());
+            ExportFormat format = ExportFormat.forFileName(fileToSave.getName());
 
-            switch (success) {
-                case SUCCESS -> {
-                    statusBar.setForeground(new Color(0, 150, 0));
-                    statusBar.setText("Export successful! Check your Desktop!");
-                    JOptionPane.showMessageDialog(this, "Export Successful! Check your Directory!");
-                }
-                case EMPTY_LIST -> {
-                    statusBar.setForeground(new Color(255, 0, 0));
-                    statusBar.setText("Export failed! List Empty!");
-                    JOptionPane.showMessageDialog(this, "Export Failed! List is Empty!");
-                }
-                case IO_ERROR -> {
-                    statusBar.setForeground(new Color(255, 0, 0));
-                    statusBar.setText("Export failed! IO Error!");
-                    JOptionPane.showMessageDialog(this, "Export Failed! IO Error!");
-                }
+            if (format == null) {
+                format = fileChooser.getFileFilter() instanceof FileNameExtensionFilter filter ? ExportFormat.forFileName("." + filter.getExtensions()[0]) : ExportFormat.TEXT;
+                fileToSave = new File(fileToSave.getPath() + "." + format.extension());
             }
+
+            Path path = fileToSave.toPath();
+            ExportFormat exportFormat = format;
+
+            statusBar.setForeground(AppTheme.isDark() ? Color.LIGHT_GRAY : Color.BLACK);
+            statusBar.setText("Exporting songs to " + path.getFileName() + "...");
+
+            backgroundTasks.submit("exportSongs", () -> discographyService.saveExportToFile(path, exportFormat), result -> {
+                switch (result.status()) {
+                    case SUCCESS -> {
+                        statusBar.setForeground(new Color(0, 150, 0));
+                        statusBar.setText(String.format("Exported %,d songs to %s in %.1f s", result.rows(), path.getFileName(), result.elapsed().toMillis() / 1000.0));
+                        JOptionPane.showMessageDialog(this, "Export Successful! Check your Directory!");
+                    }
+                    case EMPTY_LIST -> {
+                        statusBar.setForeground(new Color(255, 0, 0));
+                        statusBar.setText("Export failed! List Empty!");
+                        JOptionPane.showMessageDialog(this, "Export Failed! List is Empty!");
+                    }
+                    case IO_ERROR -> {
+                        statusBar.setForeground(new Color(255, 0, 0));
+                        statusBar.setText("Export failed! IO Error!");
+                        JOptionPane.showMessageDialog(this, "Export Failed! IO Error!");
+                    }
+                }
+            });
+        }
+
+    }
+
+    public void backupLibrary() {
+        if (backgroundTasks.isRunning("snapshot")) {
+            JOptionPane.showMessageDialog(this, "A backup or restore is already running.");
+            return;
+        }
+
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Backup Library");
+        fileChooser.setFileFilter(snapshotFilter());
+        fileChooser.setSelectedFile(new File("MusicMaster_Backup." + SnapshotService.FILE_EXTENSION));
+
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+        File file = fileChooser.getSelectedFile();
+        if (!file.getName().contains(".")) file = new File(file.getPath() + "." + SnapshotService.FILE_EXTENSION);
+        Path path = file.toPath();
+
+        statusBar.setForeground(AppTheme.isDark() ? Color.LIGHT_GRAY : Color.BLACK);
+        statusBar.setText("Backing up library to " + path.getFileName() + "...");
+
+        backgroundTasks.submit("snapshot", "backupLibrary", () -> snapshotService.backup(path), result -> showSnapshotResult(result, "Backup"));
+    }
+
+    public void restoreLibrary() {
+        if (backgroundTasks.isRunning("snapshot")) {
+            JOptionPane.showMessageDialog(this, "A backup or restore is already running.");
+            return;
         }
 
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Restore Library");
+        fileChooser.setFileFilter(snapshotFilter());
+
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+        int confirm = JOptionPane.showConfirmDialog(this, "Restoring replaces all songs, playlists and favorites with the backup. Continue?", "Restore Library", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+        if (confirm != JOptionPane.YES_OPTION) return;
+
+        Path path = fileChooser.getSelectedFile().toPath();
+
+        statusBar.setForeground(AppTheme.isDark() ? Color.LIGHT_GRAY : Color.BLACK);
+        statusBar.setText("Restoring library from " + path.getFileName() + "...");
+
+        backgroundTasks.submit("snapshot", "restoreLibrary", () -> snapshotService.restore(path), result -> showSnapshotResult(result, "Restore"));
+    }
+
+    private static FileNameExtensionFilter snapshotFilter() {
+        return new FileNameExtensionFilter("Library Backup (*." + SnapshotService.FILE_EXTENSION + ")", SnapshotService.FILE_EXTENSION);
+    }
+
+    private void showSnapshotResult(SnapshotResult result, String action) {
+        if (result.status() == SnapshotResult.Status.SUCCESS) {
+            statusBar.setForeground(new Color(0, 150, 0));
+            statusBar.setText(String.format("%s successful! %,d songs, %,d playlists, %,d favorites in %.1f s", action, result.songs(), result.playlists(), result.favorites(), result.elapsed().toMillis() / 1000.0));
+            return;
+        }
+
+        String reason = switch (result.status()) {
+            case IO_ERROR -> "IO Error!";
+            case INVALID_FILE -> "Not a valid backup file!";
+            case DATABASE_ERROR -> "Database Error!";
+            case SUCCESS -> "";
+        };
+        statusBar.setForeground(new Color(255, 0, 0));
+        statusBar.setText(action + " failed! " + reason);
+        JOptionPane.showMessageDialog(this, action + " Failed! " + reason);
     }
 
 }
@@ -1,8 +1,15 @@
 package de.st197974.songmanager.ui.panels;
 
+import de.st197974.songmanager.event.FavoriteToggled;
+import de.st197974.songmanager.event.LibraryEvent;
+import de.st197974.songmanager.event.SongDeleted;
+import de.st197974.songmanager.event.SongUpdated;
 import de.st197974.songmanager.model.Song;
 import de.st197974.songmanager.service.FavoritesService;
 import de.st197974.songmanager.ui.AppTheme;
+import de.st197974.songmanager.ui.BackgroundTasks;
+import de.st197974.songmanager.ui.CellLabel;
+import de.st197974.songmanager.ui.CellPanel;
 
 import javax.swing.*;
 import javax.swing.border.CompoundBorder;
@@ -11,12 +18,20 @@ import java.awt.*;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 public class FavoritesPanel extends JPanel {
 
+    private static final Comparator<Song> BY_TITLE = Comparator.comparing(Song::title, String.CASE_INSENSITIVE_ORDER);
+    private static final Comparator<Song> BY_ARTIST = Comparator.comparing(Song::artist, String.CASE_INSENSITIVE_ORDER);
+
     private final FavoritesService favoritesService;
+    private final BackgroundTasks backgroundTasks;
     private final DefaultListModel<Song> favoriteModel = new DefaultListModel<>();
+    private Comparator<Song> order;
+    private Runnable favoritesQuery = this::loadFavorites;
     private JList<Song> favoriteList;
 
     private JLabel titleLabel;
@@ -24,14 +39,14 @@ public class FavoritesPanel extends JPanel {
     private JButton removeBtn;
     private JPanel headerPanel;
 
-    public FavoritesPanel(FavoritesService favoritesService) {
+    public FavoritesPanel(FavoritesService favoritesService, BackgroundTasks backgroundTasks) {
         this.favoritesService = favoritesService;
+        this.backgroundTasks = backgroundTasks;
 
         setLayout(new BorderLayout(20, 20));
         setBorder(new EmptyBorder(25, 25, 25, 25));
 
         buildUI();
-        loadFavorites();
 
         updateThemeColors();
     }
@@ -69,7 +84,7 @@ public class FavoritesPanel extends JPanel {
         favoriteList = new JList<>(favoriteModel);
         favoriteList.setFixedCellHeight(40);
         favoriteList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-        favoriteList.setCellRenderer(createFavoriteRenderer());
+        favoriteList.setCellRenderer(new FavoriteRenderer());
 
         JScrollPane scrollPane = new JScrollPane(favoriteList);
         scrollPane.setBorder(BorderFactory.createLineBorder(new Color(230, 230, 230)));
@@ -116,46 +131,6 @@ public class FavoritesPanel extends JPanel {
         return panel;
     }
 
-    private DefaultListCellRenderer createFavoriteRenderer() {
-        return new DefaultListCellRenderer() {
-            @Override
-            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
-                JPanel itemPanel = new JPanel(new BorderLayout(15, 0));
-
-                Color normalBg = AppTheme.isDark() ? UIManager.getColor("List.background") : Color.WHITE;
-                itemPanel.setBackground(isSelected ? AppTheme.selection() : normalBg);
-
-                Color borderColor = AppTheme.isDark() ? new Color(60, 60, 60) : new Color(220, 220, 220);
-                itemPanel.setBorder(new CompoundBorder(new MatteBorder(0, 0, 1, 0, borderColor), new EmptyBorder(5, 15, 5, 15)));
-
-                if (value instanceof Song song) {
-
-                    String titleHex = AppTheme.isDark() ? (isSelected ? "ffffff" : "dddddd") : "000000";
-                    String starColor = isSelected ? (AppTheme.isDark() ? "#FFD700" : "#FFAE00") : "#FFAE00";
-
-                    JLabel titleLabel = new JLabel("<html><span style='color: " + starColor + ";'>★</span> <b><font color='#" + titleHex + "'>" + song.title() + "</font></b></html>");
-                    titleLabel.setFont(new Font("SansSerif", Font.PLAIN, 14));
-
-                    JLabel artistLabel = new JLabel(song.artist());
-
-                    Color artistColor;
-                    if (isSelected) {
-                        artistColor = AppTheme.isDark() ? Color.LIGHT_GRAY : Color.DARK_GRAY;
-                    } else {
-                        artistColor = Color.GRAY;
-                    }
-                    artistLabel.setForeground(artistColor);
-
-                    artistLabel.setFont(new Font("SansSerif", Font.ITALIC, 12));
-
-                    itemPanel.add(titleLabel, BorderLayout.CENTER);
-                    itemPanel.add(artistLabel, BorderLayout.EAST);
-                }
-                return itemPanel;
-            }
-        };
-    }
-
     private void styleRemoveButton(JButton btn) {
         btn.setFont(new Font("SansSerif", Font.BOLD, 13));
         btn.setPreferredSize(new Dimension(200, 30));
@@ -231,10 +206,7 @@ public class FavoritesPanel extends JPanel {
     }
 
     public void loadFavorites() {
-        favoriteModel.clear();
-        List<Song> favorites = favoritesService.getAllFavorites();
-        favorites.forEach(favoriteModel::addElement);
-        if (!favoriteModel.isEmpty()) favoriteList.setSelectedIndex(0);
+        showFavorites("loadFavorites", favoritesService::getAllFavorites, null, false);
     }
 
     private void removeFavorite() {
@@ -244,7 +216,6 @@ public class FavoritesPanel extends JPanel {
 
             if (confirm == JOptionPane.YES_OPTION) {
                 favoritesService.removeFavorite(selected.id());
-                loadFavorites();
             }
         }
     }
@@ -259,20 +230,96 @@ public class FavoritesPanel extends JPanel {
     }
 
     private void sortSongsAlphabetically() {
-        Song selected = getSelectedFavorite();
-        updateModel(favoritesService.getFavoritesSortedAlphabetically());
-        if (selected != null) setSelectedFavorite(selected);
+        showFavorites("sortFavorites", favoritesService::getFavoritesSortedAlphabetically, BY_TITLE, true);
     }
 
     private void sortSongsByArtist() {
+        showFavorites("sortFavorites", favoritesService::getFavoritesSortedByArtist, BY_ARTIST, true);
+    }
+
+    private void showFavorites(String type, Callable<List<Song>> query, Comparator<Song> sortOrder, boolean keepSelection) {
+        favoritesQuery = () -> showFavorites(type, query, sortOrder, keepSelection);
+        backgroundTasks.submit("favorites", type, query, songs -> {
+            Song selected = getSelectedFavorite();
+            order = sortOrder;
+            updateModel(songs);
+            if (keepSelection && selected != null) setSelectedFavorite(selected);
+        });
+    }
+
+    /**
+     * Applies favorite and song changes to the list in place, keeping the current sort order and selection.
+     */
+    public void applyChanges(List<LibraryEvent> events) {
+        // A query still in flight may have read the favorites before these changes
+        if (backgroundTasks.isRunning("favorites")) {
+            favoritesQuery.run();
+            return;
+        }
+
         Song selected = getSelectedFavorite();
-        updateModel(favoritesService.getFavoritesSortedByArtist());
-        if (selected != null) setSelectedFavorite(selected);
+        int selectedIndex = favoriteList.getSelectedIndex();
+        boolean changed = false;
+
+        for (LibraryEvent event : events) {
+            switch (event) {
+                case FavoriteToggled(String songId, boolean favorite) -> {
+                    changed |= remove(songId);
+                    if (favorite) {
+                        Song song = favoritesService.service().getSongById(songId);
+                        if (song != null) changed |= insert(song);
+                    }
+                }
+                case SongUpdated(Song before, Song after) -> {
+                    int index = indexOf(before.id());
+                    if (index != -1 && order == null) {
+                        favoriteModel.set(index, after);
+                        changed = true;
+                    } else if (index != -1) {
+                        favoriteModel.remove(index);
+                        changed |= insert(after);
+                    }
+                }
+                case SongDeleted(Song song) -> changed |= remove(song.id());
+                default -> {
+                }
+            }
+        }
+
+        if (!changed || favoriteModel.isEmpty()) return;
+
+        int index = selected == null ? -1 : indexOf(selected.id());
+        favoriteList.setSelectedIndex(index != -1 ? index : Math.clamp(selectedIndex, 0, favoriteModel.size() - 1));
+    }
+
+    private boolean insert(Song song) {
+        int index = favoriteModel.size();
+        if (order != null) {
+            index = 0;
+            while (index < favoriteModel.size() && order.compare(favoriteModel.get(index), song) <= 0) index++;
+        }
+        favoriteModel.add(index, song);
+        return true;
+    }
+
+    private boolean remove(String songId) {
+        int index = indexOf(songId);
+        if (index == -1) return false;
+
+        favoriteModel.remove(index);
+        return true;
+    }
+
+    private int indexOf(String songId) {
+        for (int i = 0; i < favoriteModel.size(); i++) {
+            if (favoriteModel.get(i).id().equals(songId)) return i;
+        }
+        return -1;
     }
 
     private void updateModel(List<Song> sortedSongs) {
         favoriteModel.clear();
-        sortedSongs.forEach(favoriteModel::addElement);
+        favoriteModel.addAll(sortedSongs);
         if (!favoriteModel.isEmpty()) {
             favoriteList.setSelectedIndex(0);
         }
@@ -283,4 +330,68 @@ public class FavoritesPanel extends JPanel {
             super(top, left, bottom, right, matteColor);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Renders a favorite as a star and its title, with the artist on the right.
+     */
+    private static final class FavoriteRenderer extends CellPanel<Song> {
+
+        private static final Font STAR_FONT = new Font("SansSerif", Font.PLAIN, 14);
+        private static final Font TITLE_FONT = new Font("SansSerif", Font.BOLD, 14);
+        private static final Font ARTIST_FONT = new Font("SansSerif", Font.ITALIC, 12);
+        private static final Color STAR_COLOR = new Color(0xFF, 0xAE, 0x00);
+        private static final Color SELECTED_DARK_STAR_COLOR = new Color(0xFF, 0xD7, 0x00);
+        private static final Color LIGHT_TITLE = new Color(0xdd, 0xdd, 0xdd);
+
+        private final CellLabel star = new CellLabel(STAR_FONT);
+        private final CellLabel title = new CellLabel(TITLE_FONT);
+        private final CellLabel artist = new CellLabel(ARTIST_FONT);
+
+        private Color background;
+        private Color selectedBackground;
+        private Color selectedStarColor;
+        private Color titleColor;
+        private Color selectedTitleColor;
+        private Color selectedArtistColor;
+
+        FavoriteRenderer() {
+            super(new BorderLayout(15, 0));
+
+            star.setText("★");
+            JPanel starred = new JPanel(new BorderLayout(4, 0));
+            starred.setOpaque(false);
+            starred.add(star, BorderLayout.WEST);
+            starred.add(title, BorderLayout.CENTER);
+
+            add(starred, BorderLayout.CENTER);
+            add(artist, BorderLayout.EAST);
+        }
+
+        @Override
+        protected void applyTheme(boolean dark) {
+            Color borderColor = dark ? new Color(60, 60, 60) : new Color(220, 220, 220);
+            setBorder(new CompoundBorder(new MatteBorder(0, 0, 1, 0, borderColor), new EmptyBorder(5, 15, 5, 15)));
+
+            background = dark ? UIManager.getColor("List.background") : Color.WHITE;
+            selectedBackground = AppTheme.selection();
+            selectedStarColor = dark ? SELECTED_DARK_STAR_COLOR : STAR_COLOR;
+            titleColor = dark ? LIGHT_TITLE : Color.BLACK;
+            selectedTitleColor = dark ? Color.WHITE : Color.BLACK;
+            selectedArtistColor = dark ? Color.LIGHT_GRAY : Color.DARK_GRAY;
+        }
+
+        @Override
+        protected void render(Song song, boolean isSelected) {
+            setBackground(isSelected ? selectedBackground : background);
+
+            star.setVisible(song != null);
+            star.setForeground(isSelected ? selectedStarColor : STAR_COLOR);
+
+            title.setText(song == null ? "" : song.title());
+            title.setForeground(isSelected ? selectedTitleColor : titleColor);
+
+            artist.setText(song == null ? "" : song.artist());
+            artist.setForeground(isSelected ? selectedArtistColor : Color.GRAY);
+        }
+    }
+}
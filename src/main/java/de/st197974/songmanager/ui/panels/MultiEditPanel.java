@@ -1,29 +1,37 @@
 package de.st197974.songmanager.ui.panels;
 
+import de.st197974.songmanager.event.LibraryEvent;
+import de.st197974.songmanager.event.SongAdded;
+import de.st197974.songmanager.event.SongDeleted;
+import de.st197974.songmanager.event.SongUpdated;
 import de.st197974.songmanager.model.Song;
+import de.st197974.songmanager.repository.SongOrder;
 import de.st197974.songmanager.service.DiscographyService;
 import de.st197974.songmanager.service.FavoritesService;
 import de.st197974.songmanager.ui.AppTheme;
+import de.st197974.songmanager.ui.BackgroundTasks;
+import de.st197974.songmanager.ui.PagedSongTableModel;
 import de.st197974.songmanager.ui.SongManagerUI;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.table.DefaultTableModel;
-import javax.swing.table.TableRowSorter;
+import javax.swing.table.TableColumn;
 import java.awt.*;
 import java.awt.event.ActionListener;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 public class MultiEditPanel extends JPanel {
 
     private final DiscographyService discographyService;
     private final FavoritesService favoritesService;
+    private final BackgroundTasks backgroundTasks;
 
     private final SongManagerUI mainUI;
 
     private JTable songTable;
-    private DefaultTableModel tableModel;
+    private PagedSongTableModel tableModel;
     private JScrollPane scrollPane;
     private JLabel titleLabel;
 
@@ -31,9 +39,10 @@ public class MultiEditPanel extends JPanel {
 
     private final List<JButton> primaryButtons = new ArrayList<>();
 
-    public MultiEditPanel(DiscographyService discographyService, FavoritesService favoritesService, SongManagerUI mainUI) {
+    public MultiEditPanel(DiscographyService discographyService, FavoritesService favoritesService, SongManagerUI mainUI, BackgroundTasks backgroundTasks) {
         this.discographyService = discographyService;
         this.favoritesService = favoritesService;
+        this.backgroundTasks = backgroundTasks;
         this.mainUI = mainUI;
 
         setLayout(new BorderLayout(15, 15));
@@ -117,25 +126,48 @@ public class MultiEditPanel extends JPanel {
         add(headerPanel, BorderLayout.NORTH);
         add(footerPanel, BorderLayout.SOUTH);
 
-        String[] columns = {"ID", "Title", "Artist", "Album", "Duration"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        // Rows are loaded page by page, so sorting happens in the query: clicking a header reloads in its order
+        tableModel = new PagedSongTableModel(discographyService, backgroundTasks, "multiEdit");
 
         songTable = new JTable(tableModel);
         styleTableStructure();
 
-        TableRowSorter<DefaultTableModel> sorter = new TableRowSorter<>(tableModel);
-        songTable.setRowSorter(sorter);
+        songTable.getTableHeader().addMouseListener(new java.awt.event.MouseAdapter() {
+            @Override
+            public void mouseClicked(java.awt.event.MouseEvent e) {
+                SongOrder order = switch (songTable.columnAtPoint(e.getPoint())) {
+                    case 1 -> SongOrder.TITLE;
+                    case 2 -> SongOrder.ARTIST;
+                    case 4 -> SongOrder.DURATION;
+                    default -> null;
+                };
+                if (order != null && !tableModel.isShowingFixedList()) {
+                    tableModel.showLibrary(order);
+                    updateSortIndicator();
+                }
+            }
+        });
+        updateSortIndicator();
 
         scrollPane = new JScrollPane(songTable);
 
         add(scrollPane, BorderLayout.CENTER);
     }
 
+    private void updateSortIndicator() {
+        for (int column = 0; column < tableModel.getColumnCount(); column++) {
+            TableColumn tableColumn = songTable.getColumnModel().getColumn(column);
+            boolean sorted = switch (tableModel.getOrder()) {
+                case TITLE -> column == 1;
+                case ARTIST -> column == 2;
+                case DURATION -> column == 4;
+                case UNSORTED, ARTIST_ALBUM_TITLE -> false;
+            };
+            tableColumn.setHeaderValue(tableModel.getColumnName(column) + (sorted && !tableModel.isShowingFixedList() ? " ▲" : ""));
+        }
+        songTable.getTableHeader().repaint();
+    }
+
     private void styleTableStructure() {
         songTable.setRowHeight(35);
         songTable.setShowVerticalLines(false);
@@ -191,10 +223,18 @@ public class MultiEditPanel extends JPanel {
     }
 
     public void loadAllSongs() {
-        tableModel.setRowCount(0);
-        List<Song> songs = discographyService.getAll();
-        for (Song s : songs) {
-            tableModel.addRow(new Object[]{s.id(), s.title(), s.artist(), s.album(), s.formatTime(s.durationInSeconds())});
+        backgroundTasks.cancel("multiEdit");
+        tableModel.showLibrary(tableModel.getOrder());
+        updateSortIndicator();
+    }
+
+    /**
+     * Reloads the visible pages when songs change; while duplicates are shown, updates and removes their rows in
+     * place and leaves new songs out.
+     */
+    public void applyChanges(List<LibraryEvent> events) {
+        if (events.stream().anyMatch(event -> event instanceof SongAdded || event instanceof SongUpdated || event instanceof SongDeleted)) {
+            tableModel.applyChanges(events);
         }
     }
 
@@ -210,30 +250,56 @@ public class MultiEditPanel extends JPanel {
         if (newValue != null && !newValue.trim().isEmpty()) {
             String val = newValue.trim();
 
-            for (int row : selectedRows) {
-                int modelRow = songTable.convertRowIndexToModel(row);
-                String id = (String) tableModel.getValueAt(modelRow, 0);
+            // Selected rows may lie on pages that are not loaded, so they are resolved together with the writes
+            Callable<List<Song>> selectedSongs = tableModel.songsAt(selectedRows);
+            backgroundTasks.write("multiEdit" + field, () -> {
+                setField(selectedSongs.call(), field, val);
+                return null;
+            }, _ -> {
+            });
+        }
+    }
 
-                Song existing = discographyService.getSongById(id);
+    private void setField(List<Song> songs, String field, String val) {
+        for (Song song : songs) {
+            Song existing = discographyService.getSongById(song.id());
 
-                if (existing != null) {
-                    Song updated = null;
-                    if (field.equals("Artist")) {
-                        updated = new Song(existing.id(), existing.title(), existing.album(), val, existing.durationInSeconds());
-                    } else if (field.equals("Album")) {
-                        updated = new Song(existing.id(), existing.title(), val, existing.artist(), existing.durationInSeconds());
-                    }
+            if (existing != null) {
+                Song updated = null;
+                if (field.equals("Artist")) {
+                    updated = new Song(existing.id(), existing.title(), existing.album(), val, existing.durationInSeconds());
+                } else if (field.equals("Album")) {
+                    updated = new Song(existing.id(), existing.title(), val, existing.artist(), existing.durationInSeconds());
+                }
 
-                    if (updated != null) {
-                        discographyService.updateSongSafely(updated);
-                    }
+                if (updated != null) {
+                    discographyService.updateSongSafely(updated);
                 }
             }
-            loadAllSongs();
         }
     }
 
     private void highlightDuplicates() {
+        backgroundTasks.submit("multiEdit", "findDuplicates", this::findDuplicates, duplicates -> {
+            if (duplicates.isEmpty()) {
+                cleanupButton.setVisible(false);
+                revalidate();
+                JOptionPane.showMessageDialog(this, "No duplicates found! Your library is clean.");
+                return;
+            }
+
+            tableModel.showSongs(duplicates, "⚠ ");
+            updateSortIndicator();
+
+            cleanupButton.setVisible(true);
+            revalidate();
+            repaint();
+
+            JOptionPane.showMessageDialog(this, "Found " + duplicates.size() + " potential duplicates!");
+        });
+    }
+
+    private List<Song> findDuplicates() {
         List<Song> allSongs = discographyService.getAll();
 
         java.util.Map<String, java.util.List<String>> seen = new java.util.HashMap<>();
@@ -253,28 +319,20 @@ public class MultiEditPanel extends JPanel {
             }
         }
 
-        if (duplicateIds.isEmpty()) {
+        return allSongs.stream().filter(s -> duplicateIds.contains(s.id())).toList();
+    }
+
+    private void autoCleanup() {
+        backgroundTasks.write("cleanupDuplicates", this::deleteDuplicates, deletedCount -> {
             cleanupButton.setVisible(false);
+            loadAllSongs();
             revalidate();
-            JOptionPane.showMessageDialog(this, "No duplicates found! Your library is clean.");
-            return;
-        }
-
-        tableModel.setRowCount(0);
-        for (Song s : allSongs) {
-            if (duplicateIds.contains(s.id())) {
-                tableModel.addRow(new Object[]{s.id(), "⚠ " + s.title(), s.artist(), s.album(), s.formatTime(s.durationInSeconds())});
-            }
-        }
-
-        cleanupButton.setVisible(true);
-        revalidate();
-        repaint();
-
-        JOptionPane.showMessageDialog(this, "Found " + duplicateIds.size() + " potential duplicates!");
+            repaint();
+            JOptionPane.showMessageDialog(this, "Deleted " + deletedCount + " duplicates!");
+        });
     }
 
-    private void autoCleanup() {
+    private int deleteDuplicates() {
         List<Song> allSongs = discographyService.getAll();
 
         java.util.Map<String, List<Song>> groups = allSongs.stream().collect(java.util.stream.Collectors.groupingBy(s -> (s.title() + "|" + s.artist()).toLowerCase().trim()));
@@ -300,12 +358,7 @@ public class MultiEditPanel extends JPanel {
             }
         }
 
-        cleanupButton.setVisible(false);
-        loadAllSongs();
-        revalidate();
-        repaint();
-        JOptionPane.showMessageDialog(this, "Deleted " + deletedCount + " duplicates!");
-
+        return deletedCount;
     }
 
     private void setupTableContextMenu() {
@@ -315,31 +368,19 @@ public class MultiEditPanel extends JPanel {
 
         JMenuItem editSong = new JMenuItem("Edit Song");
         editSong.addActionListener(_ -> {
-            int row = songTable.getSelectedRow();
-            if (row != -1) {
-                int modelRow = songTable.convertRowIndexToModel(row);
-                String id = (String) tableModel.getValueAt(modelRow, 0);
-                Song s = discographyService.getSongById(id);
-                if (s != null) {
-                    mainUI.showSongForm(s);
-                    loadAllSongs();
-                }
+            Song s = getSelectedSongFromTable();
+            if (s != null) {
+                mainUI.showSongForm(s);
             }
         });
 
         JMenuItem deleteSong = new JMenuItem("Delete Song");
         deleteSong.addActionListener(_ -> {
-            int row = songTable.getSelectedRow();
-            if (row != -1) {
-                int modelRow = songTable.convertRowIndexToModel(row);
-                String id = (String) tableModel.getValueAt(modelRow, 0);
-                Song s = discographyService.getSongById(id);
-                if (s != null) {
-                    int confirm = JOptionPane.showConfirmDialog(this, "Delete '" + s.title() + "'?", "Confirm", JOptionPane.YES_NO_OPTION);
-                    if (confirm == JOptionPane.YES_OPTION) {
-                        discographyService.deleteSong(s.id());
-                        loadAllSongs();
-                    }
+            Song s = getSelectedSongFromTable();
+            if (s != null) {
+                int confirm = JOptionPane.showConfirmDialog(this, "Delete '" + s.title() + "'?", "Confirm", JOptionPane.YES_NO_OPTION);
+                if (confirm == JOptionPane.YES_OPTION) {
+                    discographyService.deleteSong(s.id());
                 }
             }
         });
@@ -379,27 +420,17 @@ public class MultiEditPanel extends JPanel {
     private JMenuItem getItem() {
         JMenuItem showInLibrary = new JMenuItem("Show in Library");
         showInLibrary.addActionListener(_ -> {
-            int row = songTable.getSelectedRow();
-            if (row != -1) {
-                int modelRow = songTable.convertRowIndexToModel(row);
-                String id = (String) tableModel.getValueAt(modelRow, 0);
-                Song s = discographyService.getSongById(id);
-                if (s != null) {
-                    mainUI.navigateToSong(s);
-                }
+            Song s = getSelectedSongFromTable();
+            if (s != null) {
+                mainUI.navigateToSong(s);
             }
         });
         return showInLibrary;
     }
 
     public Song getSelectedSongFromTable() {
-        int row = songTable.getSelectedRow();
-        if (row != -1) {
-            int modelRow = songTable.convertRowIndexToModel(row);
-            String id = (String) tableModel.getValueAt(modelRow, 0);
-            return discographyService.getSongById(id);
-        }
-        return null;
+        Song shown = tableModel.getSongAt(songTable.getSelectedRow());
+        return shown != null ? discographyService.getSongById(shown.id()) : null;
     }
 
     private void deleteSelectedSongs() {
@@ -413,26 +444,18 @@ public class MultiEditPanel extends JPanel {
         int confirm = JOptionPane.showConfirmDialog(this, "Delete " + selectedRows.length + " songs?", "Confirm", JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            for (int row : selectedRows) {
-
-                Song currentSong = discographyService.getSongById((String) tableModel.getValueAt(songTable.convertRowIndexToModel(row), 0));
-                boolean isFav = favoritesService.isFavorite(currentSong.id());
-
-                if (isFav) {
-                    favoritesService.removeFavorite((String) tableModel.getValueAt(songTable.convertRowIndexToModel(row), 0));
+            Callable<List<Song>> selectedSongs = tableModel.songsAt(selectedRows);
+            backgroundTasks.write("deleteSongs", () -> {
+                List<Song> songs = selectedSongs.call();
+                for (Song song : songs) {
+                    if (favoritesService.isFavorite(song.id())) {
+                        favoritesService.removeFavorite(song.id());
+                    }
+                    discographyService.deleteSong(song.id());
                 }
-
-                int modelRow = songTable.convertRowIndexToModel(row);
-                String id = (String) tableModel.getValueAt(modelRow, 0);
-
-                discographyService.deleteSong(id);
-            }
-
-            loadAllSongs();
-            JOptionPane.showMessageDialog(this, "Deleted " + selectedRows.length + " songs!");
-
+                return songs.size();
+            }, deletedCount -> JOptionPane.showMessageDialog(this, "Deleted " + deletedCount + " songs!"));
         }
-
     }
 
 }
\ No newline at end of file
@@ -1,16 +1,24 @@
 package de.st197974.songmanager.ui.panels;
 
+import de.st197974.songmanager.event.LibraryEvent;
+import de.st197974.songmanager.event.PlaylistChanged;
+import de.st197974.songmanager.event.SongDeleted;
+import de.st197974.songmanager.event.SongUpdated;
 import de.st197974.songmanager.model.Playlist;
 import de.st197974.songmanager.model.Song;
+import de.st197974.songmanager.model.SongView;
 import de.st197974.songmanager.repository.SongRepository;
 import de.st197974.songmanager.service.PlaylistService;
 import de.st197974.songmanager.ui.AppTheme;
+import de.st197974.songmanager.ui.BackgroundTasks;
+import de.st197974.songmanager.ui.CellLabel;
+import de.st197974.songmanager.ui.CellPanel;
+import de.st197974.songmanager.ui.SearchController;
+import de.st197974.songmanager.ui.SidebarCellRenderer;
 
 import javax.swing.*;
-import javax.swing.border.CompoundBorder;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
-import javax.swing.border.MatteBorder;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import java.awt.*;
@@ -20,8 +28,12 @@ import java.util.List;
 
 public class PlaylistPanel extends JPanel {
 
+    private static final int PICKER_SEARCH_LIMIT = 200;
+    private static final int PICKER_DEBOUNCE_MILLIS = 150;
+
     private final PlaylistService playlistService;
     private final SongRepository songRepository;
+    private final BackgroundTasks backgroundTasks;
 
     private final DefaultListModel<Playlist> playlistModel = new DefaultListModel<>();
     private final DefaultListModel<Song> songModel = new DefaultListModel<>();
@@ -37,13 +49,13 @@ public class PlaylistPanel extends JPanel {
 
     private final List<JButton> primaryButtons = new ArrayList<>();
 
-    public PlaylistPanel(SongRepository songRepository, PlaylistService playlistService) {
+    public PlaylistPanel(SongRepository songRepository, PlaylistService playlistService, BackgroundTasks backgroundTasks) {
         this.songRepository = songRepository;
         this.playlistService = playlistService;
+        this.backgroundTasks = backgroundTasks;
 
         setLayout(new BorderLayout());
         buildUI();
-        loadPlaylists();
 
         updateThemeColors();
     }
@@ -82,7 +94,7 @@ public class PlaylistPanel extends JPanel {
         playlistList = new JList<>(playlistModel);
         playlistList.setFixedCellHeight(30);
 
-        playlistList.setCellRenderer(createPlaylistRenderer());
+        playlistList.setCellRenderer(new SidebarCellRenderer<>(Playlist.class, Playlist::name));
 
         sidebarPanel = new JPanel(new BorderLayout());
 
@@ -111,7 +123,7 @@ public class PlaylistPanel extends JPanel {
 
         songList = new JList<>(songModel);
         songList.setFixedCellHeight(45);
-        songList.setCellRenderer(createSongRenderer());
+        songList.setCellRenderer(new SongRenderer());
 
         mainPanel = new JPanel(new BorderLayout());
 
@@ -150,72 +162,6 @@ public class PlaylistPanel extends JPanel {
         });
     }
 
-    private DefaultListCellRenderer createPlaylistRenderer() {
-        return new DefaultListCellRenderer() {
-            @Override
-            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
-                JLabel label = (JLabel) super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
-
-                Color dividerColor = UIManager.getColor("App.dividerColor");
-
-                label.setBorder(new CompoundBorder(new MatteBorder(0, 0, 1, 0, dividerColor), new EmptyBorder(5, 15, 5, 15)));
-
-                if (value instanceof Playlist p) {
-                    label.setText(p.name());
-                }
-
-                if (isSelected) {
-                    label.setBackground(AppTheme.selection());
-                    label.setForeground(AppTheme.isDark() ? Color.WHITE : Color.BLACK);
-                } else {
-                    label.setBackground(AppTheme.sidebar());
-                    label.setForeground(AppTheme.isDark() ? Color.LIGHT_GRAY : Color.DARK_GRAY);
-                }
-
-                label.setFont(new Font("SansSerif", Font.BOLD, 13));
-                label.setOpaque(true);
-
-                return label;
-            }
-        };
-    }
-
-    private DefaultListCellRenderer createSongRenderer() {
-        return new DefaultListCellRenderer() {
-            @Override
-            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
-                JPanel p = new JPanel(new BorderLayout());
-
-                Color dividerColor = UIManager.getColor("App.dividerColor");
-
-                Color normalBg = AppTheme.isDark() ? UIManager.getColor("List.background") : Color.WHITE;
-                p.setBackground(isSelected ? AppTheme.selection() : normalBg);
-
-                p.setBorder(new CompoundBorder(new MatteBorder(0, 0, 1, 0, dividerColor), new EmptyBorder(5, 20, 5, 20)));
-
-                if (value instanceof Song s) {
-                    JLabel title = new JLabel(s.title());
-                    title.setFont(new Font("SansSerif", Font.BOLD, 13));
-
-                    String titleHex = AppTheme.isDark() ? (isSelected ? "ffffff" : "dddddd") : "000000";
-                    title.setForeground(AppTheme.isDark() ? (isSelected ? Color.WHITE : new Color(220, 220, 220)) : Color.BLACK);
-
-                    JLabel info = new JLabel(s.artist() + " • " + s.formatTime(s.durationInSeconds()));
-
-                    Color infoColor;
-                    if (isSelected) infoColor = AppTheme.isDark() ? Color.LIGHT_GRAY : Color.DARK_GRAY;
-                    else infoColor = Color.GRAY;
-
-                    info.setForeground(infoColor);
-
-                    p.add(title, BorderLayout.WEST);
-                    p.add(info, BorderLayout.EAST);
-                }
-                return p;
-            }
-        };
-    }
-
     private JButton createPrimaryButton(String text, ActionListener listener) {
         JButton btn = new JButton(text);
         btn.addActionListener(listener);
@@ -255,18 +201,31 @@ public class PlaylistPanel extends JPanel {
     }
 
     public void loadPlaylists() {
-        playlistModel.clear();
-        playlistService.getAllPlaylists().forEach(playlistModel::addElement);
-        if (!playlistModel.isEmpty() && playlistList.getSelectedIndex() == -1) {
-            playlistList.setSelectedIndex(0);
-        }
+        backgroundTasks.submit("playlists", "loadPlaylists", playlistService::getAllPlaylists, playlists -> {
+            Playlist selected = playlistList.getSelectedValue();
+            playlistModel.clear();
+            playlistModel.addAll(playlists);
+
+            int index = selected == null ? -1 : indexOfPlaylist(selected.id());
+            if (index != -1) {
+                playlistList.setSelectedIndex(index);
+            } else if (!playlistModel.isEmpty()) {
+                playlistList.setSelectedIndex(0);
+            }
+        });
     }
 
     private void loadSongs(Playlist playlist) {
-        songModel.clear();
-        if (playlist != null) {
-            playlistService.getSongsOfPlaylist(playlist.id()).forEach(songModel::addElement);
+        if (playlist == null) {
+            backgroundTasks.cancel("playlistSongs");
+            songModel.clear();
+            return;
         }
+
+        backgroundTasks.submit("playlistSongs", "loadPlaylistSongs", () -> playlistService.getSongsOfPlaylist(playlist.id()), songs -> {
+            songModel.clear();
+            songModel.addAll(songs);
+        });
     }
 
     private void createPlaylist() {
@@ -274,7 +233,6 @@ public class PlaylistPanel extends JPanel {
         if (name != null && !name.trim().isEmpty()) {
             Playlist p = new Playlist(name.trim());
             playlistService.addPlaylistSafely(p);
-            loadPlaylists();
         }
     }
 
@@ -285,7 +243,6 @@ public class PlaylistPanel extends JPanel {
         String newName = JOptionPane.showInputDialog(this, "Rename '" + selected.name() + "' to:", selected.name());
         if (newName != null && !newName.trim().isEmpty()) {
             playlistService.updatePlaylistSafely(new Playlist(selected.id(), newName.trim()));
-            loadPlaylists();
         }
     }
 
@@ -295,11 +252,6 @@ public class PlaylistPanel extends JPanel {
             int confirm = JOptionPane.showConfirmDialog(this, "Delete playlist '" + selected.name() + "'?", "Confirm", JOptionPane.YES_NO_OPTION);
             if (confirm == JOptionPane.YES_OPTION) {
                 playlistService.deletePlaylist(selected.id());
-
-                songModel.clear();
-                mainTitle.setText("No playlist selected...");
-
-                loadPlaylists();
             }
         }
     }
@@ -311,10 +263,10 @@ public class PlaylistPanel extends JPanel {
             return;
         }
 
-        List<Song> allSongs = songRepository.findAll();
+        SearchController<Song> search = SearchController.indexed(backgroundTasks, "songPicker", "searchSongPicker", PICKER_DEBOUNCE_MILLIS,
+                query -> songRepository.search(query, PICKER_SEARCH_LIMIT));
         JTextField searchField = new JTextField();
         DefaultListModel<Song> pickerModel = new DefaultListModel<>();
-        allSongs.forEach(pickerModel::addElement);
         JList<Song> pickerList = new JList<>(pickerModel);
 
         searchField.getDocument().addDocumentListener(new DocumentListener() {
@@ -331,23 +283,37 @@ public class PlaylistPanel extends JPanel {
             }
 
             private void filter() {
-                String q = searchField.getText().toLowerCase().trim();
-                pickerModel.clear();
-                allSongs.stream().filter(s -> s.title().toLowerCase().contains(q) || s.artist().toLowerCase().contains(q)).forEach(pickerModel::addElement);
+                String q = searchField.getText().trim();
+                if (q.isEmpty()) {
+                    search.cancel();
+                    backgroundTasks.cancel("songPicker");
+                    pickerModel.clear();
+                    return;
+                }
+                search.search(q, songs -> {
+                    pickerModel.clear();
+                    pickerModel.addAll(songs);
+                });
             }
         });
 
+        JPanel searchPanel = new JPanel(new BorderLayout(0, 3));
+        searchPanel.add(new JLabel("Search by title, artist or album:"), BorderLayout.NORTH);
+        searchPanel.add(searchField, BorderLayout.CENTER);
+
         JPanel panel = new JPanel(new BorderLayout(5, 5));
-        panel.add(searchField, BorderLayout.NORTH);
+        panel.add(searchPanel, BorderLayout.NORTH);
         panel.add(new JScrollPane(pickerList), BorderLayout.CENTER);
         panel.setPreferredSize(new Dimension(300, 350));
 
-        if (JOptionPane.showConfirmDialog(this, panel, "Add Song", JOptionPane.OK_CANCEL_OPTION) == JOptionPane.OK_OPTION) {
+        int option = JOptionPane.showConfirmDialog(this, panel, "Add Song", JOptionPane.OK_CANCEL_OPTION);
+        search.cancel();
+        backgroundTasks.cancel("songPicker");
+
+        if (option == JOptionPane.OK_OPTION) {
             Song chosen = pickerList.getSelectedValue();
             if (chosen != null) {
-                if (playlistService.addSongToPlaylist(selectedPlaylist.id(), chosen.id())) {
-                    loadSongs(selectedPlaylist);
-                } else {
+                if (!playlistService.addSongToPlaylist(selectedPlaylist.id(), chosen.id())) {
                     JOptionPane.showMessageDialog(this, "Song already in playlist.");
                 }
             }
@@ -368,12 +334,132 @@ public class PlaylistPanel extends JPanel {
 
             if (confirm == JOptionPane.YES_OPTION) {
                 playlistService.removeSongFromPlaylist(selectedPlaylist.id(), selectedSong.id());
-                loadSongs(selectedPlaylist);
             }
         }
     }
 
+    /**
+     * Applies playlist and song changes to the playlist list and to the songs of the selected playlist.
+     */
+    public void applyChanges(List<LibraryEvent> events) {
+        // A query still in flight may have read the playlists before these changes
+        if (backgroundTasks.isRunning("playlists")) loadPlaylists();
+        if (backgroundTasks.isRunning("playlistSongs")) loadSongs(playlistList.getSelectedValue());
+
+        for (LibraryEvent event : events) {
+            switch (event) {
+                case PlaylistChanged(Playlist playlist, PlaylistChanged.Change change, String songId) -> applyPlaylistChange(playlist, change, songId);
+                case SongUpdated(Song before, Song after) -> {
+                    int index = indexOfSong(before.id());
+                    if (index != -1) songModel.set(index, after);
+                }
+                case SongDeleted(Song song) -> {
+                    int index = indexOfSong(song.id());
+                    if (index != -1) songModel.remove(index);
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    private void applyPlaylistChange(Playlist playlist, PlaylistChanged.Change change, String songId) {
+        Playlist selected = playlistList.getSelectedValue();
+        boolean isSelected = selected != null && selected.id().equals(playlist.id());
+        int index = indexOfPlaylist(playlist.id());
+
+        switch (change) {
+            case CREATED -> {
+                if (index == -1) playlistModel.addElement(playlist);
+            }
+            case RENAMED -> {
+                if (index != -1) playlistModel.set(index, playlist);
+                if (isSelected) mainTitle.setText("Playlist: " + playlist.name());
+            }
+            case DELETED -> {
+                if (index != -1) playlistModel.remove(index);
+                if (isSelected) {
+                    songModel.clear();
+                    mainTitle.setText("No playlist selected...");
+                }
+            }
+            case SONG_ADDED -> {
+                Song song = isSelected && indexOfSong(songId) == -1 ? songRepository.findByID(songId) : null;
+                if (song != null) songModel.addElement(song);
+            }
+            case SONG_REMOVED -> {
+                int songIndex = isSelected ? indexOfSong(songId) : -1;
+                if (songIndex != -1) songModel.remove(songIndex);
+            }
+        }
+
+        if (!playlistModel.isEmpty() && playlistList.getSelectedIndex() == -1) {
+            playlistList.setSelectedIndex(0);
+        }
+    }
+
+    private int indexOfPlaylist(String id) {
+        for (int i = 0; i < playlistModel.size(); i++) {
+            if (playlistModel.get(i).id().equals(id)) return i;
+        }
+        return -1;
+    }
+
+    private int indexOfSong(String id) {
+        for (int i = 0; i < songModel.size(); i++) {
+            if (songModel.get(i).id().equals(id)) return i;
+        }
+        return -1;
+    }
+
     public Song getSelectedSong() {
         return songList.getSelectedValue();
     }
-}
\ No newline at end of file
+
+    /**
+     * Renders a playlist song as its title, with artist and duration on the right.
+     */
+    private static final class SongRenderer extends CellPanel<Song> {
+
+        private static final Font TITLE_FONT = new Font("SansSerif", Font.BOLD, 13);
+        private static final Font INFO_FONT = new Font("SansSerif", Font.PLAIN, 13);
+        private static final Color LIGHT_TITLE = new Color(220, 220, 220);
+
+        private final CellLabel title = new CellLabel(TITLE_FONT);
+        private final CellLabel info = new CellLabel(INFO_FONT);
+
+        private Color background;
+        private Color selectedBackground;
+        private Color titleColor;
+        private Color selectedTitleColor;
+        private Color selectedInfoColor;
+
+        SongRenderer() {
+            super(new BorderLayout());
+            add(title, BorderLayout.WEST);
+            add(info, BorderLayout.EAST);
+        }
+
+        @Override
+        protected void applyTheme(boolean dark) {
+            setBorder(dividerBorder(5, 20));
+
+            background = dark ? UIManager.getColor("List.background") : Color.WHITE;
+            selectedBackground = AppTheme.selection();
+            titleColor = dark ? LIGHT_TITLE : Color.BLACK;
+            selectedTitleColor = dark ? Color.WHITE : Color.BLACK;
+            selectedInfoColor = dark ? Color.LIGHT_GRAY : Color.DARK_GRAY;
+        }
+
+        @Override
+        protected void render(Song s, boolean isSelected) {
+            setBackground(isSelected ? selectedBackground : background);
+
+            title.setText(s == null ? "" : s.title());
+            title.setForeground(isSelected ? selectedTitleColor : titleColor);
+
+            info.setText(s == null ? "" : s.artist() + " • " + SongView.formatDuration(s.durationInSeconds()));
+            info.setForeground(isSelected ? selectedInfoColor : Color.GRAY);
+        }
+    }
+}
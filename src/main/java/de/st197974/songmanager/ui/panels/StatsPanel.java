@@ -1,7 +1,9 @@
 package de.st197974.songmanager.ui.panels;
 
+import de.st197974.songmanager.model.LibraryStats;
 import de.st197974.songmanager.service.StatsService;
 import de.st197974.songmanager.ui.AppTheme;
+import de.st197974.songmanager.ui.BackgroundTasks;
 
 import javax.swing.*;
 import javax.swing.border.CompoundBorder;
@@ -12,14 +14,16 @@ import java.util.Map;
 public class StatsPanel extends JPanel {
 
     private final StatsService service;
+    private final BackgroundTasks backgroundTasks;
 
     private JPanel cardsPanel;
     private JPanel artistListPanel;
     private JScrollPane scrollPane;
     private JLabel listHeader;
 
-    public StatsPanel(StatsService service) {
+    public StatsPanel(StatsService service, BackgroundTasks backgroundTasks) {
         this.service = service;
+        this.backgroundTasks = backgroundTasks;
 
         setLayout(new BorderLayout(20, 20));
         setBorder(new EmptyBorder(25, 25, 25, 25));
@@ -81,25 +85,29 @@ public class StatsPanel extends JPanel {
     public void loadStatistics() {
         if (cardsPanel == null || artistListPanel == null) return;
 
+        backgroundTasks.submit("stats", "loadStatistics", service::getSnapshot, this::showStatistics);
+    }
+
+    private void showStatistics(LibraryStats stats) {
         cardsPanel.removeAll();
         artistListPanel.removeAll();
 
         Color contentBg = AppTheme.isDark() ? UIManager.getColor("Panel.background") : Color.WHITE;
         artistListPanel.setBackground(contentBg);
 
-        int total = service.getTotalSongs();
-        String duration = formatTime(service.getTotalDuration());
-        String avg = formatTime(service.getAverageDuration());
+        int total = stats.totalSongs();
+        String duration = formatTime(stats.totalDuration());
+        String avg = formatTime(stats.averageDuration());
 
         cardsPanel.add(createStatCard("Total Songs", String.valueOf(total)));
         cardsPanel.add(createStatCard("Total Duration", duration));
         cardsPanel.add(createStatCard("Ø Duration", avg));
 
-        int totalFavorites = service.getTotalFavorites();
-        int favoritePercentage = total > 0 ? (int) ((totalFavorites * 100) / total) : 0;
+        int totalFavorites = stats.totalFavorites();
+        int favoritePercentage = total > 0 ? (totalFavorites * 100) / total : 0;
         cardsPanel.add(createStatCard("Favorites", favoritePercentage + "% (" + totalFavorites + ")"));
 
-        service.getSongsPerArtist().entrySet().stream().sorted(Map.Entry.<String, Long>comparingByValue().reversed()).forEach(entry -> {
+        stats.songsPerArtist().entrySet().stream().sorted(Map.Entry.<String, Long>comparingByValue().reversed()).forEach(entry -> {
             artistListPanel.add(createArtistRow(entry.getKey(), entry.getValue(), total));
         });
 
@@ -163,11 +171,11 @@ public class StatsPanel extends JPanel {
         return row;
     }
 
-    private String formatTime(int totalSeconds) {
-        int days = totalSeconds / 86400;
-        int hours = (totalSeconds % 86400) / 3600;
-        int minutes = (totalSeconds % 3600) / 60;
-        int seconds = totalSeconds % 60;
+    private String formatTime(long totalSeconds) {
+        long days = totalSeconds / 86400;
+        long hours = (totalSeconds % 86400) / 3600;
+        long minutes = (totalSeconds % 3600) / 60;
+        long seconds = totalSeconds % 60;
 
         StringBuilder sb = new StringBuilder();
         if (days > 0) sb.append(days).append("d ");
@@ -0,0 +1,87 @@
+package de.st197974.songmanager.repository;
+
+import de.st197974.songmanager.model.Song;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachingFavoritesRepositoryTest {
+
+    /**
+     * Lists the given favorites; the first {@code failures} listings break off after one id and report a failure.
+     */
+    private static final class StubRepository implements FavoritesRepository {
+
+        private final List<String> favorites;
+        private int failures;
+        private int listings;
+
+        StubRepository(List<String> favorites, int failures) {
+            this.favorites = favorites;
+            this.failures = failures;
+        }
+
+        @Override
+        public boolean forEachFavoriteId(Consumer<? super String> action) {
+            listings++;
+            if (failures > 0) {
+                failures--;
+                action.accept("partial");
+                return false;
+            }
+            favorites.forEach(action);
+            return true;
+        }
+
+        @Override
+        public List<String> getAllFavoriteIds() {
+            List<String> ids = new ArrayList<>();
+            forEachFavoriteId(ids::add);
+            return ids;
+        }
+
+        @Override
+        public boolean isFavorite(String songId) {
+            return favorites.contains(songId);
+        }
+
+        @Override
+        public void addFavorite(String songId) {
+        }
+
+        @Override
+        public void removeFavorite(String songId) {
+        }
+
+        @Override
+        public List<Song> findFavoriteSongs(SongOrder order) {
+            return List.of();
+        }
+    }
+
+    @Test
+    void failedLoadIsRetriedOnTheNextCheck() {
+        StubRepository delegate = new StubRepository(List.of("song-1"), 1);
+        CachingFavoritesRepository cache = new CachingFavoritesRepository(delegate);
+
+        assertFalse(cache.isFavorite("song-1"));
+        assertTrue(cache.isFavorite("song-1"));
+        assertFalse(cache.isFavorite("partial"));
+        assertEquals(2, delegate.listings);
+    }
+
+    @Test
+    void noFavoritesAreLoadedOnce() {
+        StubRepository delegate = new StubRepository(List.of(), 0);
+        CachingFavoritesRepository cache = new CachingFavoritesRepository(delegate);
+
+        for (int i = 0; i < 10; i++) assertFalse(cache.isFavorite("song-" + i));
+        assertEquals(1, delegate.listings);
+    }
+}
@@ -0,0 +1,74 @@
+package de.st197974.songmanager.repository;
+
+import de.st197974.songmanager.model.Song;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CachingSongRepositoryTest {
+
+    @TempDir
+    Path dir;
+
+    private SQLiteConnectionPool pool;
+    private SQLiteSongRepository database;
+    private CachingSongRepository cache;
+
+    @BeforeEach
+    void openRepositories() {
+        pool = new SQLiteConnectionPool(dir.resolve("test.db").toString(), 2);
+        new SchemaMigrator(pool).migrate();
+        database = new SQLiteSongRepository(pool);
+        cache = new CachingSongRepository(database);
+    }
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    @Test
+    void lookupsKeepTheOrderOfTheDatabase() {
+        List<Song> songs = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            String artist = i % 2 == 0 ? "The Band" : "THE BAND";
+            songs.add(new Song("Song " + i, i % 3 == 0 ? "First" : "second", artist, 100 + i));
+        }
+        cache.saveAll(songs);
+        cache.findAll();
+
+        // replacing a song moves it to the end of the table
+        Song replaced = songs.get(3);
+        cache.save(new Song(replaced.id(), "Renamed", replaced.album(), replaced.artist(), replaced.durationInSeconds()));
+        cache.save(new Song("Late", "FIRST", "the band", 300));
+
+        assertEquals(database.findAll(), cache.findAll());
+        assertEquals(database.findByArtist("the band"), cache.findByArtist("the band"));
+        assertEquals(database.findByAlbum("first"), cache.findByAlbum("first"));
+        assertEquals(database.findByAlbum("Second"), cache.findByAlbum("Second"));
+    }
+
+    @Test
+    void emptyLibraryIsLoadedOnce() {
+        for (int i = 0; i < 3; i++) assertEquals(List.of(), cache.findAll());
+
+        assertEquals(1, cache.getStats().misses());
+        assertEquals(2, cache.getStats().hits());
+    }
+
+    @Test
+    void failedLoadIsRetriedOnTheNextRead() {
+        pool.close();
+
+        assertEquals(List.of(), cache.findAll());
+        assertEquals(List.of(), cache.findAll());
+        assertEquals(2, cache.getStats().misses());
+    }
+}
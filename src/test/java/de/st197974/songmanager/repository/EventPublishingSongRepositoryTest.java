@@ -0,0 +1,93 @@
+package de.st197974.songmanager.repository;
+
+import de.st197974.songmanager.event.LibraryEvent;
+import de.st197974.songmanager.event.LibraryEventBus;
+import de.st197974.songmanager.event.SongAdded;
+import de.st197974.songmanager.event.SongUpdated;
+import de.st197974.songmanager.model.Song;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EventPublishingSongRepositoryTest {
+
+    @TempDir
+    Path dir;
+
+    private SQLiteConnectionPool pool;
+    private SQLiteSongRepository database;
+    private final List<LibraryEvent> events = new ArrayList<>();
+    private EventPublishingSongRepository repository;
+
+    @BeforeEach
+    void openRepositories() {
+        pool = new SQLiteConnectionPool(dir.resolve("test.db").toString(), 2);
+        new SchemaMigrator(pool).migrate();
+        database = new SQLiteSongRepository(pool);
+
+        LibraryEventBus eventBus = new LibraryEventBus();
+        eventBus.subscribe(events::add);
+        repository = new EventPublishingSongRepository(database, eventBus);
+    }
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    @Test
+    void findByIDsMatchesTheCatalogAcrossChunks() {
+        List<Song> songs = songs("Song", 600);
+        database.saveAll(songs);
+
+        List<String> ids = new ArrayList<>(songs.stream().map(Song::id).toList());
+        ids.add("missing");
+        ids.add(songs.getFirst().id());
+
+        Map<String, Song> expected = new HashMap<>();
+        songs.forEach(song -> expected.put(song.id(), song));
+
+        assertEquals(expected, database.findByIDs(ids));
+        assertEquals(expected, new CachingSongRepository(database).findByIDs(ids));
+    }
+
+    @Test
+    void saveAllPublishesAddedAndUpdatedSongs() {
+        List<Song> existing = songs("Old", 300);
+        database.saveAll(existing);
+
+        List<Song> batch = new ArrayList<>();
+        List<LibraryEvent> expected = new ArrayList<>();
+        for (Song song : existing) {
+            Song renamed = new Song(song.id(), "Renamed " + song.title(), song.album(), song.artist(), song.durationInSeconds());
+            batch.add(renamed);
+            expected.add(new SongUpdated(song, renamed));
+        }
+        for (Song song : songs("New", 300)) {
+            batch.add(song);
+            expected.add(new SongAdded(song));
+        }
+        // the second write of an id in the same batch updates the first one
+        Song first = batch.getLast();
+        Song again = new Song(first.id(), "Again", first.album(), first.artist(), first.durationInSeconds());
+        batch.add(again);
+        expected.add(new SongUpdated(first, again));
+
+        assertEquals(batch.size(), repository.saveAll(batch));
+        assertEquals(expected, events);
+    }
+
+    private static List<Song> songs(String prefix, int count) {
+        List<Song> songs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            songs.add(new Song(prefix + " " + i, "Album " + i % 7, "Artist " + i % 11, 100 + i));
+        }
+        return songs;
+    }
+}
@@ -0,0 +1,40 @@
+package de.st197974.songmanager.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+class PooledConnectionTest {
+
+    @TempDir
+    Path dir;
+
+    private SQLiteConnectionPool pool;
+
+    @BeforeEach
+    void openPool() {
+        pool = new SQLiteConnectionPool(dir.resolve("test.db").toString(), 2);
+    }
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    @Test
+    void closingTwiceReturnsTheConnectionOnlyOnce() throws SQLException {
+        PooledConnection connection = pool.acquire();
+        connection.close();
+        connection.close();
+
+        try (PooledConnection first = pool.acquire(); PooledConnection second = pool.acquire()) {
+            assertNotSame(first, second);
+        }
+    }
+}
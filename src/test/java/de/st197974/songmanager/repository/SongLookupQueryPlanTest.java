@@ -0,0 +1,73 @@
+package de.st197974.songmanager.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Guards that the lookups by artist, album and title search their NOCASE index instead of scanning the songs.
+ */
+class SongLookupQueryPlanTest {
+
+    @TempDir
+    Path dir;
+
+    private SQLiteConnectionPool pool;
+
+    @BeforeEach
+    void migrate() {
+        pool = new SQLiteConnectionPool(dir.resolve("test.db").toString(), 1);
+        new SchemaMigrator(pool).migrate();
+    }
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    @Test
+    void findByArtistSearchesArtistIndex() throws SQLException {
+        assertSearchesIndex(SQLiteSongRepository.FIND_BY_ARTIST_SQL, "idx_songs_artist_id");
+    }
+
+    @Test
+    void findByAlbumSearchesAlbumIndex() throws SQLException {
+        assertSearchesIndex(SQLiteSongRepository.FIND_BY_ALBUM_SQL, "idx_songs_album");
+    }
+
+    @Test
+    void titleLookupSearchesTitleIndex() throws SQLException {
+        assertSearchesIndex("SELECT * FROM songs WHERE title = ? COLLATE NOCASE", "idx_songs_title_id");
+    }
+
+    private void assertSearchesIndex(String sql, String index) throws SQLException {
+        List<String> plan = queryPlan(sql);
+
+        assertTrue(plan.stream().anyMatch(step -> step.startsWith("SEARCH songs USING INDEX " + index + " ")),
+                () -> "Expected a search of " + index + " but the plan was " + plan);
+    }
+
+    private List<String> queryPlan(String sql) throws SQLException {
+        List<String> plan = new ArrayList<>();
+
+        try (PooledConnection pooled = pool.acquire(); PreparedStatement pstmt = pooled.connection().prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+            pstmt.setString(1, "x");
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    plan.add(rs.getString("detail"));
+                }
+            }
+        }
+        return plan;
+    }
+}
@@ -0,0 +1,83 @@
+package de.st197974.songmanager.service;
+
+import de.st197974.songmanager.event.LibraryEventBus;
+import de.st197974.songmanager.event.SongsBulkChanged;
+import de.st197974.songmanager.model.Song;
+import de.st197974.songmanager.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalLibraryStatsTest {
+
+    @TempDir
+    Path dir;
+
+    private SQLiteConnectionPool pool;
+    private LibraryEventBus eventBus;
+    private SongRepository songs;
+    private FavoritesRepository favorites;
+    private SQLiteStatsRepository statsRepository;
+    private IncrementalLibraryStats stats;
+
+    @BeforeEach
+    void openRepositories() {
+        pool = new SQLiteConnectionPool(dir.resolve("test.db").toString(), 4);
+        new SchemaMigrator(pool).migrate();
+
+        eventBus = new LibraryEventBus();
+        songs = new EventPublishingSongRepository(new SQLiteSongRepository(pool), eventBus);
+        favorites = new EventPublishingFavoritesRepository(new SQLiteFavoritesRepository(pool), eventBus);
+        statsRepository = new SQLiteStatsRepository(pool);
+
+        stats = new IncrementalLibraryStats(statsRepository, eventBus, favorites::getAllFavoriteIds, id -> songs.findByID(id) != null);
+        eventBus.subscribe(stats::onEvent);
+    }
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    @Test
+    void reloadsDuringAnImportDoNotCountABatchTwice() {
+        AtomicBoolean importing = new AtomicBoolean(true);
+
+        CompletableFuture<Void> reloads = CompletableFuture.runAsync(() -> {
+            while (importing.get()) {
+                eventBus.publish(new SongsBulkChanged());
+                stats.snapshot();
+            }
+        });
+
+        try {
+            for (int batch = 0; batch < 40; batch++) {
+                List<Song> songsOfBatch = new ArrayList<>();
+                for (int i = 0; i < 100; i++) {
+                    songsOfBatch.add(new Song("Song " + batch + "/" + i, "Album", "Artist " + i % 5, 60 + i));
+                }
+                songs.saveAll(songsOfBatch);
+
+                favorites.addFavorite(songsOfBatch.getFirst().id());
+                songs.deleteByID(songsOfBatch.getLast().id());
+            }
+        } finally {
+            importing.set(false);
+        }
+        reloads.join();
+
+        stats.snapshot();
+        assertTrue(stats.verify());
+        assertEquals(statsRepository.loadStats(), stats.snapshot());
+    }
+}
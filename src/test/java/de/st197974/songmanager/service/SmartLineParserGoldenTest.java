@@ -0,0 +1,68 @@
+package de.st197974.songmanager.service;
+
+import de.st197974.songmanager.model.Song;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Compares the parser with the output the former regex-based parser produced for the same lines, recorded in
+ * {@code smart-line-parser/expected.txt} as one {@link #describe(Song)} line per line of {@code input.txt}.
+ */
+class SmartLineParserGoldenTest {
+
+    @Test
+    void parsesLinesLikeTheRegexParser() throws IOException {
+        List<String> input = readLines("smart-line-parser/input.txt");
+        List<String> expected = readLines("smart-line-parser/expected.txt");
+
+        List<String> actual = input.stream().map(line -> describe(SmartLineParser.parse(line))).toList();
+
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Title, artist, album and duration separated by tabs; backslashes, tabs and other control characters are
+     * escaped so every song stays on one line. Ids are random, so they are left out.
+     */
+    static String describe(Song song) {
+        if (song == null) return "null";
+        return escape(song.title()) + '\t' + escape(song.artist()) + '\t' + escape(song.album()) + '\t' + song.durationInSeconds();
+    }
+
+    private static String escape(String value) {
+        if (value == null) return "\\0";
+
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\') {
+                sb.append("\\\\");
+            } else if (c == '\t') {
+                sb.append("\\t");
+            } else if (c < 0x20 || c == 0x85 || c == 0x2028 || c == 0x2029) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static List<String> readLines(String resource) throws IOException {
+        InputStream in = SmartLineParserGoldenTest.class.getClassLoader().getResourceAsStream(resource);
+        assertNotNull(in, resource);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return reader.lines().toList();
+        }
+    }
+}
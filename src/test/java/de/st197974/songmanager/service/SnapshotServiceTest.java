@@ -0,0 +1,203 @@
+package de.st197974.songmanager.service;
+
+import de.st197974.songmanager.model.Playlist;
+import de.st197974.songmanager.model.Song;
+import de.st197974.songmanager.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private SQLiteConnectionPool source;
+    private SQLiteConnectionPool target;
+    private Path snapshot;
+
+    @BeforeEach
+    void backUpALibrary() {
+        source = open("source.db");
+        target = open("target.db");
+
+        SQLiteSongRepository songs = new SQLiteSongRepository(source);
+        List<Song> library = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            library.add(new Song("song-" + i, "Title " + i + (i % 7 == 0 ? " – Ünïcödé" : ""), i % 3 == 0 ? null : "Album " + i % 4, "Artist " + i % 5, i * 997));
+        }
+        library.add(new Song("long", "x".repeat(100_000), "Album 1", "Artist 1", Integer.MAX_VALUE));
+        songs.saveAll(library);
+
+        SQLitePlaylistRepository playlists = new SQLitePlaylistRepository(source);
+        playlists.createPlaylist(new Playlist("playlist-a", "Road Trip"));
+        playlists.createPlaylist(new Playlist("playlist-b", "Empty"));
+        playlists.createPlaylist(new Playlist("playlist-c", "Mixed"));
+        for (int i = 0; i < 40; i += 3) playlists.addSongToPlaylist("playlist-a", "song-" + i);
+        playlists.addSongToPlaylist("playlist-c", "song-1");
+        playlists.addSongToPlaylist("playlist-c", "long");
+
+        SQLiteFavoritesRepository favorites = new SQLiteFavoritesRepository(source);
+        favorites.addFavorite("song-2");
+        favorites.addFavorite("song-39");
+        favorites.addFavorite("long");
+
+        snapshot = dir.resolve("library." + SnapshotService.FILE_EXTENSION);
+        assertEquals(SnapshotResult.Status.SUCCESS, new SnapshotService(new SQLiteSnapshotRepository(source)).backup(snapshot).status());
+    }
+
+    @AfterEach
+    void closePools() {
+        source.close();
+        target.close();
+    }
+
+    @Test
+    void restoreKeepsIdsMembershipsAndFavorites() throws IOException {
+        new SQLiteSongRepository(target).save(new Song("other", "Replaced", "Album", "Artist", 1));
+
+        SnapshotResult result = new SnapshotService(new SQLiteSnapshotRepository(target)).restore(snapshot);
+
+        assertEquals(SnapshotResult.Status.SUCCESS, result.status());
+        assertEquals(41, result.songs());
+        assertEquals(3, result.playlists());
+        assertEquals(16, result.playlistSongs());
+        assertEquals(3, result.favorites());
+        assertEquals(dump(source), dump(target));
+
+        SQLitePlaylistRepository playlists = new SQLitePlaylistRepository(target);
+        assertTrue(playlists.isSongInPlaylist("playlist-c", "long"));
+        assertFalse(playlists.isSongInPlaylist("playlist-c", "song-0"));
+        assertTrue(new SQLiteFavoritesRepository(target).isFavorite("song-39"));
+        assertNull(new SQLiteSongRepository(target).findByID("other"));
+        assertEquals(Integer.MAX_VALUE, new SQLiteSongRepository(target).findByID("long").durationInSeconds());
+    }
+
+    @Test
+    void restoreKeepsIndexesTriggersAndFullTextSearch() throws SQLException {
+        List<String> schema = schema(target);
+
+        new SnapshotService(new SQLiteSnapshotRepository(target)).restore(snapshot);
+
+        assertEquals(schema, schema(target));
+        SQLiteSongRepository songs = new SQLiteSongRepository(target);
+        assertEquals(List.of("song-7"), songs.search("title 7 ünïcödé", 10).stream().map(Song::id).toList());
+
+        // the triggers keep the full-text index current again
+        songs.save(new Song("new", "Freshly Added", "Album", "Artist", 1));
+        assertEquals(List.of("new"), songs.search("freshly", 10).stream().map(Song::id).toList());
+    }
+
+    @Test
+    void truncatedSnapshotsAreRejectedAndRolledBack() throws IOException {
+        byte[] bytes = Files.readAllBytes(snapshot);
+        List<String> before = dump(target);
+
+        for (int length : new int[]{0, 3, SnapshotFormat.MAGIC.length + 1, 40, bytes.length / 2, bytes.length - 5, bytes.length - 1}) {
+            assertRejected(Arrays.copyOf(bytes, length), "truncated to " + length);
+        }
+        assertEquals(before, dump(target));
+    }
+
+    @Test
+    void damagedSnapshotsAreRejectedAndRolledBack() throws IOException {
+        new SQLiteSongRepository(target).save(new Song("kept", "Kept", "Album", "Artist", 1));
+        List<String> before = dump(target);
+        byte[] bytes = Files.readAllBytes(snapshot);
+
+        // every byte of the records, skipping through the long title, and the checksum
+        for (int position = 0; position < bytes.length; position += position > 2_000 && position < bytes.length - 2_000 ? 997 : 1) {
+            byte[] damaged = bytes.clone();
+            damaged[position] ^= (byte) (1 << position % 8);
+            assertRejected(damaged, "bit flipped at " + position);
+        }
+
+        byte[] trailing = Arrays.copyOf(bytes, bytes.length + 1);
+        assertRejected(trailing, "trailing byte");
+        assertEquals(before, dump(target));
+    }
+
+    @Test
+    void foreignFilesAreRejected() throws IOException {
+        byte[] bytes = Files.readAllBytes(snapshot);
+        byte[] foreign = bytes.clone();
+        foreign[0] = 'P';
+        foreign[1] = 'K';
+
+        assertRejected(foreign, "foreign magic");
+        assertRejected("title, artist, album, 3:00\n".getBytes(StandardCharsets.UTF_8), "text export");
+
+        Path file = dir.resolve("foreign.smsnap");
+        Files.write(file, foreign);
+        assertEquals(SnapshotResult.Status.INVALID_FILE, new SnapshotService(new SQLiteSnapshotRepository(target)).restore(file).status());
+    }
+
+    private void assertRejected(byte[] bytes, String description) {
+        SQLiteSnapshotRepository repository = new SQLiteSnapshotRepository(target);
+        assertThrows(SnapshotFormatException.class,
+                () -> repository.replace(new SnapshotReader(Channels.newChannel(new ByteArrayInputStream(bytes)))), description);
+    }
+
+    private SQLiteConnectionPool open(String name) {
+        SQLiteConnectionPool pool = new SQLiteConnectionPool(dir.resolve(name).toString(), 2);
+        new SchemaMigrator(pool).migrate();
+        return pool;
+    }
+
+    /**
+     * Every row of the library, in the order of a snapshot.
+     */
+    private static List<String> dump(SQLiteConnectionPool pool) throws IOException {
+        List<String> rows = new ArrayList<>();
+        boolean read = new SQLiteSnapshotRepository(pool).read(new SnapshotRepository.Sink() {
+            @Override
+            public void song(Song song) {
+                rows.add(song.toString());
+            }
+
+            @Override
+            public void playlist(Playlist playlist) {
+                rows.add(playlist.toString());
+            }
+
+            @Override
+            public void playlistSong(String playlistId, String songId) {
+                rows.add(playlistId + " contains " + songId);
+            }
+
+            @Override
+            public void favorite(String songId) {
+                rows.add("favorite " + songId);
+            }
+        });
+        assertTrue(read);
+        return rows;
+    }
+
+    private static List<String> schema(SQLiteConnectionPool pool) throws SQLException {
+        List<String> objects = new ArrayList<>();
+        try (PooledConnection pooled = pool.acquire(); Statement stmt = pooled.connection().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT type, name, tbl_name, sql FROM sqlite_master WHERE type IN ('index', 'trigger') ORDER BY name")) {
+            while (rs.next()) {
+                objects.add(rs.getString(1) + " " + rs.getString(2) + " on " + rs.getString(3) + ": " + rs.getString(4));
+            }
+        }
+        return objects;
+    }
+}
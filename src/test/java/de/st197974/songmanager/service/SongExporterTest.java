@@ -0,0 +1,135 @@
+package de.st197974.songmanager.service;
+
+import de.st197974.songmanager.model.Song;
+import de.st197974.songmanager.model.SongView;
+import de.st197974.songmanager.repository.SQLiteConnectionPool;
+import de.st197974.songmanager.repository.SQLiteSongRepository;
+import de.st197974.songmanager.repository.SchemaMigrator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class SongExporterTest {
+
+    private static final List<Song> AWKWARD_SONGS = List.of(
+            new Song("id-1", "Hello, World", "Album \"X\"", "Artist", 61),
+            new Song("id-2", "Line\r\nBreak", null, "Artist", 5),
+            new Song("id-3", "Back\\slash\ttab\u0001", "Al\nbum", "Bartist", 0));
+
+    @TempDir
+    Path dir;
+
+    private SQLiteConnectionPool pool;
+    private SQLiteSongRepository repository;
+
+    @BeforeEach
+    void openRepository() {
+        pool = new SQLiteConnectionPool(dir.resolve("test.db").toString(), 2);
+        new SchemaMigrator(pool).migrate();
+        repository = new SQLiteSongRepository(pool);
+    }
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    @Test
+    void csvQuotesCommasQuotesAndLineBreaks() throws IOException {
+        repository.saveAll(AWKWARD_SONGS);
+
+        // SQLite sorts the missing album first
+        assertEquals("""
+                id,title,artist,album,durationInSeconds\r
+                id-2,"Line\r
+                Break",Artist,,5\r
+                id-1,"Hello, World",Artist,"Album ""X\"\"\",61\r
+                id-3,Back\\slash\ttab\u0001,Bartist,"Al
+                bum",0\r
+                """, export(ExportFormat.CSV));
+    }
+
+    @Test
+    void jsonLinesEscapeQuotesBackslashesAndControlCharacters() throws IOException {
+        repository.saveAll(AWKWARD_SONGS);
+
+        assertEquals("""
+                {"id":"id-2","title":"Line\\r\\nBreak","artist":"Artist","album":null,"durationInSeconds":5}
+                {"id":"id-1","title":"Hello, World","artist":"Artist","album":"Album \\"X\\"","durationInSeconds":61}
+                {"id":"id-3","title":"Back\\\\slash\\ttab\\u0001","artist":"Bartist","album":"Al\\nbum","durationInSeconds":0}
+                """, export(ExportFormat.JSON_LINES));
+    }
+
+    @Test
+    void textMatchesTheFormerInMemoryExport() throws IOException {
+        List<Song> songs = new ArrayList<>();
+        String[] artists = {"The Beatles", "abba", "Ólafur Arnalds", "Zappa", "beach boys"};
+        for (int i = 0; i < 60; i++) {
+            songs.add(new Song("Track " + (char) ('a' + i % 26) + i, i % 4 == 0 ? "first album" : "Second Album", artists[i % artists.length], 30 + i * 7));
+        }
+        repository.saveAll(songs);
+
+        assertEquals(formerTextExport(repository.findAll()), export(ExportFormat.TEXT));
+    }
+
+    @Test
+    void exportFileGetsDefaultPermissions() throws IOException {
+        assumeTrue(Files.getFileStore(dir).supportsFileAttributeView("posix"));
+        repository.saveAll(AWKWARD_SONGS);
+        DiscographyService service = new DiscographyService(repository);
+
+        Set<PosixFilePermission> defaults = Files.getPosixFilePermissions(Files.createFile(dir.resolve("reference.txt")));
+        Path created = dir.resolve("created.txt");
+        service.saveExportToFile(created, ExportFormat.TEXT);
+        assertEquals(defaults, Files.getPosixFilePermissions(created));
+
+        Path replaced = Files.createFile(dir.resolve("replaced.csv"));
+        Set<PosixFilePermission> shared = PosixFilePermissions.fromString("rw-rw-r--");
+        Files.setPosixFilePermissions(replaced, shared);
+        service.saveExportToFile(replaced, ExportFormat.CSV);
+        assertEquals(shared, Files.getPosixFilePermissions(replaced));
+    }
+
+    private String export(ExportFormat format) throws IOException {
+        StringWriter out = new StringWriter();
+        new SongExporter(out, format).export(repository);
+        return out.toString();
+    }
+
+    /**
+     * The text export as DiscographyService built it in memory before exports were streamed.
+     */
+    private static String formerTextExport(List<Song> library) {
+        List<Song> songs = library.stream().sorted(Comparator.comparing(Song::artist, String.CASE_INSENSITIVE_ORDER).thenComparing(Song::album, String.CASE_INSENSITIVE_ORDER).thenComparing(Song::title, String.CASE_INSENSITIVE_ORDER)).toList();
+
+        StringBuilder sb = new StringBuilder();
+        String lastArtist = null;
+
+        for (Song song : songs) {
+            if (lastArtist != null && !song.artist().equalsIgnoreCase(lastArtist)) {
+                sb.append(System.lineSeparator());
+            }
+
+            sb.append(song.title()).append(", ").append(song.artist()).append(", ").append(song.album()).append(", ")
+                    .append(SongView.formatDuration(song.durationInSeconds())).append(System.lineSeparator());
+
+            lastArtist = song.artist();
+        }
+        return sb.toString();
+    }
+}
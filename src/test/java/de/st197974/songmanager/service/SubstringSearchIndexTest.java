@@ -0,0 +1,42 @@
+package de.st197974.songmanager.service;
+
+import de.st197974.songmanager.model.Song;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SubstringSearchIndexTest {
+
+    private final Song abbeyRoad = new Song("Come Together", "Abbey Road", "The Beatles", 259);
+    private final Song blackAlbum = new Song("Enter Sandman", "Metallica", "Metallica", 331);
+
+    private final SubstringSearchIndex index = new SubstringSearchIndex(() -> List.of(abbeyRoad, blackAlbum));
+
+    @Test
+    void findsQueriesWithinAField() {
+        assertEquals(List.of(abbeyRoad), index.search("TOGETHER", 10));
+        assertEquals(List.of(blackAlbum), index.search("tall", 10));
+        assertEquals(List.of(), index.search("zeppelin", 10));
+    }
+
+    @Test
+    void returnsEveryMatchWithoutALimit() {
+        List<Song> library = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) library.add(new Song("Track " + i, "Album", "Artist", 100));
+        SubstringSearchIndex large = new SubstringSearchIndex(() -> library);
+
+        assertEquals(library, large.search("a", Integer.MAX_VALUE));
+        assertEquals(library.subList(0, 500), large.search("a", 500));
+    }
+
+    @Test
+    void scansQueriesWithoutATrigramInsideAField() {
+        // the search key separates title, artist and album by line breaks
+        assertEquals(List.of(abbeyRoad), index.search("r\nt", 10));
+        assertEquals(List.of(blackAlbum), index.search("an\nme", 10));
+        assertEquals(List.of(), index.search("x\ny", 10));
+    }
+}
@@ -0,0 +1,71 @@
+package de.st197974.songmanager.ui;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BackgroundTasksTest {
+
+    @Test
+    void writesAreNeitherDroppedNorReordered() throws Exception {
+        BackgroundTasks tasks = new BackgroundTasks();
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> written = new CopyOnWriteArrayList<>();
+        List<String> reported = new CopyOnWriteArrayList<>();
+        CountDownLatch bothReported = new CountDownLatch(2);
+
+        SwingUtilities.invokeAndWait(() -> {
+            tasks.write("edit", () -> {
+                firstStarted.countDown();
+                release.await();
+                written.add("first");
+                return "first";
+            }, result -> {
+                reported.add(result);
+                bothReported.countDown();
+            });
+            tasks.write("edit", () -> {
+                written.add("second");
+                return "second";
+            }, result -> {
+                reported.add(result);
+                bothReported.countDown();
+            });
+        });
+
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        release.countDown();
+
+        assertTrue(bothReported.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("first", "second"), written);
+        assertEquals(List.of("first", "second"), reported);
+        tasks.close();
+    }
+
+    @Test
+    void closeWaitsForRunningWrites() throws Exception {
+        BackgroundTasks tasks = new BackgroundTasks();
+        CountDownLatch started = new CountDownLatch(1);
+        List<String> written = new CopyOnWriteArrayList<>();
+
+        SwingUtilities.invokeAndWait(() -> tasks.write("delete", () -> {
+            started.countDown();
+            Thread.sleep(200);
+            written.add("deleted");
+            return null;
+        }, _ -> {
+        }));
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        tasks.close();
+        assertEquals(List.of("deleted"), written);
+    }
+}